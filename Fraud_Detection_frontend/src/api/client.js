@@ -28,6 +28,10 @@ export const api = {
     });
     return request(`${API_BASE}/api/decisions?${queryParams}`);
   },
+  trend: (granularity = 'MINUTE', params = {}) => {
+    const queryParams = new URLSearchParams({ granularity, ...params });
+    return request(`${API_BASE}/api/overview/trend?${queryParams}`);
+  },
   highRisk: (size = 10) => request(`${API_BASE}/api/decisions/high-risk?size=${size}`),
   recentTransactions: (limit = 25) =>
     request(`${API_BASE}/api/transactions/recent?limit=${limit}`),
@@ -37,6 +41,9 @@ export const api = {
     request(`${API_BASE}/api/decisions/${transactionId}`),
   getUserStats: (userId) =>
     request(`${API_BASE}/api/decisions/user/${userId}/stats`),
+  // Live decisions over SSE; caller attaches 'decision' / 'dropped' listeners and closes it
+  decisionStream: (params = {}) =>
+    new EventSource(`${API_BASE}/api/decisions/stream?${new URLSearchParams(params)}`),
   createTransaction: (payload) =>
     fetch(`${INGEST_BASE}/transactions`, {
       method: 'POST',
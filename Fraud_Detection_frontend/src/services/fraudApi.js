@@ -70,26 +70,13 @@ export const fetchDecisionBreakdown = async () => {
 };
 
 export const fetchLatencySeries = async () => {
-  const page = await api.recentDecisions(200, 0);
-  const content = page.content ?? [];
-  const buckets = new Map();
-  content.forEach((item) => {
-    if (!item.evaluatedAt) return;
-    const bucketDate = new Date(item.evaluatedAt);
-    bucketDate.setMinutes(bucketDate.getMinutes() - (bucketDate.getMinutes() % 5), 0, 0);
-    const key = bucketDate.toISOString();
-    const entry = buckets.get(key) ?? { timestamp: key, count: 0, totalLatency: 0 };
-    entry.count += 1;
-    entry.totalLatency += item.latencyMs ?? 0;
-    buckets.set(key, entry);
-  });
-  return Array.from(buckets.values())
-    .sort((a, b) => new Date(a.timestamp) - new Date(b.timestamp))
-    .map((entry) => ({
-      timestamp: entry.timestamp,
-      p95: entry.count ? Math.round((entry.totalLatency / entry.count) * 0.95) : 0,
-      p99: entry.count ? Math.round((entry.totalLatency / entry.count) * 0.99) : 0
-    }));
+  // Server-side per-minute rollups, no client-side bucketing of raw decisions
+  const trend = await api.trend('MINUTE');
+  return (trend.points ?? []).map((point) => ({
+    timestamp: point.bucketStart,
+    p95: Math.round((point.averageLatencyMs ?? 0) * 0.95),
+    p99: Math.round((point.averageLatencyMs ?? 0) * 0.99)
+  }));
 };
 
 export const fetchTrendMetrics = async () => {
@@ -0,0 +1,23 @@
+package com.fraud.common.model;
+
+/**
+ * Kafka record headers stamped on every {@link FraudDecision}, so consumers can route or drop
+ * records without deserializing the payload. Values are UTF-8 strings.
+ */
+public final class DecisionHeaders {
+
+  /** ALLOW | REVIEW | BLOCK */
+  public static final String DECISION = "fraud-decision";
+  /** low | medium | high, see {@link #scoreBand(double)} */
+  public static final String SCORE_BAND = "fraud-score-band";
+
+  private DecisionHeaders() {
+  }
+
+  // Same cut-offs as the rule engine's REVIEW (30) and BLOCK (60) thresholds
+  public static String scoreBand(double score) {
+    if (score >= 60) return "high";
+    if (score >= 30) return "medium";
+    return "low";
+  }
+}
@@ -1,7 +1,9 @@
 package com.fraud.common.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -23,4 +25,8 @@ public class FraudDecision {
 
     private Double modelScore;
     private String modelVersion;
+
+    /** Microseconds spent per pipeline stage; only on sampled decisions. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Double> stageMicros;
 }
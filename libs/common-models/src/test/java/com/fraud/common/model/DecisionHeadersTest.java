@@ -0,0 +1,18 @@
+package com.fraud.common.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class DecisionHeadersTest {
+
+  @Test
+  void bandsSplitAtTheReviewAndBlockThresholds() {
+    assertThat(DecisionHeaders.scoreBand(0)).isEqualTo("low");
+    assertThat(DecisionHeaders.scoreBand(29.99)).isEqualTo("low");
+    assertThat(DecisionHeaders.scoreBand(30)).isEqualTo("medium");
+    assertThat(DecisionHeaders.scoreBand(59.99)).isEqualTo("medium");
+    assertThat(DecisionHeaders.scoreBand(60)).isEqualTo("high");
+    assertThat(DecisionHeaders.scoreBand(100)).isEqualTo("high");
+  }
+}
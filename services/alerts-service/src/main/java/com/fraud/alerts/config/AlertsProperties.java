@@ -1,10 +1,12 @@
 package com.fraud.alerts.config;
 
+import com.fraud.alerts.dedupe.DedupeField;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Set;
 
 @Data
@@ -12,11 +14,23 @@ import java.util.Set;
 public class AlertsProperties {
 
     private Set<String> decisions = Set.of("REVIEW", "BLOCK");
+    // Score bands (low, medium, high) to alert on; empty means all
+    private Set<String> scoreBands = Set.of();
     private SlackConfig slack = new SlackConfig();
 
     @Data
     public static class SlackConfig {
         private String webhookUrl;
         private Duration dedupeWindow = Duration.ofMinutes(5);
+        // Fields that identify a duplicate alert, e.g. transactionId or userId,decision
+        private List<DedupeField> dedupeKey = List.of(DedupeField.TRANSACTION_ID);
+        private int dedupeMaxEntries = 100_000;
+        private Duration timeout = Duration.ofSeconds(5);
+        // Alerts accepted but not yet delivered; the consumer waits when the window is full
+        private int maxInFlight = 500;
+        // Alerts queued within one interval go out as a single digest post
+        private Duration digestInterval = Duration.ofSeconds(2);
+        private int digestMaxSize = 50;
+        private int retries = 2;
     }
 }
@@ -0,0 +1,35 @@
+package com.fraud.alerts.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.support.converter.ByteArrayJsonMessageConverter;
+import org.springframework.kafka.support.converter.RecordMessageConverter;
+
+/**
+ * Decisions are consumed as raw bytes and only converted to JSON objects by the listener
+ * adapter, after the header filter has had its say (see {@code DecisionHeaderFilter}).
+ */
+@Configuration
+public class KafkaConsumerConfig {
+
+    @Bean
+    public RecordMessageConverter decisionMessageConverter(ObjectMapper objectMapper) {
+        return new ByteArrayJsonMessageConverter(objectMapper);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> kafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        // Picks up the filter strategy and converter beans
+        configurer.configure(factory, consumerFactory);
+        // Manual acks: filtered records must be acked too, or async acks would stall on the gap
+        factory.setAckDiscarded(true);
+        return factory;
+    }
+}
@@ -0,0 +1,36 @@
+package com.fraud.alerts.dedupe;
+
+import com.fraud.common.model.FraudDecision;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Decision fields an alert's dedupe key is built from, e.g. {@code transactionId} or
+ * {@code userId,decision} in {@code app.alerts.slack.dedupe-key}.
+ */
+public enum DedupeField {
+    TRANSACTION_ID(FraudDecision::getTransactionId),
+    USER_ID(FraudDecision::getUserId),
+    DECISION(FraudDecision::getDecision);
+
+    private final Function<FraudDecision, String> extractor;
+
+    DedupeField(Function<FraudDecision, String> extractor) {
+        this.extractor = extractor;
+    }
+
+    public static String key(List<DedupeField> fields, FraudDecision decision) {
+        if (fields.size() == 1) {
+            return String.valueOf(fields.get(0).extractor.apply(decision));
+        }
+        StringBuilder key = new StringBuilder();
+        for (DedupeField field : fields) {
+            if (!key.isEmpty()) {
+                key.append('|');
+            }
+            key.append(field.extractor.apply(decision));
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,183 @@
+package com.fraud.alerts.dedupe;
+
+import com.fraud.alerts.config.AlertsProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers which alert keys were sent within the dedupe window.
+ *
+ * Keys are filed into a ring of time buckets (a single-level timing wheel) by the tick they
+ * were first seen in. As time advances, whole buckets fall out of the window and only their
+ * keys are removed, so expiry costs O(1) per key instead of a scan of every entry per alert.
+ * The map keeps each key's first-seen time, so the window check itself is exact; buckets only
+ * decide when memory is reclaimed. When {@code dedupe-max-entries} is reached the oldest keys
+ * are evicted early, which at worst lets a duplicate alert through.
+ */
+@Component
+public class DedupeStore {
+
+    private static final int BUCKETS = 64;
+
+    private final long windowMillis;
+    private final long tickMillis;
+    private final int maxEntries;
+    private final LongSupplier clock;
+
+    private final Map<String, Long> firstSeen = new HashMap<>();
+    // One slot more than the window spans, so a bucket is only recycled once all its keys are out
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<String>[] buckets = new ArrayDeque[BUCKETS + 1];
+    private long oldestTick;
+    private long keyChars;
+
+    private final Counter expiredCounter;
+    private final Counter evictedCounter;
+    private final Counter duplicateCounter;
+
+    @Autowired
+    public DedupeStore(AlertsProperties properties, MeterRegistry meterRegistry) {
+        this(properties.getSlack().getDedupeWindow(), properties.getSlack().getDedupeMaxEntries(),
+            System::currentTimeMillis, meterRegistry);
+    }
+
+    DedupeStore(Duration window, int maxEntries, LongSupplier clock, MeterRegistry meterRegistry) {
+        this.windowMillis = window == null || window.isNegative() ? 0 : window.toMillis();
+        this.tickMillis = Math.max(1, (windowMillis + BUCKETS - 1) / BUCKETS);
+        this.maxEntries = Math.max(maxEntries, 1);
+        this.clock = clock;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.oldestTick = clock.getAsLong() / tickMillis;
+
+        this.expiredCounter = Counter.builder("alerts_dedupe_evictions_total")
+            .description("Dedupe keys removed, by cause")
+            .tag("cause", "expired")
+            .register(meterRegistry);
+        this.evictedCounter = Counter.builder("alerts_dedupe_evictions_total")
+            .description("Dedupe keys removed, by cause")
+            .tag("cause", "capacity")
+            .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("alerts_dedupe_duplicates_total")
+            .description("Alerts suppressed as duplicates within the dedupe window")
+            .register(meterRegistry);
+        Gauge.builder("alerts_dedupe_entries", this, DedupeStore::size)
+            .description("Keys held by the alert dedupe store")
+            .register(meterRegistry);
+        Gauge.builder("alerts_dedupe_bytes", this, DedupeStore::estimatedBytes)
+            .description("Estimated heap held by the alert dedupe store")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Record {@code key} and return true, unless it was already recorded within the window.
+     * A suppressed duplicate does not extend the window.
+     */
+    public synchronized boolean admit(String key) {
+        if (windowMillis == 0) {
+            return true;
+        }
+        long now = clock.getAsLong();
+        long tick = now / tickMillis;
+        expire(tick);
+
+        Long seen = firstSeen.get(key);
+        if (seen != null && now - seen < windowMillis) {
+            duplicateCounter.increment();
+            return false;
+        }
+        if (seen == null) {
+            // At the cap: make room from the oldest buckets
+            while (firstSeen.size() >= maxEntries) {
+                if (!evictOldest(tick)) {
+                    break;
+                }
+            }
+            keyChars += key.length();
+        }
+        // A stale key still sits in its old bucket; that bucket's expiry skips it by time
+        firstSeen.put(key, now);
+        buckets[slot(tick)].addLast(key);
+        return true;
+    }
+
+    public synchronized int size() {
+        return firstSeen.size();
+    }
+
+    // Recycle every bucket whose keys are all past the window
+    private void expire(long tick) {
+        long lastExpired = tick - BUCKETS - 1;
+        if (lastExpired - oldestTick >= buckets.length) {
+            // Idle longer than the whole ring: everything is stale
+            expiredCounter.increment(firstSeen.size());
+            firstSeen.clear();
+            keyChars = 0;
+            for (ArrayDeque<String> bucket : buckets) {
+                bucket.clear();
+            }
+            oldestTick = lastExpired + 1;
+            return;
+        }
+        while (oldestTick <= lastExpired) {
+            ArrayDeque<String> bucket = buckets[slot(oldestTick)];
+            String key;
+            while ((key = bucket.pollFirst()) != null) {
+                if (removeIfFiledAt(key, oldestTick)) {
+                    expiredCounter.increment();
+                }
+            }
+            oldestTick++;
+        }
+    }
+
+    private boolean evictOldest(long tick) {
+        while (true) {
+            ArrayDeque<String> bucket = buckets[slot(oldestTick)];
+            String key;
+            while ((key = bucket.pollFirst()) != null) {
+                if (removeIfFiledAt(key, oldestTick)) {
+                    evictedCounter.increment();
+                    return true;
+                }
+            }
+            if (oldestTick == tick) {
+                return false;
+            }
+            oldestTick++;
+        }
+    }
+
+    // Only remove the key if this bucket holds its current entry, not an older re-filing
+    private boolean removeIfFiledAt(String key, long tick) {
+        Long seen = firstSeen.get(key);
+        if (seen == null || seen / tickMillis != tick) {
+            return false;
+        }
+        firstSeen.remove(key);
+        keyChars -= key.length();
+        return true;
+    }
+
+    private int slot(long tick) {
+        return (int) Math.floorMod(tick, (long) buckets.length);
+    }
+
+    private double estimatedBytes() {
+        // HashMap node + boxed Long + String header per key, plus the bucket slot referencing it
+        synchronized (this) {
+            return firstSeen.size() * (32L + 16L + 40L + 8L) + keyChars;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.fraud.alerts.delivery;
+
+import com.fraud.alerts.config.AlertsProperties;
+import com.fraud.common.model.FraudDecision;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers alerts to the Slack webhook off the Kafka consumer thread.
+ *
+ * Accepted alerts are queued and posted as one digest per {@code digest-interval} (or as soon as
+ * {@code digest-max-size} are waiting), without blocking on the response. A record is only
+ * acknowledged once the post carrying it has completed; the container's async acks commit
+ * offsets in order, so a crash redelivers anything not yet posted. At most
+ * {@code max-in-flight} alerts are outstanding: when the window is full the consumer waits for
+ * a slot, which is the only point it ever blocks.
+ *
+ * A post that still fails after its retries is counted and its records acknowledged, as the
+ * default error handler would after exhausting its attempts; one dead webhook must not wedge
+ * the partition.
+ */
+@Slf4j
+@Component
+public class AlertDispatcher {
+
+    private record Pending(FraudDecision decision, Acknowledgment ack) {
+    }
+
+    private final AlertsProperties.SlackConfig slack;
+    private final WebClient.Builder webClientBuilder;
+    private final MeterRegistry meterRegistry;
+
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Semaphore inFlight;
+    private final int digestMaxSize;
+
+    private WebClient slackClient;
+    private ScheduledExecutorService scheduler;
+    private Counter sentCounter;
+    private Counter failedCounter;
+    private Counter successfulPosts;
+    private Counter failedPosts;
+    private Counter backpressureCounter;
+    private DistributionSummary digestSize;
+    private Timer deliveryTimer;
+
+    public AlertDispatcher(AlertsProperties properties, WebClient.Builder webClientBuilder, MeterRegistry meterRegistry) {
+        this.slack = properties.getSlack();
+        this.webClientBuilder = webClientBuilder;
+        this.meterRegistry = meterRegistry;
+        this.inFlight = new Semaphore(Math.max(slack.getMaxInFlight(), 1));
+        this.digestMaxSize = Math.max(slack.getDigestMaxSize(), 1);
+    }
+
+    @PostConstruct
+    void init() {
+        this.slackClient = webClientBuilder.build();
+        this.sentCounter = Counter.builder("alerts_sent_total")
+            .description("Alerts delivered to Slack")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("alerts_failed_total")
+            .description("Alerts dropped after the webhook post failed all retries")
+            .register(meterRegistry);
+        this.successfulPosts = Counter.builder("alerts_webhook_posts_total")
+            .description("Webhook posts by outcome")
+            .tag("outcome", "success")
+            .register(meterRegistry);
+        this.failedPosts = Counter.builder("alerts_webhook_posts_total")
+            .description("Webhook posts by outcome")
+            .tag("outcome", "failed")
+            .register(meterRegistry);
+        this.backpressureCounter = Counter.builder("alerts_backpressure_total")
+            .description("Times the consumer waited for the in-flight window")
+            .register(meterRegistry);
+        this.digestSize = DistributionSummary.builder("alerts_digest_size")
+            .description("Alerts carried per webhook post")
+            .register(meterRegistry);
+        this.deliveryTimer = Timer.builder("alerts_delivery_latency")
+            .description("Time to invoke downstream alert delivery")
+            .register(meterRegistry);
+        Gauge.builder("alerts_queue_depth", queued, AtomicInteger::get)
+            .description("Alerts waiting for the next digest post")
+            .register(meterRegistry);
+        Gauge.builder("alerts_in_flight", inFlight, s -> Math.max(slack.getMaxInFlight(), 1) - s.availablePermits())
+            .description("Alerts accepted but not yet acknowledged")
+            .register(meterRegistry);
+
+        long intervalMs = Math.max(slack.getDigestInterval().toMillis(), 10);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("alert-digest").daemon().factory());
+        scheduler.scheduleWithFixedDelay(() -> flush(true), intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue an alert; {@code ack} is called once it has been posted (or given up on). Blocks
+     * only while {@code max-in-flight} alerts are outstanding.
+     */
+    public void submit(FraudDecision decision, Acknowledgment ack) {
+        if (!inFlight.tryAcquire()) {
+            backpressureCounter.increment();
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                // Not acknowledged, so the record is redelivered
+                throw new IllegalStateException("Interrupted waiting for alert delivery slot", ex);
+            }
+        }
+        queue.add(new Pending(decision, ack));
+        if (queued.incrementAndGet() >= digestMaxSize && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(() -> flush(false));
+        }
+    }
+
+    // Runs on the digest thread only, so batches are cut in arrival order
+    private void flush(boolean partial) {
+        flushRequested.set(false);
+        try {
+            while (partial ? queued.get() > 0 : queued.get() >= digestMaxSize) {
+                List<Pending> batch = new ArrayList<>(digestMaxSize);
+                Pending pending;
+                while (batch.size() < digestMaxSize && (pending = queue.poll()) != null) {
+                    batch.add(pending);
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                queued.addAndGet(-batch.size());
+                post(batch);
+            }
+        } catch (RuntimeException ex) {
+            log.error("Alert digest flush failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    private void post(List<Pending> batch) {
+        digestSize.record(batch.size());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            slackClient.post()
+                .uri(slack.getWebhookUrl())
+                .bodyValue(Map.of("text", digestText(batch.stream().map(Pending::decision).toList())))
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(slack.getTimeout())
+                .retryWhen(Retry.backoff(Math.max(slack.getRetries(), 0), Duration.ofMillis(200))
+                    .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .subscribe(
+                    response -> complete(batch, sample, null),
+                    error -> complete(batch, sample, error));
+        } catch (RuntimeException ex) {
+            // e.g. a malformed webhook URL; the batch must still give its slots back
+            complete(batch, sample, ex);
+        }
+    }
+
+    private void complete(List<Pending> batch, Timer.Sample sample, Throwable error) {
+        sample.stop(deliveryTimer);
+        if (error == null) {
+            successfulPosts.increment();
+            sentCounter.increment(batch.size());
+        } else {
+            failedPosts.increment();
+            failedCounter.increment(batch.size());
+            log.error("Failed to deliver {} alerts to Slack: {}", batch.size(), error.getMessage());
+        }
+        inFlight.release(batch.size());
+        for (Pending pending : batch) {
+            pending.ack().acknowledge();
+        }
+    }
+
+    private static String digestText(List<FraudDecision> decisions) {
+        if (decisions.size() == 1) {
+            FraudDecision decision = decisions.get(0);
+            return "*Fraud Alert* (%s)\nUser: `%s`\nScore: %.1f\nReasons: %s\nEvaluated: %s".formatted(
+                decision.getDecision(),
+                decision.getUserId(),
+                decision.getScore(),
+                decision.getReasons(),
+                decision.getEvaluatedAt());
+        }
+        StringBuilder text = new StringBuilder("*Fraud Alert digest* (%d alerts)".formatted(decisions.size()));
+        for (FraudDecision decision : decisions) {
+            text.append("\n• (%s) User `%s`, score %.1f, tx `%s`, reasons %s".formatted(
+                decision.getDecision(),
+                decision.getUserId(),
+                decision.getScore(),
+                decision.getTransactionId(),
+                decision.getReasons()));
+        }
+        return text.toString();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        // Post what is queued; anything unacknowledged is redelivered after restart
+        scheduler.execute(() -> flush(true));
+        scheduler.shutdown();
+        scheduler.awaitTermination(slack.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,55 @@
+package com.fraud.alerts.kafka;
+
+import com.fraud.alerts.config.AlertsProperties;
+import com.fraud.common.model.DecisionHeaders;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.listener.adapter.RecordFilterStrategy;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Drops decision records from the {@link DecisionHeaders} headers alone, while the value is
+ * still raw bytes; only records that pass are converted to {@code FraudDecision}. Records
+ * without the headers (older producers) always pass and are checked by the listener instead.
+ * Discarded records are acknowledged by the container.
+ */
+@Component
+public class DecisionHeaderFilter implements RecordFilterStrategy<Object, Object> {
+
+    private final AlertsProperties properties;
+    private final Counter filteredCounter;
+    private final Counter deliveredCounter;
+
+    public DecisionHeaderFilter(AlertsProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.filteredCounter = Counter.builder("alerts_records_total")
+            .description("Decision records by outcome of the header filter")
+            .tag("outcome", "filtered")
+            .register(meterRegistry);
+        this.deliveredCounter = Counter.builder("alerts_records_total")
+            .description("Decision records by outcome of the header filter")
+            .tag("outcome", "delivered")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public boolean filter(ConsumerRecord<Object, Object> record) {
+        boolean discard = !matches(properties.getDecisions(), record, DecisionHeaders.DECISION)
+            || !matches(properties.getScoreBands(), record, DecisionHeaders.SCORE_BAND);
+        (discard ? filteredCounter : deliveredCounter).increment();
+        return discard;
+    }
+
+    private static boolean matches(Set<String> wanted, ConsumerRecord<Object, Object> record, String header) {
+        if (wanted == null || wanted.isEmpty()) {
+            return true;
+        }
+        Header value = record.headers().lastHeader(header);
+        return value == null || wanted.contains(new String(value.value(), StandardCharsets.UTF_8));
+    }
+}
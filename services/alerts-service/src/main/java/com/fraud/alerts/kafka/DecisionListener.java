@@ -1,24 +1,20 @@
 package com.fraud.alerts.kafka;
 
 import com.fraud.alerts.config.AlertsProperties;
+import com.fraud.alerts.dedupe.DedupeField;
+import com.fraud.alerts.dedupe.DedupeStore;
+import com.fraud.alerts.delivery.AlertDispatcher;
 import com.fraud.common.model.FraudDecision;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 
-import java.time.Duration;
-import java.time.Instant;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Component
@@ -26,34 +22,21 @@ import java.util.concurrent.ConcurrentHashMap;
 public class DecisionListener {
 
     private final AlertsProperties properties;
-    private final WebClient.Builder webClientBuilder;
+    private final AlertDispatcher alertDispatcher;
+    private final DedupeStore dedupeStore;
     private final MeterRegistry meterRegistry;
 
-    @Value("${app.alerts.slack.timeout:5s}")
-    private Duration slackTimeout;
-
-    private final Map<String, Instant> recentAlerts = new ConcurrentHashMap<>();
-    private WebClient slackClient;
-    private Counter sentCounter;
     private Counter skippedCounter;
     private Counter missingWebhookCounter;
-    private Timer deliveryTimer;
 
     @PostConstruct
     void init() {
-        this.slackClient = webClientBuilder.build();
-        this.sentCounter = Counter.builder("alerts_sent_total")
-            .description("Alerts delivered to Slack")
-            .register(meterRegistry);
         this.skippedCounter = Counter.builder("alerts_skipped_total")
             .description("Alerts skipped due to filter or dedupe")
             .register(meterRegistry);
         this.missingWebhookCounter = Counter.builder("alerts_missing_webhook_total")
             .description("Alerts not sent because webhook not configured")
             .register(meterRegistry);
-        this.deliveryTimer = Timer.builder("alerts_delivery_latency")
-            .description("Time to invoke downstream alert delivery")
-            .register(meterRegistry);
     }
 
     @KafkaListener(topics = "${app.topics.decisions:fraud.decisions}", groupId = "alerts-service")
@@ -72,11 +55,8 @@ public class DecisionListener {
                 return;
             }
 
-            Timer.Sample sample = Timer.start(meterRegistry);
-            postToSlack(decision);
-            sample.stop(deliveryTimer);
-            sentCounter.increment();
-            ack.acknowledge();
+            // Acknowledged by the dispatcher once the digest carrying it has been posted
+            alertDispatcher.submit(decision, ack);
         } catch (Exception ex) {
             log.error("Failed to process alert for tx {}: {}", decision.getTransactionId(), ex.getMessage(), ex);
             throw ex;
@@ -88,36 +68,6 @@ public class DecisionListener {
         if (interestingDecisions != null && !interestingDecisions.contains(decision.getDecision())) {
             return false;
         }
-        Duration dedupeWindow = properties.getSlack().getDedupeWindow();
-        if (dedupeWindow == null || dedupeWindow.isNegative() || dedupeWindow.isZero()) {
-            return true;
-        }
-        Instant now = Instant.now();
-        recentAlerts.entrySet().removeIf(entry -> entry.getValue().isBefore(now.minus(dedupeWindow.multipliedBy(5))));
-        Instant last = recentAlerts.get(decision.getTransactionId());
-        if (last != null && last.isAfter(now.minus(dedupeWindow))) {
-            return false;
-        }
-        recentAlerts.put(decision.getTransactionId(), now);
-        return true;
-    }
-
-    private void postToSlack(FraudDecision decision) {
-        Map<String, Object> payload = Map.of(
-            "text",
-            "*Fraud Alert* (%s)\nUser: `%s`\nScore: %.1f\nReasons: %s\nEvaluated: %s".formatted(
-                decision.getDecision(),
-                decision.getUserId(),
-                decision.getScore(),
-                decision.getReasons(),
-                decision.getEvaluatedAt())
-        );
-
-        slackClient.post()
-            .uri(properties.getSlack().getWebhookUrl())
-            .bodyValue(payload)
-            .retrieve()
-            .toBodilessEntity()
-            .block(slackTimeout);
+        return dedupeStore.admit(DedupeField.key(properties.getSlack().getDedupeKey(), decision));
     }
 }
@@ -0,0 +1,70 @@
+package com.fraud.alerts.dedupe;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fraud.common.model.FraudDecision;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class DedupeStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private DedupeStore store(Duration window, int maxEntries) {
+        return new DedupeStore(window, maxEntries, now::get, meterRegistry);
+    }
+
+    @Test
+    void duplicatesWithinTheWindowAreSuppressed() {
+        DedupeStore store = store(Duration.ofMinutes(5), 100);
+
+        assertThat(store.admit("tx-1")).isTrue();
+        now.addAndGet(Duration.ofMinutes(4).toMillis());
+        assertThat(store.admit("tx-1")).isFalse();
+        // The suppressed duplicate did not extend the window
+        now.addAndGet(Duration.ofMinutes(1).toMillis());
+        assertThat(store.admit("tx-1")).isTrue();
+    }
+
+    @Test
+    void expiredKeysAreReclaimedAsTimeMoves() {
+        DedupeStore store = store(Duration.ofSeconds(64), 1_000);
+        for (int i = 0; i < 100; i++) {
+            store.admit("tx-" + i);
+            now.addAndGet(100);
+        }
+        assertThat(store.size()).isEqualTo(100);
+
+        now.addAndGet(Duration.ofSeconds(70).toMillis());
+        store.admit("tx-new");
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(meterRegistry.get("alerts_dedupe_evictions_total").tag("cause", "expired").counter().count())
+            .isEqualTo(100);
+    }
+
+    @Test
+    void capEvictsOldestKeysFirst() {
+        DedupeStore store = store(Duration.ofMinutes(5), 3);
+        for (int i = 1; i <= 4; i++) {
+            store.admit("tx-" + i);
+            now.addAndGet(Duration.ofSeconds(10).toMillis());
+        }
+
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.admit("tx-1")).isTrue();
+        assertThat(store.admit("tx-4")).isFalse();
+    }
+
+    @Test
+    void keysCombineConfiguredFields() {
+        FraudDecision decision = FraudDecision.builder().transactionId("tx-1").userId("alice").decision("BLOCK").build();
+
+        assertThat(DedupeField.key(List.of(DedupeField.TRANSACTION_ID), decision)).isEqualTo("tx-1");
+        assertThat(DedupeField.key(List.of(DedupeField.USER_ID, DedupeField.DECISION), decision)).isEqualTo("alice|BLOCK");
+    }
+}
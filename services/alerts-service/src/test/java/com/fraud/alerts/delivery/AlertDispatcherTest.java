@@ -0,0 +1,136 @@
+package com.fraud.alerts.delivery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fraud.alerts.config.AlertsProperties;
+import com.fraud.common.model.FraudDecision;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+class AlertDispatcherTest {
+
+    private HttpServer stub;
+    private final List<String> posts = new CopyOnWriteArrayList<>();
+    private volatile int status = 200;
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AlertDispatcher dispatcher;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.setExecutor(Executors.newCachedThreadPool());
+        stub.createContext("/hook", exchange -> {
+            posts.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        stub.start();
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        release.countDown();
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        stub.stop(0);
+    }
+
+    private AlertDispatcher dispatcher(int maxInFlight, Duration digestInterval) {
+        AlertsProperties properties = new AlertsProperties();
+        properties.getSlack().setWebhookUrl("http://127.0.0.1:" + stub.getAddress().getPort() + "/hook");
+        properties.getSlack().setMaxInFlight(maxInFlight);
+        properties.getSlack().setDigestInterval(digestInterval);
+        properties.getSlack().setRetries(0);
+        dispatcher = new AlertDispatcher(properties, WebClient.builder(), meterRegistry);
+        dispatcher.init();
+        return dispatcher;
+    }
+
+    private static FraudDecision decision(int i) {
+        return FraudDecision.builder()
+            .transactionId("tx-" + i)
+            .userId("user-" + i)
+            .decision("BLOCK")
+            .score(90)
+            .reasons(List.of("high_amount"))
+            .evaluatedAt(Instant.now())
+            .build();
+    }
+
+    @Test
+    void alertsWithinOneIntervalGoOutAsOneDigest() throws InterruptedException {
+        AlertDispatcher dispatcher = dispatcher(100, Duration.ofMillis(300));
+        CountDownLatch acked = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            dispatcher.submit(decision(i), acked::countDown);
+        }
+
+        assertThat(acked.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(posts).hasSize(1);
+        assertThat(posts.get(0)).contains("Fraud Alert digest* (5 alerts)").contains("tx-0").contains("tx-4");
+        assertThat(meterRegistry.get("alerts_sent_total").counter().count()).isEqualTo(5);
+    }
+
+    @Test
+    void acksWaitForDeliveryAndAFullWindowHoldsTheConsumer() throws InterruptedException {
+        release = new CountDownLatch(1);
+        AlertDispatcher dispatcher = dispatcher(2, Duration.ofMillis(50));
+        AtomicInteger acked = new AtomicInteger();
+        dispatcher.submit(decision(1), acked::incrementAndGet);
+        dispatcher.submit(decision(2), acked::incrementAndGet);
+
+        CountDownLatch thirdAccepted = new CountDownLatch(1);
+        Thread consumer = Thread.ofPlatform().start(() -> {
+            dispatcher.submit(decision(3), acked::incrementAndGet);
+            thirdAccepted.countDown();
+        });
+
+        assertThat(thirdAccepted.await(500, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(acked.get()).isZero();
+
+        release.countDown();
+        assertThat(thirdAccepted.await(5, TimeUnit.SECONDS)).isTrue();
+        consumer.join();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (acked.get() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(acked.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("alerts_backpressure_total").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void failedPostStillReleasesItsAlerts() throws InterruptedException {
+        status = 500;
+        AlertDispatcher dispatcher = dispatcher(10, Duration.ofMillis(50));
+        CountDownLatch acked = new CountDownLatch(1);
+        dispatcher.submit(decision(1), acked::countDown);
+
+        assertThat(acked.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get("alerts_failed_total").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("alerts_in_flight").gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,80 @@
+package com.fraud.alerts.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fraud.alerts.config.AlertsProperties;
+import com.fraud.common.model.DecisionHeaders;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+class DecisionHeaderFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AlertsProperties properties = new AlertsProperties();
+    private final DecisionHeaderFilter filter = new DecisionHeaderFilter(properties, meterRegistry);
+
+    private static ConsumerRecord<Object, Object> record(String decision, String band) {
+        ConsumerRecord<Object, Object> record = new ConsumerRecord<>("fraud.decisions", 0, 0L, "u-1", new byte[0]);
+        if (decision != null) {
+            record.headers().add(DecisionHeaders.DECISION, decision.getBytes(StandardCharsets.UTF_8));
+        }
+        if (band != null) {
+            record.headers().add(DecisionHeaders.SCORE_BAND, band.getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("alerts_records_total").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void wantedDecisionsAreDeliveredAndOthersFiltered() {
+        assertThat(filter.filter(record("BLOCK", "high"))).isFalse();
+        assertThat(filter.filter(record("REVIEW", "medium"))).isFalse();
+        assertThat(filter.filter(record("ALLOW", "low"))).isTrue();
+
+        assertThat(count("delivered")).isEqualTo(2);
+        assertThat(count("filtered")).isEqualTo(1);
+    }
+
+    @Test
+    void scoreBandsNarrowTheDecisions() {
+        properties.setScoreBands(Set.of("high"));
+
+        assertThat(filter.filter(record("BLOCK", "high"))).isFalse();
+        assertThat(filter.filter(record("REVIEW", "medium"))).isTrue();
+        assertThat(filter.filter(record("ALLOW", "high"))).isTrue();
+    }
+
+    @Test
+    void recordsWithoutHeadersPassToTheListener() {
+        properties.setScoreBands(Set.of("high"));
+
+        assertThat(filter.filter(record(null, null))).isFalse();
+        // A decision header alone is still checked; the missing band is left to the listener
+        assertThat(filter.filter(record("BLOCK", null))).isFalse();
+        assertThat(filter.filter(record("ALLOW", null))).isTrue();
+        assertThat(count("delivered")).isEqualTo(2);
+    }
+
+    @Test
+    void unknownHeaderValuesAreFiltered() {
+        properties.setScoreBands(Set.of("medium", "high"));
+
+        assertThat(filter.filter(record("ESCALATE", "high"))).isTrue();
+        assertThat(filter.filter(record("BLOCK", "critical"))).isTrue();
+        assertThat(count("filtered")).isEqualTo(2);
+    }
+
+    @Test
+    void emptySettingsLetEverythingThrough() {
+        properties.setDecisions(Set.of());
+
+        assertThat(filter.filter(record("ALLOW", "low"))).isFalse();
+        assertThat(filter.filter(record("ESCALATE", "unknown"))).isFalse();
+    }
+}
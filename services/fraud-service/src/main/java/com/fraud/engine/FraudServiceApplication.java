@@ -1,9 +1,14 @@
 package com.fraud.engine;
 
+import com.fraud.engine.config.RulesProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@EnableConfigurationProperties(RulesProperties.class)
 public class FraudServiceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,74 @@
+package com.fraud.engine.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Primary/replica split, active when {@code app.datasource.replica.url} is set; otherwise the
+ * auto-configured single pool is used.
+ *
+ * {@code @Transactional(readOnly = true)} work (the query controllers, exports and Spring Data
+ * read methods called outside a write transaction) is served by the replica pool, everything
+ * else by the primary pool. The lazy proxy only picks a pool once the transaction's read-only
+ * flag is known, i.e. at the first statement. Both pools are named so their Hikari metrics are
+ * tagged {@code pool=primary} / {@code pool=replica}.
+ */
+@Configuration
+@ConditionalOnExpression("!'${app.datasource.replica.url:}'.isBlank()")
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:}") String username,
+            @Value("${app.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .url(url)
+            .username(username.isBlank() ? properties.determineUsername() : username)
+            .password(password.isBlank() ? properties.determinePassword() : password)
+            .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagGuard replicaLagGuard(
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Value("${app.datasource.replica.max-lag-ms:5000}") long maxLagMs,
+            MeterRegistry meterRegistry) {
+        return new ReplicaLagGuard(replica, primary, maxLagMs, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            ReplicaLagGuard replicaLagGuard) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(replicaLagGuard);
+        return proxy;
+    }
+}
@@ -1,6 +1,7 @@
 package com.fraud.engine.config;
 
 import com.fraud.common.model.FraudDecision;
+import com.fraud.common.model.Transaction;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -20,18 +21,33 @@ public class KafkaConfig {
   @Value("${spring.kafka.bootstrap-servers}")
   private String bootstrap;
 
-  @Bean
-  public ProducerFactory<String, FraudDecision> decisionProducerFactory() {
+  private Map<String, Object> jsonProducerProps() {
     Map<String, Object> props = new HashMap<>();
     props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
     props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
     props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
     props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
-    return new DefaultKafkaProducerFactory<>(props);
+    return props;
+  }
+
+  @Bean
+  public ProducerFactory<String, FraudDecision> decisionProducerFactory() {
+    return new DefaultKafkaProducerFactory<>(jsonProducerProps());
   }
 
   @Bean(name = "decisionKafkaTemplate")
   public KafkaTemplate<String, FraudDecision> decisionKafkaTemplate() {
     return new KafkaTemplate<>(decisionProducerFactory());
   }
+
+  // Re-routes transactions (e.g. heavy hitters to the hot topic) in the consumer's format
+  @Bean
+  public ProducerFactory<String, Transaction> transactionProducerFactory() {
+    return new DefaultKafkaProducerFactory<>(jsonProducerProps());
+  }
+
+  @Bean(name = "transactionKafkaTemplate")
+  public KafkaTemplate<String, Transaction> transactionKafkaTemplate() {
+    return new KafkaTemplate<>(transactionProducerFactory());
+  }
 }
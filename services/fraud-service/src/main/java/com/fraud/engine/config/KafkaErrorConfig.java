@@ -1,31 +1,113 @@
 package com.fraud.engine.config;
 
 import org.apache.kafka.common.TopicPartition;
-import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.KafkaListenerEndpoint;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.listener.*;
-import org.springframework.kafka.support.converter.StringJsonMessageConverter;
-import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.kafka.retrytopic.DeadLetterPublishingRecovererFactory;
+import org.springframework.kafka.retrytopic.DestinationTopic;
+import org.springframework.kafka.retrytopic.RetryTopicComponentFactory;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationSupport;
+import org.springframework.kafka.retrytopic.RetryTopicNamesProviderFactory;
+import org.springframework.kafka.retrytopic.SuffixingRetryTopicNamesProviderFactory.SuffixingRetryTopicNamesProvider;
 
+import java.util.function.Consumer;
+
+/**
+ * Failed transactions leave the main partition at once: they are republished to tiered retry
+ * topics (see {@link RetryTiers}), each consumed by its own listener that pauses the partition
+ * until a record is due, and finally to the configured DLQ. A Redis or Postgres blip therefore
+ * never holds up other users on the same partition.
+ *
+ * The price is per-user order: while a failed event waits in a tier, the user's later events
+ * are decided on the main topic, so the retried event is decided after them and the per-user
+ * rules (burst, geo, spend history) see it late. A retry is still decided at most once (the
+ * {@code decided_transactions} claim), but its score can differ from an in-order decision.
+ */
 @Configuration
-public class KafkaErrorConfig {
+public class KafkaErrorConfig extends RetryTopicConfigurationSupport {
+
+    private final RetryTiers retryTiers;
 
-    @Value("${app.topics.dlq:payments.dlq}")
-    private String dlqTopic;
+    public KafkaErrorConfig(RetryTiers retryTiers) {
+        this.retryTiers = retryTiers;
+    }
 
+    @Bean
+    public RetryTopicConfiguration paymentsRetryTopics(
+            @Qualifier("decisionKafkaTemplate") KafkaTemplate<?, ?> template) {
+        // The template's JsonSerializer republishes the deserialized Transaction as-is
+        return RetryTopicConfigurationBuilder.newInstance()
+                .includeTopic(retryTiers.getMainTopic())
+                .exponentialBackoff(retryTiers.getInitialDelayMs(), retryTiers.getMultiplier(), retryTiers.getMaxDelayMs())
+                .maxAttempts(retryTiers.maxAttempts())
+                .autoCreateTopicsWith(retryTiers.getPartitions(), (short) -1)
+                // Records are parked in the DLQ for inspection; nothing here consumes it
+                .autoStartDltHandler(false)
+                .create(template);
+    }
+
+    /** Listeners outside the retry topics (e.g. the decision stream) still dead-letter on failure. */
     @Bean
     public DefaultErrorHandler errorHandler(
             @Qualifier("decisionKafkaTemplate") KafkaTemplate<?, ?> template) {
 
         DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(
                 template,
-                (record, ex) -> new TopicPartition("payments.dlq", record.partition()));
+                (record, ex) -> new TopicPartition(retryTiers.getDlqTopic(), -1));
 
         return new DefaultErrorHandler(recoverer);
 
     }
+
+    @Override
+    protected RetryTopicComponentFactory createComponentFactory() {
+        return new RetryTopicComponentFactory() {
+            @Override
+            public RetryTopicNamesProviderFactory retryTopicNamesProviderFactory() {
+                return properties -> new TierNamesProvider(retryTiers, properties);
+            }
+        };
+    }
+
+    @Override
+    protected Consumer<DeadLetterPublishingRecovererFactory> configureDeadLetterPublishingContainerFactory() {
+        // Tiers have the main topic's partition count, so keep the partition: a user's retries
+        // stay on one tier partition and are retried in the order they failed. That does not
+        // order them against the main topic, which has moved on. The DLQ may have fewer
+        // partitions, so let the producer pick there
+        return factory -> factory.setPartitionResolver((record, topic) ->
+                topic.equals(retryTiers.getDlqTopic()) ? null : record.partition());
+    }
+
+    /** Dotted tier names ({@code payments.events.retry-10s}) and the configured DLQ. */
+    static class TierNamesProvider extends SuffixingRetryTopicNamesProvider {
+
+        private final RetryTiers retryTiers;
+        private final DestinationTopic.Properties properties;
+
+        TierNamesProvider(RetryTiers retryTiers, DestinationTopic.Properties properties) {
+            super(properties);
+            this.retryTiers = retryTiers;
+            this.properties = properties;
+        }
+
+        @Override
+        public String getTopicName(String topic) {
+            if (properties.isDltTopic()) {
+                return retryTiers.getDlqTopic();
+            }
+            return properties.isRetryTopic() ? retryTiers.topic(properties.delay()) : topic;
+        }
+
+        @Override
+        public String getGroupId(KafkaListenerEndpoint endpoint) {
+            return properties.isRetryTopic() ? retryTiers.group(properties.delay()) : super.getGroupId(endpoint);
+        }
+    }
 }
@@ -0,0 +1,112 @@
+package com.fraud.engine.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Read-only connection source: the replica while it is reachable and within
+ * {@code app.datasource.replica.max-lag-ms} of the primary, the primary otherwise.
+ *
+ * Lag is sampled on a schedule rather than per connection. A replica that has replayed all
+ * WAL it received counts as current, so an idle primary does not look like lag.
+ */
+@Slf4j
+public class ReplicaLagGuard extends AbstractDataSource {
+
+    private static final String LAG_SQL = """
+        SELECT CASE
+                 WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                 ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+               END""";
+
+    private final DataSource replica;
+    private final DataSource primary;
+    private final JdbcTemplate replicaJdbc;
+    private final long maxLagMs;
+
+    private volatile boolean replicaUsable = true;
+    private volatile double lagMs;
+
+    private final Counter replicaCounter;
+    private final Counter fallbackCounter;
+
+    public ReplicaLagGuard(DataSource replica, DataSource primary, long maxLagMs, MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.primary = primary;
+        this.replicaJdbc = new JdbcTemplate(replica);
+        this.maxLagMs = maxLagMs;
+
+        Gauge.builder("fraud_replica_lag_ms", this, guard -> guard.lagMs)
+            .description("Last sampled replication lag of the read replica")
+            .register(meterRegistry);
+        Gauge.builder("fraud_replica_usable", this, guard -> guard.replicaUsable ? 1 : 0)
+            .description("1 while read-only transactions are served by the replica")
+            .register(meterRegistry);
+        this.replicaCounter = Counter.builder("fraud_datasource_reads_total")
+            .description("Read-only connections by the pool that served them")
+            .tag("target", "replica")
+            .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("fraud_datasource_reads_total")
+            .description("Read-only connections by the pool that served them")
+            .tag("target", "primary")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicaUsable) {
+            try {
+                Connection connection = replica.getConnection();
+                replicaCounter.increment();
+                return connection;
+            } catch (SQLException ex) {
+                // Don't fail the read; the next lag check decides when to go back
+                markUnusable("connection failed: " + ex.getMessage());
+            }
+        }
+        fallbackCounter.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    @Scheduled(
+        initialDelayString = "${app.datasource.replica.lag-check-ms:5000}",
+        fixedDelayString = "${app.datasource.replica.lag-check-ms:5000}")
+    public void checkLag() {
+        double lag;
+        try {
+            Double sampled = replicaJdbc.queryForObject(LAG_SQL, Double.class);
+            lag = sampled != null ? sampled : 0.0;
+        } catch (DataAccessException ex) {
+            markUnusable("lag check failed: " + ex.getMessage());
+            return;
+        }
+        lagMs = lag;
+        if (lag > maxLagMs) {
+            markUnusable("lag %.0f ms exceeds %d ms".formatted(lag, maxLagMs));
+        } else if (!replicaUsable) {
+            replicaUsable = true;
+            log.info("Read replica back within lag threshold ({} ms); routing reads to it", Math.round(lag));
+        }
+    }
+
+    private void markUnusable(String reason) {
+        if (replicaUsable) {
+            log.warn("Reading from primary, replica unusable: {}", reason);
+        }
+        replicaUsable = false;
+    }
+}
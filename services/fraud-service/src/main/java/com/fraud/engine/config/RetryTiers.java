@@ -0,0 +1,75 @@
+package com.fraud.engine.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Names and delays of the non-blocking retry topics behind {@code app.topics.in}.
+ *
+ * A record that fails on the main topic is republished to the first tier, then to each slower
+ * tier in turn, and finally to {@code app.topics.dlq}. Tier {@code i} waits
+ * {@code min(initial * multiplier^i, max)}; the defaults give
+ * {@code payments.events.retry-1s}, {@code .retry-10s} and {@code .retry-60s}. A retried
+ * record is decided after the user's later events on the main topic (see
+ * {@link KafkaErrorConfig}).
+ */
+@Getter
+@Component
+public class RetryTiers {
+
+    /** Consumer group of the main listener in {@code FraudProcessor}. */
+    public static final String MAIN_GROUP = "fraud-service";
+
+    private final String mainTopic;
+    private final String dlqTopic;
+    private final long initialDelayMs;
+    private final double multiplier;
+    private final long maxDelayMs;
+    private final List<Long> delaysMs;
+    private final int partitions;
+
+    public RetryTiers(
+            @Value("${app.topics.in}") String mainTopic,
+            @Value("${app.topics.dlq:payments.dlq}") String dlqTopic,
+            @Value("${app.retry.initial-delay-ms:1000}") long initialDelayMs,
+            @Value("${app.retry.multiplier:10}") double multiplier,
+            @Value("${app.retry.max-delay-ms:60000}") long maxDelayMs,
+            @Value("${app.retry.tiers:3}") int tiers,
+            @Value("${app.retry.partitions:3}") int partitions) {
+        this.mainTopic = mainTopic;
+        this.dlqTopic = dlqTopic;
+        this.initialDelayMs = initialDelayMs;
+        this.multiplier = multiplier;
+        this.maxDelayMs = maxDelayMs;
+        this.partitions = partitions;
+        List<Long> delays = new ArrayList<>();
+        double delay = initialDelayMs;
+        for (int i = 0; i < tiers; i++) {
+            delays.add(Math.min((long) delay, maxDelayMs));
+            delay *= multiplier;
+        }
+        this.delaysMs = Collections.unmodifiableList(delays);
+    }
+
+    /** Delivery attempts including the first one on the main topic. */
+    public int maxAttempts() {
+        return delaysMs.size() + 1;
+    }
+
+    public String topic(long delayMs) {
+        return mainTopic + ".retry-" + label(delayMs);
+    }
+
+    public String group(long delayMs) {
+        return MAIN_GROUP + ".retry-" + label(delayMs);
+    }
+
+    /** "1s", "10s", "60s"; sub-second delays stay in milliseconds. */
+    public static String label(long delayMs) {
+        return delayMs % 1000 == 0 ? delayMs / 1000 + "s" : delayMs + "ms";
+    }
+}
@@ -0,0 +1,186 @@
+package com.fraud.engine.config;
+
+import com.fraud.engine.service.MerchantRules;
+import com.fraud.engine.service.SignalRules;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * The production rule knobs ({@code app.rules.*}), bound once and shared by the live path,
+ * shadow evaluation and replay. Candidate thresholds are these with overrides applied, see
+ * {@link #thresholds(Map)}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.rules")
+public class RulesProperties {
+
+    /** Keys {@link #thresholds(Map)} accepts: the {@code app.rules.*} names without the prefix. */
+    public static final List<String> THRESHOLD_KEYS = List.of(
+        "burst.windowSec", "burst.count", "burst.score",
+        "geo.maxSpeedKmph", "geo.score",
+        "device.score", "ip.score",
+        "spend.multiplier", "spend.score", "spend.historySize",
+        "sharedDevice.maxUsers", "sharedDevice.score",
+        "sharedIp.maxUsers", "sharedIp.score",
+        "decision.review", "decision.block");
+
+    private Burst burst = new Burst();
+    private Geo geo = new Geo();
+    private Freshness device = new Freshness(7, 20);
+    private Freshness ip = new Freshness(7, 15);
+    private Spend spend = new Spend();
+    private Links links = new Links();
+    private Shared sharedDevice = new Shared(5, 25);
+    private Shared sharedIp = new Shared(20, 15);
+    private Merchant merchant = new Merchant();
+    // Score bands; RuleEngine.toDecision uses the same
+    private Decision decision = new Decision();
+
+    @Data
+    public static class Burst {
+        private int windowSec = 60;
+        private int count = 3;
+        private int score = 40;
+    }
+
+    @Data
+    public static class Geo {
+        private double maxSpeedKmph = 900;
+        private int score = 50;
+    }
+
+    @Data
+    public static class Freshness {
+        private int newWithinDays;
+        private int score;
+
+        public Freshness() {
+        }
+
+        Freshness(int newWithinDays, int score) {
+            this.newWithinDays = newWithinDays;
+            this.score = score;
+        }
+    }
+
+    @Data
+    public static class Spend {
+        private double multiplier = 5.0;
+        private int score = 30;
+        private int historySize = 10;
+    }
+
+    @Data
+    public static class Links {
+        // Users per device/IP counted exactly before switching to the HyperLogLog
+        private int sampleSize = 16;
+    }
+
+    @Data
+    public static class Shared {
+        private long maxUsers;
+        private int score;
+
+        public Shared() {
+        }
+
+        Shared(long maxUsers, int score) {
+            this.maxUsers = maxUsers;
+            this.score = score;
+        }
+    }
+
+    @Data
+    public static class Merchant {
+        private long minTransactions = 20;
+        private double smallAmount = 5.0;
+        private Velocity velocity = new Velocity();
+        private CardTesting cardTesting = new CardTesting();
+        private FlagRate flagRate = new FlagRate();
+
+        @Data
+        public static class Velocity {
+            private long max = 600;
+            private int score = 20;
+        }
+
+        @Data
+        public static class CardTesting {
+            private long users = 30;
+            private double smallShare = 0.5;
+            private int score = 40;
+        }
+
+        @Data
+        public static class FlagRate {
+            private double max = 0.3;
+            private int score = 25;
+        }
+    }
+
+    @Data
+    public static class Decision {
+        private double review = 30;
+        private double block = 60;
+    }
+
+    /** The production per-user thresholds. */
+    public SignalRules.Thresholds thresholds() {
+        return thresholds(Map.of());
+    }
+
+    /**
+     * The production per-user thresholds with {@code overrides} applied; keys are
+     * {@link #THRESHOLD_KEYS} (e.g. {@code burst.count}).
+     *
+     * @throws IllegalArgumentException for unknown keys or unparsable values
+     */
+    public SignalRules.Thresholds thresholds(Map<String, String> overrides) {
+        Map<String, String> remaining = new HashMap<>(overrides != null ? overrides : Map.of());
+        SignalRules.Thresholds thresholds = new SignalRules.Thresholds(
+            (int) take(remaining, "burst.windowSec", burst.getWindowSec()),
+            (int) take(remaining, "burst.count", burst.getCount()),
+            (int) take(remaining, "burst.score", burst.getScore()),
+            take(remaining, "geo.maxSpeedKmph", geo.getMaxSpeedKmph()),
+            (int) take(remaining, "geo.score", geo.getScore()),
+            (int) take(remaining, "device.score", device.getScore()),
+            (int) take(remaining, "ip.score", ip.getScore()),
+            take(remaining, "spend.multiplier", spend.getMultiplier()),
+            (int) take(remaining, "spend.score", spend.getScore()),
+            (int) take(remaining, "spend.historySize", spend.getHistorySize()),
+            (long) take(remaining, "sharedDevice.maxUsers", sharedDevice.getMaxUsers()),
+            (int) take(remaining, "sharedDevice.score", sharedDevice.getScore()),
+            (long) take(remaining, "sharedIp.maxUsers", sharedIp.getMaxUsers()),
+            (int) take(remaining, "sharedIp.score", sharedIp.getScore()),
+            take(remaining, "decision.review", decision.getReview()),
+            take(remaining, "decision.block", decision.getBlock()));
+        if (!remaining.isEmpty()) {
+            throw new IllegalArgumentException("Unknown rule settings: " + remaining.keySet());
+        }
+        return thresholds;
+    }
+
+    public MerchantRules.Thresholds merchantThresholds() {
+        return new MerchantRules.Thresholds(
+            merchant.getMinTransactions(),
+            merchant.getVelocity().getMax(), merchant.getVelocity().getScore(),
+            merchant.getCardTesting().getUsers(), merchant.getCardTesting().getSmallShare(),
+            merchant.getCardTesting().getScore(),
+            merchant.getFlagRate().getMax(), merchant.getFlagRate().getScore());
+    }
+
+    private static double take(Map<String, String> remaining, String key, double fallback) {
+        String value = remaining.remove(key);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Rule setting " + key + " is not a number: " + value);
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.fraud.engine.db;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.springframework.data.domain.Persistable;
 import java.time.Instant;
 
 @Entity @Table(name="fraud_decisions")
+@EntityListeners(ReasonCodesListener.class)
 @Data @NoArgsConstructor @AllArgsConstructor @Builder
-public class DecisionEntity {
+public class DecisionEntity implements Persistable<String> {
   @Id
   private String transactionId;
 
@@ -14,10 +17,45 @@ public class DecisionEntity {
   private String decision;
   private double score;
 
-  @Convert(converter = com.fraud.engine.db.converter.StringListJsonConverter.class)
-  @Column(name = "reasons_json", columnDefinition = "TEXT")
+  // Reason names for callers and the API; persisted as registry codes in reason_codes
+  @Transient
   private java.util.List<String> reasons;
 
+  @JsonIgnore
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @Column(name = "reason_codes")
+  private short[] reasonCodes;
+
   private long latencyMs;
   private Instant evaluatedAt;
+
+  // Built instances are new, so save() persists them as-is instead of merging a copy: no SELECT
+  // before the INSERT, and the listener encodes reasons on the instance that holds them
+  @Transient
+  @JsonIgnore
+  @Builder.Default
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private boolean isNew = true;
+
+  @Override
+  @JsonIgnore
+  public String getId() {
+    return transactionId;
+  }
+
+  @Override
+  @JsonIgnore
+  public boolean isNew() {
+    return isNew;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markNotNew() {
+    isNew = false;
+  }
 }
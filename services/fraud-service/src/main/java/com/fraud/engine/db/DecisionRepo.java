@@ -1,8 +1,10 @@
 package com.fraud.engine.db;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -11,6 +13,17 @@ import java.util.List;
 
 public interface DecisionRepo extends JpaRepository<DecisionEntity, String> {
 
+    // Claim a transaction before deciding it: 1 when claimed, 0 when it was already decided (or
+    // is being decided in a transaction that has not committed yet, which this waits for). The
+    // unique key makes this atomic, unlike an exists check before the INSERT.
+    @Modifying
+    @Query(value = """
+        INSERT INTO decided_transactions (transaction_id, decided_at)
+        VALUES (:transactionId, :decidedAt)
+        ON CONFLICT (transaction_id) DO NOTHING
+        """, nativeQuery = true)
+    int claim(@Param("transactionId") String transactionId, @Param("decidedAt") Instant decidedAt);
+
     // Find decisions by userId
     Page<DecisionEntity> findByUserId(String userId, Pageable pageable);
 
@@ -37,6 +50,33 @@ public interface DecisionRepo extends JpaRepository<DecisionEntity, String> {
     @Query("SELECT d FROM DecisionEntity d WHERE d.decision IN ('REVIEW', 'BLOCK') ORDER BY d.evaluatedAt DESC")
     Page<DecisionEntity> findHighRiskDecisions(Pageable pageable);
 
+    // Find decisions carrying all of the given reason codes (a Postgres array literal such as
+    // '{6,10}'), optionally narrowed by user, decision and date range; served by the GIN index
+    @Query(value = """
+        SELECT * FROM fraud_decisions d
+        WHERE d.reason_codes @> CAST(:codes AS SMALLINT[])
+          AND (CAST(:userId AS VARCHAR) IS NULL OR d.user_id = :userId)
+          AND (CAST(:decision AS VARCHAR) IS NULL OR d.decision = :decision)
+          AND (CAST(:startDate AS TIMESTAMP) IS NULL OR d.evaluated_at >= :startDate)
+          AND (CAST(:endDate AS TIMESTAMP) IS NULL OR d.evaluated_at <= :endDate)
+        ORDER BY d.evaluated_at DESC, d.transaction_id DESC""",
+        countQuery = """
+        SELECT COUNT(*) FROM fraud_decisions d
+        WHERE d.reason_codes @> CAST(:codes AS SMALLINT[])
+          AND (CAST(:userId AS VARCHAR) IS NULL OR d.user_id = :userId)
+          AND (CAST(:decision AS VARCHAR) IS NULL OR d.decision = :decision)
+          AND (CAST(:startDate AS TIMESTAMP) IS NULL OR d.evaluated_at >= :startDate)
+          AND (CAST(:endDate AS TIMESTAMP) IS NULL OR d.evaluated_at <= :endDate)""",
+        nativeQuery = true)
+    Page<DecisionEntity> findByReasonCodes(
+        @Param("codes") String codes,
+        @Param("userId") String userId,
+        @Param("decision") String decision,
+        @Param("startDate") Instant startDate,
+        @Param("endDate") Instant endDate,
+        Pageable pageable
+    );
+
     // Count decisions by userId
     long countByUserId(String userId);
 
@@ -47,6 +87,12 @@ public interface DecisionRepo extends JpaRepository<DecisionEntity, String> {
     @Query("SELECT COALESCE(AVG(d.latencyMs),0) FROM DecisionEntity d WHERE d.decision = :decision")
     Double averageLatencyForDecision(@Param("decision") String decision);
 
+    @Query("SELECT COALESCE(SUM(d.latencyMs),0) FROM DecisionEntity d WHERE d.decision = :decision")
+    Long sumLatencyForDecision(@Param("decision") String decision);
+
+    @Query("SELECT MAX(d.evaluatedAt) FROM DecisionEntity d")
+    Instant latestEvaluatedAt();
+
     // Count decisions by userId and decision type
     long countByUserIdAndDecision(String userId, String decision);
 
@@ -56,4 +102,45 @@ public interface DecisionRepo extends JpaRepository<DecisionEntity, String> {
 
     // Get top N recent decisions for a user
     List<DecisionEntity> findTop10ByUserIdOrderByEvaluatedAtDesc(String userId);
-}
\ No newline at end of file
+
+    // ─── Keyset pagination: seek past (evaluatedAt, transactionId), newest first ───
+
+    @Query("SELECT d FROM DecisionEntity d WHERE (d.evaluatedAt, d.transactionId) < (:evaluatedAt, :transactionId) ORDER BY d.evaluatedAt DESC, d.transactionId DESC")
+    List<DecisionEntity> seekAll(
+        @Param("evaluatedAt") Instant evaluatedAt,
+        @Param("transactionId") String transactionId,
+        Limit limit
+    );
+
+    @Query("SELECT d FROM DecisionEntity d WHERE d.userId = :userId AND (d.evaluatedAt, d.transactionId) < (:evaluatedAt, :transactionId) ORDER BY d.evaluatedAt DESC, d.transactionId DESC")
+    List<DecisionEntity> seekByUserId(
+        @Param("userId") String userId,
+        @Param("evaluatedAt") Instant evaluatedAt,
+        @Param("transactionId") String transactionId,
+        Limit limit
+    );
+
+    @Query("SELECT d FROM DecisionEntity d WHERE d.decision = :decision AND (d.evaluatedAt, d.transactionId) < (:evaluatedAt, :transactionId) ORDER BY d.evaluatedAt DESC, d.transactionId DESC")
+    List<DecisionEntity> seekByDecision(
+        @Param("decision") String decision,
+        @Param("evaluatedAt") Instant evaluatedAt,
+        @Param("transactionId") String transactionId,
+        Limit limit
+    );
+
+    @Query("SELECT d FROM DecisionEntity d WHERE d.evaluatedAt BETWEEN :startDate AND :endDate AND (d.evaluatedAt, d.transactionId) < (:evaluatedAt, :transactionId) ORDER BY d.evaluatedAt DESC, d.transactionId DESC")
+    List<DecisionEntity> seekByDateRange(
+        @Param("startDate") Instant startDate,
+        @Param("endDate") Instant endDate,
+        @Param("evaluatedAt") Instant evaluatedAt,
+        @Param("transactionId") String transactionId,
+        Limit limit
+    );
+
+    @Query("SELECT d FROM DecisionEntity d WHERE d.decision IN ('REVIEW', 'BLOCK') AND (d.evaluatedAt, d.transactionId) < (:evaluatedAt, :transactionId) ORDER BY d.evaluatedAt DESC, d.transactionId DESC")
+    List<DecisionEntity> seekHighRisk(
+        @Param("evaluatedAt") Instant evaluatedAt,
+        @Param("transactionId") String transactionId,
+        Limit limit
+    );
+}
@@ -0,0 +1,27 @@
+package com.fraud.engine.db;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.MappedSuperclass;
+import lombok.Data;
+
+/**
+ * Columns shared by the per-minute and per-hour rollup tables.
+ */
+@MappedSuperclass
+@Data
+public abstract class DecisionRollup {
+
+    @EmbeddedId
+    private RollupKey id;
+
+    @Column(name = "decision_count")
+    private long count;
+
+    private double scoreSum;
+
+    @Column(name = "latency_sum_ms")
+    private long latencySumMs;
+
+    private double amountSum;
+}
@@ -0,0 +1,9 @@
+package com.fraud.engine.db;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "decision_rollup_hour")
+public class DecisionRollupHourEntity extends DecisionRollup {
+}
@@ -0,0 +1,34 @@
+package com.fraud.engine.db;
+
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface DecisionRollupHourRepo extends JpaRepository<DecisionRollupHourEntity, RollupKey> {
+
+    // Add a flushed delta to the bucket, creating it on first use
+    @Modifying
+    @Query(value = """
+        INSERT INTO decision_rollup_hour (bucket_start, decision, decision_count, score_sum, latency_sum_ms, amount_sum)
+        VALUES (:bucketStart, :decision, :count, :scoreSum, :latencySumMs, :amountSum)
+        ON CONFLICT (bucket_start, decision) DO UPDATE SET
+            decision_count = decision_rollup_hour.decision_count + EXCLUDED.decision_count,
+            score_sum = decision_rollup_hour.score_sum + EXCLUDED.score_sum,
+            latency_sum_ms = decision_rollup_hour.latency_sum_ms + EXCLUDED.latency_sum_ms,
+            amount_sum = decision_rollup_hour.amount_sum + EXCLUDED.amount_sum
+        """, nativeQuery = true)
+    void upsert(
+        @Param("bucketStart") Instant bucketStart,
+        @Param("decision") String decision,
+        @Param("count") long count,
+        @Param("scoreSum") double scoreSum,
+        @Param("latencySumMs") long latencySumMs,
+        @Param("amountSum") double amountSum
+    );
+
+    @Query("SELECT r FROM DecisionRollupHourEntity r WHERE r.id.bucketStart >= :from AND r.id.bucketStart < :to ORDER BY r.id.bucketStart")
+    List<DecisionRollupHourEntity> findBuckets(@Param("from") Instant from, @Param("to") Instant to);
+}
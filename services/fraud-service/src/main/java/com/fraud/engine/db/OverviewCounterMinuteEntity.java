@@ -0,0 +1,34 @@
+package com.fraud.engine.db;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Overview deltas flushed for one minute of {@code evaluated_at} that the last reconciliation
+ * has not folded into {@link OverviewCountersEntity} yet.
+ */
+@Entity
+@Table(name = "overview_counter_minutes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OverviewCounterMinuteEntity {
+
+    @Id
+    private Instant bucketStart;
+
+    private long allowCount;
+    private long reviewCount;
+    private long blockCount;
+    private long reviewLatencySumMs;
+
+    private long totalTransactions;
+    private double totalVolume;
+}
@@ -0,0 +1,41 @@
+package com.fraud.engine.db;
+
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface OverviewCounterMinuteRepo extends JpaRepository<OverviewCounterMinuteEntity, Instant> {
+
+    // Add a flushed delta to the minute, creating it on first use
+    @Modifying
+    @Query(value = """
+        INSERT INTO overview_counter_minutes (bucket_start, allow_count, review_count, block_count,
+                                              review_latency_sum_ms, total_transactions, total_volume)
+        VALUES (:bucketStart, :allow, :review, :block, :reviewLatencySumMs, :transactions, :volume)
+        ON CONFLICT (bucket_start) DO UPDATE SET
+            allow_count = overview_counter_minutes.allow_count + EXCLUDED.allow_count,
+            review_count = overview_counter_minutes.review_count + EXCLUDED.review_count,
+            block_count = overview_counter_minutes.block_count + EXCLUDED.block_count,
+            review_latency_sum_ms = overview_counter_minutes.review_latency_sum_ms + EXCLUDED.review_latency_sum_ms,
+            total_transactions = overview_counter_minutes.total_transactions + EXCLUDED.total_transactions,
+            total_volume = overview_counter_minutes.total_volume + EXCLUDED.total_volume
+        """, nativeQuery = true)
+    void upsert(
+        @Param("bucketStart") Instant bucketStart,
+        @Param("allow") long allow,
+        @Param("review") long review,
+        @Param("block") long block,
+        @Param("reviewLatencySumMs") long reviewLatencySumMs,
+        @Param("transactions") long transactions,
+        @Param("volume") double volume
+    );
+
+    List<OverviewCounterMinuteEntity> findByBucketStartBefore(Instant cutoff);
+
+    @Modifying
+    @Query("DELETE FROM OverviewCounterMinuteEntity m WHERE m.bucketStart < :cutoff")
+    int deleteBefore(@Param("cutoff") Instant cutoff);
+}
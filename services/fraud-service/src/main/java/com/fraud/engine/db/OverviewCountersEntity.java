@@ -0,0 +1,43 @@
+package com.fraud.engine.db;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single-row running totals behind /api/overview.
+ * Maintained incrementally by {@link com.fraud.engine.stats.OverviewCounters}.
+ */
+@Entity
+@Table(name = "overview_counters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OverviewCountersEntity {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private int id;
+
+    private long totalDecisions;
+    private long allowCount;
+    private long reviewCount;
+    private long blockCount;
+    private long reviewLatencySumMs;
+
+    private long totalTransactions;
+    private double totalVolume;
+
+    private Instant latestDecisionAt;
+    private Instant latestTransactionAt;
+    private Instant reconciledAt;
+    // Decisions evaluated before this are counted here; newer flushes go to overview_counter_minutes
+    private Instant reconciledThrough;
+}
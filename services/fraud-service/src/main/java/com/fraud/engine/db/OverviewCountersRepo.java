@@ -0,0 +1,13 @@
+package com.fraud.engine.db;
+
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+
+public interface OverviewCountersRepo extends JpaRepository<OverviewCountersEntity, Integer> {
+
+    // Row lock so concurrent flushes from several instances serialise instead of losing updates
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<OverviewCountersEntity> findWithLockById(int id);
+}
@@ -0,0 +1,140 @@
+package com.fraud.engine.db;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maintains the monthly range partitions of {@code fraud_decisions}, {@code transactions} and
+ * {@code transaction_payloads} (see V6 and V7 migrations).
+ *
+ * Partitions are pre-created a few months ahead so inserts never land in the default partition.
+ * Dropping is opt-in: with {@code app.partitions.retention-months} above 0, months older than the
+ * retention window are dropped whole, which is a metadata operation rather than a large DELETE
+ * plus vacuum, and {@code decided_transactions} is pruned to the same window. Partitions are
+ * named {@code <table>_pYYYYMM}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.partitions.enabled", havingValue = "true", matchIfMissing = true)
+public class PartitionManager {
+
+    private static final List<String> PARTITIONED_TABLES = List.of(
+        "fraud_decisions", "transactions", "transaction_payloads");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String PARTITIONS_SQL = """
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        JOIN pg_class p ON p.oid = i.inhparent
+        WHERE p.relname = ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int premakeMonths;
+    private final int retentionMonths;
+
+    public PartitionManager(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.partitions.premake-months:3}") int premakeMonths,
+            @Value("${app.partitions.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.premakeMonths = Math.max(premakeMonths, 1);
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (retentionMonths > 0) {
+            log.warn("Partitions older than {} months are dropped (app.partitions.retention-months)", retentionMonths);
+        }
+        maintain();
+    }
+
+    @Scheduled(cron = "${app.partitions.cron:0 15 3 * * *}", zone = "UTC")
+    public void maintain() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (String table : PARTITIONED_TABLES) {
+            try {
+                createAhead(table, current);
+                if (retentionMonths > 0) {
+                    dropExpired(table, current.minusMonths(retentionMonths));
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Partition maintenance for {} failed: {}", table, ex.getMessage());
+            }
+        }
+        if (retentionMonths > 0) {
+            pruneDecided(current.minusMonths(retentionMonths));
+        }
+    }
+
+    // Claims older than the oldest kept decision month guard nothing any more
+    private void pruneDecided(YearMonth oldestKept) {
+        try {
+            int pruned = jdbcTemplate.update("DELETE FROM decided_transactions WHERE decided_at < ?",
+                LocalDateTime.of(oldestKept.atDay(1), LocalTime.MIDNIGHT));
+            if (pruned > 0) {
+                log.info("Pruned {} decided transactions before {}", pruned, oldestKept);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Pruning decided_transactions failed: {}", ex.getMessage());
+        }
+    }
+
+    private void createAhead(String table, YearMonth current) {
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            String partition = partitionName(table, month);
+            LocalDate from = month.atDay(1);
+            LocalDate to = month.plusMonths(1).atDay(1);
+            try {
+                jdbcTemplate.execute(String.format(
+                    "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                    partition, table, from, to));
+            } catch (RuntimeException ex) {
+                // Typically rows for this month already sit in the default partition
+                // (client-supplied timestamps far in the future); leave them there
+                log.warn("Could not create partition {}: {}", partition, ex.getMessage());
+            }
+        }
+    }
+
+    private void dropExpired(String table, YearMonth oldestKept) {
+        List<String> partitions = jdbcTemplate.queryForList(PARTITIONS_SQL, String.class, table);
+        String prefix = table + "_p";
+        for (String partition : partitions) {
+            if (!partition.startsWith(prefix)) {
+                continue;
+            }
+            YearMonth month;
+            try {
+                month = YearMonth.parse(partition.substring(prefix.length()), SUFFIX);
+            } catch (RuntimeException ex) {
+                continue;
+            }
+            if (month.isBefore(oldestKept)) {
+                // DETACH ... CONCURRENTLY is not allowed alongside a default partition; the drop
+                // only holds the parent's lock for the catalog update
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Dropped expired partition {} (retention {} months)", partition, retentionMonths);
+            }
+        }
+    }
+
+    private static String partitionName(String table, YearMonth month) {
+        return table + "_p" + month.format(SUFFIX);
+    }
+}
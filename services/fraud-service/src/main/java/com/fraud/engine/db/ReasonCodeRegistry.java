@@ -0,0 +1,149 @@
+package com.fraud.engine.db;
+
+import com.fraud.engine.stats.AfterCommit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps reason names to the small codes stored in {@code fraud_decisions.reason_codes}.
+ *
+ * The {@code reason_codes} table is the source of truth and is cached in memory; a cache miss
+ * reads the one row it needs. A name that is in neither is remembered as missing for
+ * {@code app.reason-codes.miss-ttl-ms}, so repeated queries for it stay off the database.
+ *
+ * A name seen for the first time is registered in the caller's transaction and cached once that
+ * commits: if the decision that introduced it rolls back, so does the code. Another instance
+ * registering the same name concurrently waits on the unique constraint and then reads the
+ * same code.
+ */
+@Slf4j
+@Component
+public class ReasonCodeRegistry {
+
+    private static final String REGISTER_SQL = "INSERT INTO reason_codes (name) VALUES (?) ON CONFLICT DO NOTHING";
+    private static final String CODE_SQL = "SELECT code FROM reason_codes WHERE name = ?";
+    private static final String NAME_SQL = "SELECT name FROM reason_codes WHERE code = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long missTtlMs;
+    private final LongSupplier clock;
+    private final Map<String, Short> codesByName = new ConcurrentHashMap<>();
+    private final Map<Short, String> namesByCode = new ConcurrentHashMap<>();
+    // Names looked up and not found, until when they count as missing
+    private final Map<String, Long> missingUntil = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReasonCodeRegistry(DataSource dataSource,
+                              @Value("${app.reason-codes.miss-ttl-ms:30000}") long missTtlMs) {
+        this(dataSource, missTtlMs, System::currentTimeMillis);
+    }
+
+    ReasonCodeRegistry(DataSource dataSource, long missTtlMs, LongSupplier clock) {
+        // Spring's JdbcTemplate joins the caller's transaction on this data source
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.missTtlMs = missTtlMs;
+        this.clock = clock;
+    }
+
+    public short[] encode(List<String> names) {
+        if (names == null || names.isEmpty()) {
+            return new short[0];
+        }
+        short[] codes = new short[names.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = register(names.get(i));
+        }
+        return codes;
+    }
+
+    public List<String> decode(short[] codes) {
+        if (codes == null || codes.length == 0) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<>(codes.length);
+        for (short code : codes) {
+            names.add(name(code));
+        }
+        return names;
+    }
+
+    /** Code for {@code name}, registering it in the current transaction if it is new. */
+    public short register(String name) {
+        Short cached = codesByName.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        Short known = single(jdbcTemplate.queryForList(CODE_SQL, Short.class, name));
+        if (known != null) {
+            cache(known, name);
+            return known;
+        }
+        // Look first: even a conflicting insert uses up a value of the SMALLINT identity
+        jdbcTemplate.update(REGISTER_SQL, name);
+        Short code = single(jdbcTemplate.queryForList(CODE_SQL, Short.class, name));
+        if (code == null) {
+            throw new IllegalStateException("Reason code for '" + name + "' vanished after insert");
+        }
+        AfterCommit.run(() -> {
+            cache(code, name);
+            missingUntil.remove(name);
+        });
+        log.debug("Registered reason code {} for '{}'", code, name);
+        return code;
+    }
+
+    /** Code for {@code name} if it has been registered, by this or any other instance. */
+    public Optional<Short> find(String name) {
+        Short code = codesByName.get(name);
+        if (code != null) {
+            return Optional.of(code);
+        }
+        Long until = missingUntil.get(name);
+        long now = clock.getAsLong();
+        if (until != null && now < until) {
+            return Optional.empty();
+        }
+        code = single(jdbcTemplate.queryForList(CODE_SQL, Short.class, name));
+        if (code == null) {
+            missingUntil.put(name, now + missTtlMs);
+            return Optional.empty();
+        }
+        missingUntil.remove(name);
+        cache(code, name);
+        return Optional.of(code);
+    }
+
+    public String name(short code) {
+        String name = namesByCode.get(code);
+        if (name == null) {
+            // Stored codes always have a row, so a miss is a code registered since we last looked
+            name = single(jdbcTemplate.queryForList(NAME_SQL, String.class, code));
+            if (name == null) {
+                log.warn("Reason code {} is not in the registry", code);
+                return "unknown_" + code;
+            }
+            cache(code, name);
+        }
+        return name;
+    }
+
+    private void cache(short code, String name) {
+        codesByName.put(name, code);
+        namesByCode.put(code, name);
+    }
+
+    private static <T> T single(List<T> rows) {
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+}
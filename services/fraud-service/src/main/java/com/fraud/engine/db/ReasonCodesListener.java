@@ -0,0 +1,27 @@
+package com.fraud.engine.db;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PrePersist;
+
+/**
+ * Translates {@link DecisionEntity} reason names to registry codes on insert and back on load.
+ * Instantiated by Hibernate through Spring, which supplies the registry.
+ */
+public class ReasonCodesListener {
+
+    private final ReasonCodeRegistry registry;
+
+    public ReasonCodesListener(ReasonCodeRegistry registry) {
+        this.registry = registry;
+    }
+
+    @PrePersist
+    void encode(DecisionEntity decision) {
+        decision.setReasonCodes(registry.encode(decision.getReasons()));
+    }
+
+    @PostLoad
+    void decode(DecisionEntity decision) {
+        decision.setReasons(registry.decode(decision.getReasonCodes()));
+    }
+}
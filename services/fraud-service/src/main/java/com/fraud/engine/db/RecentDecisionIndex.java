@@ -0,0 +1,252 @@
+package com.fraud.engine.db;
+
+import com.fraud.engine.stats.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decisions this instance wrote in the last few minutes, so the lookup clients make right after
+ * submitting a transaction is answered without a database round trip.
+ *
+ * Entries live in a ring in insertion order and are indexed by an open-addressing table
+ * (linear probing, at most half full) that stores ring positions, so the whole structure is a
+ * handful of flat arrays sized once at startup. The oldest entry is evicted when the ring is
+ * full or older than {@code app.recent-decisions.window-minutes}; removal uses backward-shift
+ * deletion, so the table never accumulates tombstones. Writers take the write lock; readers
+ * probe optimistically and only lock when a write overlapped.
+ */
+@Component
+public class RecentDecisionIndex {
+
+    private final int ringMask;
+    private final int tableMask;
+    private final int[] table;
+    private final String[] ids;
+    private final int[] hashes;
+    private final long[] insertedAt;
+    private final DecisionEntity[] decisions;
+    private final long windowMillis;
+    private final LongSupplier clock;
+    private final StampedLock lock = new StampedLock();
+
+    private long head;
+    private long tail;
+    private int size;
+    private long entryBytes;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    @Autowired
+    public RecentDecisionIndex(
+            MeterRegistry meterRegistry,
+            @Value("${app.recent-decisions.capacity:65536}") int capacity,
+            @Value("${app.recent-decisions.window-minutes:10}") long windowMinutes) {
+        this(meterRegistry, capacity, TimeUnit.MINUTES.toMillis(windowMinutes), System::currentTimeMillis);
+    }
+
+    RecentDecisionIndex(MeterRegistry meterRegistry, int capacity, long windowMillis, LongSupplier clock) {
+        int ringSize = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.ringMask = ringSize - 1;
+        this.tableMask = ringSize * 2 - 1;
+        this.table = new int[ringSize * 2];
+        this.ids = new String[ringSize];
+        this.hashes = new int[ringSize];
+        this.insertedAt = new long[ringSize];
+        this.decisions = new DecisionEntity[ringSize];
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+
+        this.hitCounter = Counter.builder("fraud_recent_decisions_lookups_total")
+            .description("Decision lookups served by the recent-decisions index, by result")
+            .tag("result", "hit")
+            .register(meterRegistry);
+        this.missCounter = Counter.builder("fraud_recent_decisions_lookups_total")
+            .description("Decision lookups served by the recent-decisions index, by result")
+            .tag("result", "miss")
+            .register(meterRegistry);
+        Gauge.builder("fraud_recent_decisions_hit_ratio", this, RecentDecisionIndex::hitRatio)
+            .description("Share of decision lookups answered from memory")
+            .register(meterRegistry);
+        Gauge.builder("fraud_recent_decisions_entries", this, index -> index.size)
+            .description("Decisions held by the recent-decisions index")
+            .register(meterRegistry);
+        Gauge.builder("fraud_recent_decisions_bytes", this, RecentDecisionIndex::estimatedBytes)
+            .description("Estimated heap held by the recent-decisions index")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    /** Index a decision once the transaction that persisted it commits. */
+    public void record(DecisionEntity decision) {
+        AfterCommit.run(() -> put(decision));
+    }
+
+    /** The decision, if this instance wrote it within the window. */
+    public Optional<DecisionEntity> find(String transactionId) {
+        long now = clock.getAsLong();
+        long stamp = lock.tryOptimisticRead();
+        DecisionEntity found = lookup(transactionId, now);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                found = lookup(transactionId, now);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        (found != null ? hitCounter : missCounter).increment();
+        return Optional.ofNullable(found);
+    }
+
+    void put(DecisionEntity decision) {
+        String id = decision.getTransactionId();
+        int hash = spread(id.hashCode());
+        long now = clock.getAsLong();
+        long stamp = lock.writeLock();
+        try {
+            while (head - tail > ringMask || (tail < head && insertedAt[(int) (tail & ringMask)] < now - windowMillis)) {
+                evictOldest();
+            }
+            int existing = findSlot(id, hash);
+            if (existing >= 0) {
+                // Redelivered or re-scored: the newer decision wins
+                clearPosition(table[existing] - 1);
+                removeSlot(existing);
+            }
+
+            int pos = (int) (head & ringMask);
+            ids[pos] = id;
+            hashes[pos] = hash;
+            insertedAt[pos] = now;
+            decisions[pos] = decision;
+            int slot = hash & tableMask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & tableMask;
+            }
+            table[slot] = pos + 1;
+            head++;
+            size++;
+            entryBytes += entryBytes(decision);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private DecisionEntity lookup(String transactionId, long now) {
+        int hash = spread(transactionId.hashCode());
+        int slot = hash & tableMask;
+        // Bounded so an optimistic read racing a backward shift cannot spin
+        for (int probes = 0; probes <= tableMask; probes++) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return null;
+            }
+            int pos = entry - 1;
+            if (hashes[pos] == hash && transactionId.equals(ids[pos])) {
+                DecisionEntity decision = decisions[pos];
+                return insertedAt[pos] >= now - windowMillis ? decision : null;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+        return null;
+    }
+
+    private int findSlot(String id, int hash) {
+        int slot = hash & tableMask;
+        while (table[slot] != 0) {
+            int pos = table[slot] - 1;
+            if (hashes[pos] == hash && id.equals(ids[pos])) {
+                return slot;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+        return -1;
+    }
+
+    private void evictOldest() {
+        int pos = (int) (tail & ringMask);
+        tail++;
+        if (ids[pos] == null) {
+            // Superseded by a later put for the same transaction
+            return;
+        }
+        int slot = hashes[pos] & tableMask;
+        while (table[slot] != pos + 1) {
+            slot = (slot + 1) & tableMask;
+        }
+        clearPosition(pos);
+        removeSlot(slot);
+    }
+
+    private void clearPosition(int pos) {
+        entryBytes -= entryBytes(decisions[pos]);
+        ids[pos] = null;
+        decisions[pos] = null;
+        size--;
+    }
+
+    // Backward-shift deletion: pull later entries of the probe run into the hole unless that
+    // would move them before their home slot
+    private void removeSlot(int hole) {
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & tableMask;
+            int entry = table[slot];
+            if (entry == 0) {
+                break;
+            }
+            int home = hashes[entry - 1] & tableMask;
+            boolean movable = hole <= slot
+                ? home <= hole || home > slot
+                : home <= hole && home > slot;
+            if (movable) {
+                table[hole] = entry;
+                hole = slot;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private double hitRatio() {
+        double hits = hitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private double estimatedBytes() {
+        // Fixed arrays (compressed references) plus the entities they currently retain
+        long arrays = 4L * table.length + (4L + 4L + 8L + 4L) * ids.length;
+        return arrays + entryBytes;
+    }
+
+    // Rough retained size of an entity and the strings, list and arrays it owns
+    private static long entryBytes(DecisionEntity decision) {
+        long bytes = 48 + 24;
+        bytes += 40 + decision.getTransactionId().length();
+        if (decision.getUserId() != null) {
+            bytes += 40 + decision.getUserId().length();
+        }
+        List<String> reasons = decision.getReasons();
+        if (reasons != null) {
+            bytes += 40 + 4L * reasons.size();
+        }
+        if (decision.getReasonCodes() != null) {
+            bytes += 16 + 2L * decision.getReasonCodes().length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,21 @@
+package com.fraud.engine.db;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.io.Serializable;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupKey implements Serializable {
+
+    @Column(name = "bucket_start")
+    private Instant bucketStart;
+
+    private String decision;
+}
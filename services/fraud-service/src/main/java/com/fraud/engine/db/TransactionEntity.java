@@ -1,15 +1,20 @@
 package com.fraud.engine.db;
 
-import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
 import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 import java.time.Instant;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
 @Table(name = "transactions")
@@ -38,7 +43,13 @@ public class TransactionEntity {
     private String city;
     private String country;
 
-    @Lob
-    @Column(name = "raw_payload", columnDefinition = "TEXT")
-    private String rawPayload;
+    // Written asynchronously to its own table and only loaded when accessed. optional = false
+    // lets Hibernate hand out a proxy instead of probing the table for every row; touching it
+    // before the payload is written throws EntityNotFoundException
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "transaction_id", insertable = false, updatable = false,
+        foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private TransactionPayloadEntity payload;
 }
@@ -0,0 +1,36 @@
+package com.fraud.engine.db;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Original transaction event, stored compressed; {@code codec} says how to decode
+ * {@code payload} (see {@code PayloadCodec}).
+ */
+@Entity
+@Table(name = "transaction_payloads")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionPayloadEntity {
+
+    @Id
+    private String transactionId;
+
+    private Instant occurredAt;
+
+    private String codec;
+
+    @ToString.Exclude
+    @Column(columnDefinition = "BYTEA")
+    private byte[] payload;
+}
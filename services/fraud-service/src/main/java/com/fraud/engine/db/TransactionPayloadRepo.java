@@ -0,0 +1,6 @@
+package com.fraud.engine.db;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TransactionPayloadRepo extends JpaRepository<TransactionPayloadEntity, String> {
+}
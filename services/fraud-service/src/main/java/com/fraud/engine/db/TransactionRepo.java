@@ -14,6 +14,9 @@ public interface TransactionRepo extends JpaRepository<TransactionEntity, String
 
     TransactionEntity findFirstByOrderByOccurredAtDesc();
 
+    @Query("SELECT MAX(t.occurredAt) FROM TransactionEntity t")
+    Instant latestOccurredAt();
+
     List<TransactionEntity> findByOccurredAtAfterOrderByOccurredAtDesc(Instant since);
 
     // Sum amounts by userId
@@ -0,0 +1,36 @@
+package com.fraud.engine.db;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running per-user decision aggregates, upserted alongside every persisted decision.
+ */
+@Entity
+@Table(name = "user_profile")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserProfileEntity {
+
+    @Id
+    private String userId;
+
+    private long totalCount;
+    private long allowCount;
+    private long reviewCount;
+    private long blockCount;
+    private double scoreSum;
+    private double totalVolume;
+
+    private Instant firstTransactionAt;
+    private Instant lastTransactionAt;
+    private Instant updatedAt;
+}
@@ -0,0 +1,41 @@
+package com.fraud.engine.db;
+
+import java.time.Instant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface UserProfileRepo extends JpaRepository<UserProfileEntity, String> {
+
+    // Fold one decision into the user's row. Events are keyed by userId, so a user's
+    // decisions arrive on one partition and never contend for this row lock.
+    @Modifying
+    @Query(value = """
+        INSERT INTO user_profile (user_id, total_count, allow_count, review_count, block_count,
+                                  score_sum, total_volume, first_transaction_at, last_transaction_at, updated_at)
+        VALUES (:userId, 1,
+                CASE WHEN :decision = 'ALLOW' THEN 1 ELSE 0 END,
+                CASE WHEN :decision = 'REVIEW' THEN 1 ELSE 0 END,
+                CASE WHEN :decision = 'BLOCK' THEN 1 ELSE 0 END,
+                :score, :amount, :occurredAt, :occurredAt, :updatedAt)
+        ON CONFLICT (user_id) DO UPDATE SET
+            total_count = user_profile.total_count + 1,
+            allow_count = user_profile.allow_count + EXCLUDED.allow_count,
+            review_count = user_profile.review_count + EXCLUDED.review_count,
+            block_count = user_profile.block_count + EXCLUDED.block_count,
+            score_sum = user_profile.score_sum + EXCLUDED.score_sum,
+            total_volume = user_profile.total_volume + EXCLUDED.total_volume,
+            first_transaction_at = LEAST(user_profile.first_transaction_at, EXCLUDED.first_transaction_at),
+            last_transaction_at = GREATEST(user_profile.last_transaction_at, EXCLUDED.last_transaction_at),
+            updated_at = EXCLUDED.updated_at
+        """, nativeQuery = true)
+    void recordDecision(
+        @Param("userId") String userId,
+        @Param("decision") String decision,
+        @Param("score") double score,
+        @Param("amount") double amount,
+        @Param("occurredAt") Instant occurredAt,
+        @Param("updatedAt") Instant updatedAt
+    );
+}
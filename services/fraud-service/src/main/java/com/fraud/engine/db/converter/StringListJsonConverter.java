@@ -1,40 +0,0 @@
-package com.fraud.engine.db.converter;
-
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.persistence.AttributeConverter;
-import jakarta.persistence.Converter;
-import java.util.Collections;
-import java.util.List;
-
-@Converter
-public class StringListJsonConverter implements AttributeConverter<List<String>, String> {
-
-    private static final ObjectMapper MAPPER = new ObjectMapper();
-    private static final TypeReference<List<String>> LIST_TYPE = new TypeReference<>() {};
-
-    @Override
-    public String convertToDatabaseColumn(List<String> attribute) {
-        if (attribute == null || attribute.isEmpty()) {
-            return "[]";
-        }
-        try {
-            return MAPPER.writeValueAsString(attribute);
-        } catch (JsonProcessingException e) {
-            throw new IllegalArgumentException("Unable to serialise reasons to JSON", e);
-        }
-    }
-
-    @Override
-    public List<String> convertToEntityAttribute(String dbData) {
-        if (dbData == null || dbData.isBlank()) {
-            return Collections.emptyList();
-        }
-        try {
-            return MAPPER.readValue(dbData, LIST_TYPE);
-        } catch (JsonProcessingException e) {
-            throw new IllegalArgumentException("Unable to deserialise reasons JSON", e);
-        }
-    }
-}
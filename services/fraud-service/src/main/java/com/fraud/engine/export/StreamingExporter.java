@@ -0,0 +1,350 @@
+package com.fraud.engine.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fraud.engine.db.ReasonCodeRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Streams decisions and transactions straight from a forward-only JDBC cursor to an output
+ * stream, one row at a time.
+ *
+ * Postgres only honours the fetch size inside a transaction (otherwise the driver buffers the
+ * whole result), so every export runs in its own read-only transaction. Heap use is bounded by
+ * one fetch batch regardless of how many rows match. The CSV header comes from the dataset's
+ * column list and is written before the query runs, so an export that matches nothing is still
+ * a valid CSV.
+ */
+@Slf4j
+@Component
+public class StreamingExporter {
+
+    /** Date range, decision and user filters; any may be null. */
+    public record Filter(Instant from, Instant to, String decision, String userId) {
+    }
+
+    private static final String DECISIONS_SQL = """
+        SELECT d.transaction_id, d.user_id, d.decision, d.score, d.reason_codes AS reasons,
+               d.latency_ms, d.evaluated_at
+        FROM fraud_decisions d""";
+
+    // Output columns of each query, in select order
+    private static final List<String> DECISION_COLUMNS = List.of(
+        "transaction_id", "user_id", "decision", "score", "reasons", "latency_ms", "evaluated_at");
+
+    private static final String TRANSACTIONS_SQL = """
+        SELECT t.transaction_id, t.user_id, t.amount, t.currency, t.merchant_id, t.occurred_at,
+               t.device_id, t.device_ip, t.latitude, t.longitude, t.city, t.country,
+               d.decision, d.score
+        FROM transactions t
+        LEFT JOIN fraud_decisions d ON d.transaction_id = t.transaction_id""";
+
+    private static final List<String> TRANSACTION_COLUMNS = List.of(
+        "transaction_id", "user_id", "amount", "currency", "merchant_id", "occurred_at",
+        "device_id", "device_ip", "latitude", "longitude", "city", "country",
+        "decision", "score");
+
+    // Columns read as JSON text (reason names) and embedded as-is in NDJSON output
+    private static final Set<String> RAW_JSON_COLUMNS = Set.of("reasons");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper objectMapper;
+    private final ReasonCodeRegistry reasonCodeRegistry;
+    private final Counter decisionRows;
+    private final Counter transactionRows;
+
+    public StreamingExporter(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            ReasonCodeRegistry reasonCodeRegistry,
+            MeterRegistry meterRegistry,
+            @Value("${app.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.reasonCodeRegistry = reasonCodeRegistry;
+        this.decisionRows = Counter.builder("fraud_export_rows_total")
+            .description("Rows streamed by the export endpoints")
+            .tag("dataset", "decisions")
+            .register(meterRegistry);
+        this.transactionRows = Counter.builder("fraud_export_rows_total")
+            .description("Rows streamed by the export endpoints")
+            .tag("dataset", "transactions")
+            .register(meterRegistry);
+    }
+
+    public long exportDecisions(Filter filter, ExportFormat format, OutputStream out) {
+        List<Object> params = new ArrayList<>();
+        List<String> where = new ArrayList<>();
+        if (filter.from() != null) {
+            where.add("d.evaluated_at >= ?");
+            params.add(toDbTimestamp(filter.from()));
+        }
+        if (filter.to() != null) {
+            where.add("d.evaluated_at < ?");
+            params.add(toDbTimestamp(filter.to()));
+        }
+        if (filter.decision() != null) {
+            where.add("d.decision = ?");
+            params.add(filter.decision());
+        }
+        if (filter.userId() != null) {
+            where.add("d.user_id = ?");
+            params.add(filter.userId());
+        }
+        String sql = DECISIONS_SQL + whereClause(where) + " ORDER BY d.evaluated_at";
+        long rows = stream(sql, DECISION_COLUMNS, params, format, out);
+        decisionRows.increment(rows);
+        return rows;
+    }
+
+    public long exportTransactions(Filter filter, ExportFormat format, OutputStream out) {
+        List<Object> params = new ArrayList<>();
+        List<String> where = new ArrayList<>();
+        if (filter.from() != null) {
+            where.add("t.occurred_at >= ?");
+            params.add(toDbTimestamp(filter.from()));
+        }
+        if (filter.to() != null) {
+            where.add("t.occurred_at < ?");
+            params.add(toDbTimestamp(filter.to()));
+        }
+        if (filter.decision() != null) {
+            where.add("d.decision = ?");
+            params.add(filter.decision());
+        }
+        if (filter.userId() != null) {
+            where.add("t.user_id = ?");
+            params.add(filter.userId());
+        }
+        String sql = TRANSACTIONS_SQL + whereClause(where) + " ORDER BY t.occurred_at";
+        long rows = stream(sql, TRANSACTION_COLUMNS, params, format, out);
+        transactionRows.increment(rows);
+        return rows;
+    }
+
+    private long stream(String sql, List<String> columns, List<Object> params, ExportFormat format,
+                        OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RowWriter rowWriter = format == ExportFormat.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+        long[] count = {0};
+        int[][] types = {null};
+        try {
+            rowWriter.header(columns);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        readOnlyTx.executeWithoutResult(status -> jdbcTemplate.query(
+            con -> {
+                PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(jdbcTemplate.getFetchSize());
+                new ArgumentPreparedStatementSetter(params.toArray()).setValues(ps);
+                return ps;
+            },
+            (RowCallbackHandler) rs -> {
+                try {
+                    if (types[0] == null) {
+                        types[0] = columnTypes(rs.getMetaData(), columns);
+                    }
+                    rowWriter.row(rs, types[0]);
+                    count[0]++;
+                } catch (IOException ex) {
+                    // Client went away; abandon the cursor
+                    throw new UncheckedIOException(ex);
+                }
+            }));
+
+        try {
+            rowWriter.finish();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        log.debug("Exported {} rows as {}", count[0], format);
+        return count[0];
+    }
+
+    private static String whereClause(List<String> predicates) {
+        return predicates.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicates);
+    }
+
+    // Timestamps are stored as UTC wall-clock values (hibernate.jdbc.time_zone=UTC)
+    private static LocalDateTime toDbTimestamp(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    // The header is written before the query runs, so the cursor must return exactly those columns.
+    // Some drivers upper-case unquoted labels; compare them lower-cased
+    private static int[] columnTypes(ResultSetMetaData meta, List<String> columns) throws SQLException {
+        List<String> labels = new ArrayList<>(meta.getColumnCount());
+        int[] types = new int[meta.getColumnCount()];
+        for (int i = 1; i <= types.length; i++) {
+            labels.add(meta.getColumnLabel(i).toLowerCase(Locale.ROOT));
+            types[i - 1] = meta.getColumnType(i);
+        }
+        if (!labels.equals(columns)) {
+            throw new IllegalStateException("Export returned columns " + labels + ", expected " + columns);
+        }
+        return types;
+    }
+
+    private Object readValue(ResultSet rs, int column, int sqlType) throws SQLException, IOException {
+        if (sqlType == Types.TIMESTAMP) {
+            LocalDateTime value = rs.getObject(column, LocalDateTime.class);
+            return value != null ? value.toInstant(ZoneOffset.UTC).toString() : null;
+        }
+        if (sqlType == Types.ARRAY) {
+            // reason_codes is the only array column; export names, never raw codes
+            Array array = rs.getArray(column);
+            return array != null ? objectMapper.writeValueAsString(reasonNames((Object[]) array.getArray())) : null;
+        }
+        return rs.getObject(column);
+    }
+
+    private List<String> reasonNames(Object[] codes) {
+        List<String> names = new ArrayList<>(codes.length);
+        for (Object code : codes) {
+            names.add(reasonCodeRegistry.name(((Number) code).shortValue()));
+        }
+        return names;
+    }
+
+    private interface RowWriter {
+        void header(List<String> labels) throws IOException;
+
+        void row(ResultSet rs, int[] types) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void header(List<String> labels) throws IOException {
+            writer.write(String.join(",", labels));
+            writer.write('\n');
+        }
+
+        @Override
+        public void row(ResultSet rs, int[] types) throws SQLException, IOException {
+            for (int i = 1; i <= types.length; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                Object value = readValue(rs, i, types[i - 1]);
+                if (value != null) {
+                    writeCsvField(value.toString());
+                }
+            }
+            writer.write('\n');
+        }
+
+        private void writeCsvField(String value) throws IOException {
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private final JsonGenerator generator;
+        private List<String> labels;
+
+        NdjsonRowWriter(Writer writer) {
+            this.writer = writer;
+            try {
+                this.generator = objectMapper.getFactory().createGenerator(writer);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            // One object per line; the generator must not close or re-buffer our writer
+            this.generator.setRootValueSeparator(null);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        }
+
+        @Override
+        public void header(List<String> labels) {
+            // No header line; the labels name each object's fields
+            this.labels = labels;
+        }
+
+        @Override
+        public void row(ResultSet rs, int[] types) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 1; i <= types.length; i++) {
+                Object value = readValue(rs, i, types[i - 1]);
+                generator.writeFieldName(labels.get(i - 1));
+                if (value == null) {
+                    generator.writeNull();
+                } else if (RAW_JSON_COLUMNS.contains(labels.get(i - 1))) {
+                    generator.writeRawValue(value.toString());
+                } else if (value instanceof Number number) {
+                    generator.writeNumber(number.toString());
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+            writer.flush();
+        }
+    }
+}
@@ -1,31 +1,47 @@
 package com.fraud.engine.kafka;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fraud.common.model.DecisionHeaders;
 import com.fraud.common.model.FraudDecision;
 import com.fraud.common.model.Transaction;
+import com.fraud.engine.config.RulesProperties;
 import com.fraud.engine.db.DecisionEntity;
 import com.fraud.engine.db.DecisionRepo;
+import com.fraud.engine.db.RecentDecisionIndex;
 import com.fraud.engine.db.TransactionEntity;
 import com.fraud.engine.db.TransactionRepo;
+import com.fraud.engine.db.UserProfileRepo;
+import com.fraud.engine.kafka.DecisionStages.Stage;
+import com.fraud.engine.merchant.MerchantVelocity;
 import com.fraud.engine.ml.FeatureExtractor;
 import com.fraud.engine.ml.MLFraudDetector;
 import com.fraud.engine.ml.TransactionFeatures;
+import com.fraud.engine.payload.TransactionPayloadStore;
 import com.fraud.engine.redis.RedisState;
+import com.fraud.engine.service.DegradationController;
+import com.fraud.engine.service.MerchantRules;
 import com.fraud.engine.service.RuleEngine;
+import com.fraud.engine.service.SignalRules;
+import com.fraud.engine.shadow.ShadowEvaluator;
+import com.fraud.engine.shadow.ShadowInput;
+import com.fraud.engine.stats.DecisionRollups;
+import com.fraud.engine.stats.HeavyHitters;
+import com.fraud.engine.stats.OverviewCounters;
+import com.fraud.engine.web.ResponseCache;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
@@ -40,65 +56,42 @@ public class FraudProcessor {
   private final KafkaTemplate<String, FraudDecision> decisionTemplate;
   private final DecisionRepo decisionRepo;
   private final TransactionRepo transactionRepo;
+  private final UserProfileRepo userProfileRepo;
   private final RedisState redisState;
   private final MeterRegistry meterRegistry;
-  private final ObjectMapper objectMapper;
   private final MLFraudDetector mlFraudDetector;
   private final FeatureExtractor featureExtractor;
+  private final OverviewCounters overviewCounters;
+  private final DecisionRollups decisionRollups;
+  private final TransactionPayloadStore payloadStore;
+  private final ResponseCache responseCache;
+  private final RecentDecisionIndex recentDecisions;
+  private final ShadowEvaluator shadowEvaluator;
+  private final DecisionStages stages;
+  private final DegradationController degradation;
+  private final HeavyHitters heavyHitters;
+  private final HotKeyGuard hotKeyGuard;
+  private final MerchantVelocity merchantVelocity;
+  private final RulesProperties rules;
+  private final TransactionTemplate transactionTemplate;
 
   @Value("${app.topics.out}")
   private String outTopic;
 
-  // ─── Level 4: Configurable Rule Thresholds ───────────────────────────
-  @Value("${app.rules.burst.windowSec:60}")
-  private int burstWindowSec;
-
-  @Value("${app.rules.burst.count:3}")
-  private int burstCount;
-
-  @Value("${app.rules.burst.score:40}")
-  private int burstScore;
-
-  @Value("${app.rules.geo.maxSpeedKmph:900}")
-  private double geoMaxSpeedKmph;
-
-  @Value("${app.rules.geo.score:50}")
-  private int geoScore;
-
-  @Value("${app.rules.device.newWithinDays:7}")
-  private int deviceNewWithinDays;
-
-  @Value("${app.rules.device.score:20}")
-  private int deviceScore;
-
-  @Value("${app.rules.ip.newWithinDays:7}")
-  private int ipNewWithinDays;
-
-  @Value("${app.rules.ip.score:15}")
-  private int ipScore;
-
-  @Value("${app.rules.spend.multiplier:5.0}")
-  private double spendMultiplier;
-
-  @Value("${app.rules.spend.score:30}")
-  private int spendScore;
-
-  @Value("${app.rules.spend.historySize:10}")
-  private int spendHistorySize;
-
-  // ML Configuration
-  @Value("${app.ml.weight:0.5}")
-  private double mlWeight;
-
-  @Value("${app.rules.weight:0.5}")
-  private double rulesWeight;
-
+  private SignalRules.Thresholds thresholds;
+  private MerchantRules.Thresholds merchantThresholds;
   private Timer decisionLatencyTimer;
   private Counter allowCounter;
   private Counter reviewCounter;
   private Counter blockCounter;
   private Counter duplicateCounter;
 
+  @PostConstruct
+  void initRules() {
+    this.thresholds = rules.thresholds();
+    this.merchantThresholds = rules.merchantThresholds();
+  }
+
   @PostConstruct
   void initMetrics() {
     this.decisionLatencyTimer = Timer.builder("fraud_decision_latency")
@@ -126,65 +119,106 @@ public class FraudProcessor {
         .register(meterRegistry);
   }
 
-  @Transactional
+  // The hot-key checks and the pacing run before the decision transaction opens, so neither
+  // holds a pool connection
   @KafkaListener(topics = "${app.topics.in}", groupId = "fraud-service")
   public void onEvent(Transaction tx) {
-    if (decisionRepo.existsById(tx.getTransactionId())) {
+    heavyHitters.record(tx);
+    if (hotKeyGuard.divert(tx)) {
+      return;
+    }
+    boolean shed = hotKeyGuard.shed(tx);
+    transactionTemplate.executeWithoutResult(status -> decide(tx, shed));
+  }
+
+  /** Hot users diverted by {@link HotKeyGuard}, decided one at a time at a capped rate. */
+  @KafkaListener(topics = "${app.topics.hot}", groupId = "fraud-service-hot", concurrency = "1")
+  public void onHotEvent(Transaction tx) {
+    hotKeyGuard.pace();
+    boolean shed = hotKeyGuard.shed(tx);
+    transactionTemplate.executeWithoutResult(status -> {
+      decide(tx, shed);
+      hotKeyGuard.decided(tx);
+    });
+  }
+
+  /** @param shed skip the optional rules and the model: a merchant or IP on it is hot */
+  private void decide(Transaction tx, boolean shed) {
+    DecisionStages.Clock clock = stages.start();
+    // Released again if this transaction rolls back, so a retry can claim it
+    boolean duplicate = decisionRepo.claim(tx.getTransactionId(), Instant.now()) == 0;
+    clock.lap(Stage.DEDUPE);
+    if (duplicate) {
       duplicateCounter.increment();
       log.debug("Duplicate transaction {} skipped", tx.getTransactionId());
       return;
     }
 
     Timer.Sample sample = Timer.start(meterRegistry);
-    long t0 = System.currentTimeMillis();
+    long t0 = System.nanoTime();
 
-    transactionRepo.save(toEntity(tx));
+    TransactionEntity txEntity = transactionRepo.save(toEntity(tx));
+    payloadStore.submit(tx, txEntity.getOccurredAt());
+    clock.lap(Stage.PERSIST_TX);
 
     var res = RuleEngine.evaluate(tx);
-    List<String> reasons = new ArrayList<>(res.reasons());
-    double score = res.score();
+    clock.lap(Stage.STATIC_RULES);
+
+    // Merchant velocity: in-memory window (plus other instances' last flush), no round trip
+    var base = MerchantRules.apply(res, merchantVelocity.snapshot(tx), merchantThresholds);
+    double merchantScore = base.score() - res.score();
+    clock.lap(Stage.MERCHANT_VELOCITY);
 
-    // ---- Redis-based checks (Level 4: Configurable & Enhanced) ----
+    // ---- Per-user signals from Redis, scored by SignalRules (as shadow and replay do) ----
     long nowSec = Instant.now().getEpochSecond();
 
-    // A) Burst: configurable window and count
+    // A) Burst
     // IMPORTANT: Check count BEFORE recording current transaction to avoid off-by-one error
-    long burstCnt = redisState.recentCount(tx.getUserId(), nowSec, burstWindowSec);
-    if (burstCnt >= burstCount) {
-      score += burstScore;
-      reasons.add("burst_%ds".formatted(burstWindowSec));
-    }
+    long burstCnt = redisState.recentCount(tx.getUserId(), nowSec, thresholds.burstWindowSec());
 
     // Now record this transaction time for future burst detection
     redisState.recordTransactionTime(tx.getUserId(), nowSec);
+    clock.lap(Stage.REDIS_BURST);
+
+    // Under pressure the optional rules (B, C) are skipped, not their writes; burst and geo always run
+    boolean degraded = shed || degradation.skipOptionalRules(t0);
+    boolean optionalRules = !degraded;
 
     // B) Spend spike: compare to median of last N transactions
-    double medianAmount = redisState.getMedianAmount(tx.getUserId());
-    if (medianAmount > 0 && tx.getAmount() >= medianAmount * spendMultiplier) {
-      score += spendScore;
-      reasons.add("spend_spike");
+    double medianAmount = 0;
+    if (optionalRules) {
+      medianAmount = redisState.getMedianAmount(tx.getUserId());
+      // Record current amount for future comparisons
+      redisState.recordAmount(tx.getUserId(), tx.getAmount(), thresholds.spendHistorySize());
     }
-    // Record current amount for future comparisons
-    redisState.recordAmount(tx.getUserId(), tx.getAmount(), spendHistorySize);
+    clock.lap(Stage.REDIS_SPEND);
 
     // C) Device/IP freshness: treat "new" (first-time) as risky
     // Only flag if device/IP is truly NEW (first time seeing it)
     // Devices/IPs that were seen before (even if within 7 days) are considered known/trusted
-    if (tx.getDevice() != null) {
-      boolean isNewDevice = redisState.recordDevice(tx.getUserId(), tx.getDevice().getId(), nowSec);
-      if (isNewDevice) {
-        score += deviceScore;
-        reasons.add("new_device");
-      }
-
-      boolean isNewIp = redisState.recordIp(tx.getUserId(), tx.getDevice().getIp(), nowSec);
-      if (isNewIp) {
-        score += ipScore;
-        reasons.add("new_ip");
-      }
+    boolean isNewDevice = false;
+    boolean isNewIp = false;
+    RedisState.LinkedUsers linked = RedisState.LinkedUsers.NONE;
+    if (optionalRules && tx.getDevice() != null) {
+      isNewDevice = redisState.recordDevice(tx.getUserId(), tx.getDevice().getId(), nowSec);
+      isNewIp = redisState.recordIp(tx.getUserId(), tx.getDevice().getIp(), nowSec);
+
+      // C2) Shared device/IP: one account-takeover signal is many accounts on one device or IP
+      linked = redisState.linkUsers(tx.getUserId(), tx.getDevice().getId(), tx.getDevice().getIp(),
+          nowSec, rules.getLinks().getSampleSize());
+    }
+    if (degraded) {
+      // Skipped rules still record the transaction, or once they are back every device and IP
+      // seen meanwhile would be "new" and medians and link counts stale. One round trip for
+      // spend and device/IP, timed as the latter
+      redisState.recordQuietly(tx.getUserId(), tx.getAmount(), thresholds.spendHistorySize(),
+          tx.getDevice() != null ? tx.getDevice().getId() : null,
+          tx.getDevice() != null ? tx.getDevice().getIp() : null, nowSec);
     }
+    clock.lap(Stage.REDIS_DEVICE_IP);
 
     // D) Geo-impossible: configurable speed threshold
+    double speed = Double.NaN;
     if (tx.getLocation() != null && tx.getLocation().getLat() != null && tx.getLocation().getLon() != null) {
       var last = redisState.getLastLoc(tx.getUserId());
       if (last != null) {
@@ -192,15 +226,22 @@ public class FraudProcessor {
             last.lat(), last.lon(),
             tx.getLocation().getLat(), tx.getLocation().getLon());
         long dt = Math.max(1, nowSec - last.epochSec());
-        double speed = km / (dt / 3600.0); // km/h
-        if (speed > geoMaxSpeedKmph) {
-          score += geoScore;
-          reasons.add("geo_impossible");
-        }
+        speed = km / (dt / 3600.0); // km/h
       }
       redisState.setLastLoc(
           tx.getUserId(), tx.getLocation().getLat(), tx.getLocation().getLon(), nowSec);
     }
+    clock.lap(Stage.REDIS_GEO);
+
+    SignalRules.Signals signals = new SignalRules.Signals(burstCnt, medianAmount, isNewDevice, isNewIp,
+        linked.deviceUsers(), linked.ipUsers(), speed);
+    var userRules = SignalRules.apply(base, tx.getAmount(), signals, thresholds);
+    List<String> reasons = new ArrayList<>(userRules.reasons());
+    double score = userRules.score();
+
+    // Flagged by the other rules only, so merchant rules never feed their own flag rate; counted on commit
+    merchantVelocity.record(tx, !"ALLOW".equals(thresholds.decision(score - merchantScore)));
+    clock.lap(Stage.SIGNAL_RULES);
 
     // ─── Decision Logic: Rule-based with ML for REVIEW zone ──────────────────
     // Strategy:
@@ -210,23 +251,32 @@ public class FraudProcessor {
 
     String decisionStr;
     double finalScore = score;
+    TransactionFeatures features = null;
+    MLFraudDetector.Prediction prediction = null;
 
     // First, determine rule-based decision zone
-    String ruleDecision = RuleEngine.toDecision(score);
+    String ruleDecision = thresholds.decision(score);
 
-    if ("REVIEW".equals(ruleDecision) && mlFraudDetector.isEnabled()) {
+    if ("REVIEW".equals(ruleDecision) && mlFraudDetector.isEnabled() && (shed || degradation.skipMl(t0))) {
+      // Shedding load: leave it for manual review rather than wait on the model
+      decisionStr = "REVIEW";
+      degraded = true;
+    } else if ("REVIEW".equals(ruleDecision) && mlFraudDetector.isEnabled()) {
       // Transaction is in REVIEW zone (30-59) - use ML for final decision
       try {
         // Extract features for ML model
-        TransactionFeatures features = featureExtractor.extractFeatures(
-            tx, nowSec, score, reasons);
+        features = featureExtractor.extractFeatures(
+            tx, nowSec, linked, score, reasons);
+        clock.lap(Stage.FEATURES);
 
-        // Get ML prediction
-        double mlProbability = mlFraudDetector.predictFraudProbability(features);
+        // Get ML prediction from the champion or, for the challenger's share of users, the challenger
+        prediction = mlFraudDetector.predict(tx.getUserId(), features);
+        double mlProbability = prediction.probability();
+        clock.lap(Stage.ML);
 
         // Use ML probability to make binary decision
         // ML probability > 0.5 means fraud (BLOCK), otherwise ALLOW
-        if (mlProbability > 0.5) {
+        if (mlProbability > MLFraudDetector.BLOCK_PROBABILITY) {
           decisionStr = "BLOCK";
           reasons.add("ml_flagged_as_fraud");
           // Boost score to reflect ML decision
@@ -238,9 +288,10 @@ public class FraudProcessor {
           finalScore = mlProbability * 30; // 0-30 range for ALLOW
         }
 
-        log.info("REVIEW zone transaction {} decided by ML: probability={}, decision={}",
-            tx.getTransactionId(), mlProbability, decisionStr);
+        log.info("REVIEW zone transaction {} decided by ML {}: probability={}, decision={}",
+            tx.getTransactionId(), prediction.modelVersion(), mlProbability, decisionStr);
       } catch (Exception e) {
+        clock.lap(features == null ? Stage.FEATURES : Stage.ML);
         log.warn("ML prediction failed for REVIEW transaction {}: {}. Keeping as REVIEW.",
             tx.getTransactionId(), e.getMessage());
         // If ML fails, keep as REVIEW for manual review
@@ -254,8 +305,13 @@ public class FraudProcessor {
     }
 
     double boundedScore = Math.min(finalScore, 100);
+    if (degraded) {
+      reasons.add(DegradationController.REASON);
+    }
 
-    long latency = System.currentTimeMillis() - t0;
+    long latencyNanos = System.nanoTime() - t0;
+    degradation.recordLatency(latencyNanos);
+    long latency = latencyNanos / 1_000_000;
     FraudDecision decision = FraudDecision.builder()
         .transactionId(tx.getTransactionId())
         .userId(tx.getUserId())
@@ -264,11 +320,22 @@ public class FraudProcessor {
         .reasons(reasons)
         .latencyMs(latency)
         .evaluatedAt(Instant.now())
+        .modelScore(prediction != null ? prediction.probability() : null)
+        .modelVersion(prediction != null ? prediction.modelVersion() : null)
+        .stageMicros(clock.breakdown())
         .build();
 
-    decisionTemplate.send(outTopic, tx.getUserId(), decision);
-
-    decisionRepo.save(DecisionEntity.builder()
+    // Headers let consumers skip records they don't care about without parsing the payload
+    ProducerRecord<String, FraudDecision> decisionRecord = new ProducerRecord<>(outTopic, tx.getUserId(), decision);
+    decisionRecord.headers()
+        .add(DecisionHeaders.DECISION, decisionStr.getBytes(StandardCharsets.UTF_8))
+        .add(DecisionHeaders.SCORE_BAND, DecisionHeaders.scoreBand(boundedScore).getBytes(StandardCharsets.UTF_8));
+    long sentAt = System.nanoTime();
+    decisionTemplate.send(decisionRecord)
+        .whenComplete((result, ex) -> stages.record(Stage.PUBLISH_ACK, System.nanoTime() - sentAt));
+    clock.lap(Stage.PUBLISH);
+
+    DecisionEntity decisionEntity = decisionRepo.save(DecisionEntity.builder()
         .transactionId(tx.getTransactionId())
         .userId(tx.getUserId())
         .decision(decisionStr)
@@ -277,6 +344,17 @@ public class FraudProcessor {
         .latencyMs(latency)
         .evaluatedAt(decision.getEvaluatedAt())
         .build());
+    recentDecisions.record(decisionEntity);
+
+    // Same transaction as the decision row, so the profile never disagrees with it
+    userProfileRepo.recordDecision(tx.getUserId(), decisionStr, boundedScore, tx.getAmount(),
+        txEntity.getOccurredAt(), decision.getEvaluatedAt());
+    clock.lap(Stage.PERSIST_DECISION);
+
+    overviewCounters.record(decisionStr, latency, tx.getAmount(),
+        txEntity.getOccurredAt(), decision.getEvaluatedAt());
+    decisionRollups.record(decisionStr, boundedScore, latency, tx.getAmount(), decision.getEvaluatedAt());
+    responseCache.onDecisionWritten(tx.getUserId(), decisionStr);
 
     switch (decisionStr) {
       case "ALLOW" -> allowCounter.increment();
@@ -286,16 +364,25 @@ public class FraudProcessor {
     }
 
     sample.stop(decisionLatencyTimer);
+    clock.lapOnCommit();
+
+    // Off the hot path: sampled, queued after commit, dropped when the shadow executor is busy.
+    // Not while degraded: the signals are incomplete and the spare capacity is needed here
+    if (!degraded && degradation.level() == DegradationController.Level.NORMAL) {
+      shadowEvaluator.submit(new ShadowInput(tx, base, signals, features, prediction, decisionStr, boundedScore));
+    }
   }
 
   private TransactionEntity toEntity(Transaction tx) {
+    // occurred_at is the partition key and cannot be null; fall back to receipt time
+    Instant occurredAt = parseInstant(tx.getTimestamp());
     return TransactionEntity.builder()
         .transactionId(tx.getTransactionId())
         .userId(tx.getUserId())
         .amount(tx.getAmount())
         .currency(tx.getCurrency())
         .merchantId(tx.getMerchantId())
-        .occurredAt(parseInstant(tx.getTimestamp()))
+        .occurredAt(occurredAt != null ? occurredAt : Instant.now())
         .deviceId(tx.getDevice() != null ? tx.getDevice().getId() : null)
         .deviceIp(tx.getDevice() != null ? tx.getDevice().getIp() : null)
         .deviceUserAgent(tx.getDevice() != null ? tx.getDevice().getUserAgent() : null)
@@ -303,7 +390,6 @@ public class FraudProcessor {
         .longitude(tx.getLocation() != null ? tx.getLocation().getLon() : null)
         .city(tx.getLocation() != null ? tx.getLocation().getCity() : null)
         .country(tx.getLocation() != null ? tx.getLocation().getCountry() : null)
-        .rawPayload(writeJson(tx))
         .build();
   }
 
@@ -322,13 +408,4 @@ public class FraudProcessor {
       }
     }
   }
-
-  private String writeJson(Transaction tx) {
-    try {
-      return objectMapper.writeValueAsString(tx);
-    } catch (JsonProcessingException e) {
-      log.warn("Failed to serialise transaction {} for audit", tx.getTransactionId(), e);
-      return null;
-    }
-  }
 }
@@ -0,0 +1,181 @@
+package com.fraud.engine.kafka;
+
+import com.fraud.common.model.Transaction;
+import com.fraud.engine.stats.AfterCommit;
+import com.fraud.engine.stats.HeavyHitters;
+import com.fraud.engine.stats.HeavyHitters.Dimension;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps extreme heavy hitters from starving their partition without reordering anyone's events.
+ *
+ * Users: when enabled, a transaction whose user is currently hot in {@link HeavyHitters} is
+ * republished to the hot topic instead of being decided inline. The hot topic has its own
+ * single-threaded listener paced to {@code guard.max-per-second}, so a flood from one user is
+ * still decided, just behind everyone else's traffic. Only the user (the partition key) is
+ * diverted, since the per-user rules depend on the order of a user's events: records keep their
+ * user key, and a user stays diverted until every one of its hot records has been decided (a
+ * Redis counter shared with the hot listener), so a cooled-down user's newer events never
+ * overtake its older ones. The instance that diverted a user remembers it; after a rebalance the
+ * partition's new owner only diverts users that are still hot.
+ *
+ * Merchants and IPs ({@code guard.shed-dimensions}) are shared by many ordinary users, so their
+ * events are never diverted: they are decided inline with the optional rules and the model shed,
+ * like a degraded decision.
+ */
+@Component
+public class HotKeyGuard {
+
+    private static final String PENDING_KEY = "hot:user:%s:pending";
+    // A lost decrement must not divert a user forever
+    private static final Duration PENDING_TTL = Duration.ofHours(1);
+
+    private final HeavyHitters heavyHitters;
+    private final KafkaTemplate<String, Transaction> transactionTemplate;
+    private final StringRedisTemplate redis;
+    private final boolean enabled;
+    private final long sendTimeoutMs;
+    private final Set<Dimension> shedDimensions;
+    private final long intervalNanos;
+    private final Counter divertedCounter;
+    private final Map<Dimension, Counter> shedCounters = new EnumMap<>(Dimension.class);
+    // Users this instance diverted whose hot records may not all be decided yet
+    private final Set<String> draining = ConcurrentHashMap.newKeySet();
+    private long nextPermitNanos = System.nanoTime();
+
+    @Value("${app.topics.hot}")
+    private String hotTopic;
+
+    public HotKeyGuard(
+            HeavyHitters heavyHitters,
+            @Qualifier("transactionKafkaTemplate") KafkaTemplate<String, Transaction> transactionTemplate,
+            StringRedisTemplate redis,
+            MeterRegistry meterRegistry,
+            @Value("${app.heavy-hitters.guard.enabled:false}") boolean enabled,
+            @Value("${app.heavy-hitters.guard.shed-dimensions:merchant}") List<String> shedDimensions,
+            @Value("${app.heavy-hitters.guard.max-per-second:50}") double maxPerSecond,
+            @Value("${app.heavy-hitters.guard.send-timeout-ms:1000}") long sendTimeoutMs) {
+        this.heavyHitters = heavyHitters;
+        this.transactionTemplate = transactionTemplate;
+        this.redis = redis;
+        this.enabled = enabled;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.shedDimensions = EnumSet.noneOf(Dimension.class);
+        for (Dimension dimension : Dimension.values()) {
+            if (dimension != Dimension.USER && shedDimensions.contains(dimension.tag())) {
+                this.shedDimensions.add(dimension);
+            }
+        }
+        this.intervalNanos = maxPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / maxPerSecond) : 0;
+        this.divertedCounter = Counter.builder("fraud_heavy_hitter_diverted_total")
+            .description("Transactions routed to the throttled hot-key path")
+            .tag("dimension", Dimension.USER.tag())
+            .register(meterRegistry);
+        for (Dimension dimension : this.shedDimensions) {
+            shedCounters.put(dimension, Counter.builder("fraud_heavy_hitter_shed_total")
+                .description("Transactions decided inline without the optional rules because a shared key was hot")
+                .tag("dimension", dimension.tag())
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Republish {@code tx} to the hot topic if its user is hot or still has hot records queued.
+     * Returns true when it was diverted and the caller must not decide it. Called outside the
+     * decision transaction; a send that is not acknowledged within {@code guard.send-timeout-ms}
+     * fails the record rather than holding the consumer.
+     */
+    public boolean divert(Transaction tx) {
+        if (!enabled) {
+            return false;
+        }
+        String userId = tx.getUserId();
+        if (!heavyHitters.isHot(Dimension.USER, userId) && !stillDraining(userId)) {
+            return false;
+        }
+        // Wait for the ack: once the offset commits, the hot topic is the only copy
+        try {
+            transactionTemplate.send(hotTopic, userId, tx).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted diverting transaction " + tx.getTransactionId(), ex);
+        } catch (ExecutionException | TimeoutException ex) {
+            throw new IllegalStateException("Failed to divert transaction " + tx.getTransactionId() + " to " + hotTopic, ex);
+        }
+        String key = PENDING_KEY.formatted(userId);
+        redis.opsForValue().increment(key);
+        redis.expire(key, PENDING_TTL);
+        draining.add(userId);
+        divertedCounter.increment();
+        return true;
+    }
+
+    private boolean stillDraining(String userId) {
+        if (!draining.contains(userId)) {
+            return false;
+        }
+        String pending = redis.opsForValue().get(PENDING_KEY.formatted(userId));
+        if (pending == null || Long.parseLong(pending) <= 0) {
+            draining.remove(userId);
+            return false;
+        }
+        return true;
+    }
+
+    /** Count a hot record as decided once its decision commits; called by the hot listener. */
+    public void decided(Transaction tx) {
+        AfterCommit.run(() -> redis.opsForValue().decrement(PENDING_KEY.formatted(tx.getUserId())));
+    }
+
+    /** Whether {@code tx} should skip the optional rules and the model because a shared key is hot. */
+    public boolean shed(Transaction tx) {
+        if (!enabled) {
+            return false;
+        }
+        for (Dimension dimension : shedDimensions) {
+            String key = switch (dimension) {
+                case MERCHANT -> tx.getMerchantId();
+                case IP -> tx.getDevice() != null ? tx.getDevice().getIp() : null;
+                case USER -> null;
+            };
+            if (heavyHitters.isHot(dimension, key)) {
+                shedCounters.get(dimension).increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Block the hot-topic listener until its next permit; called once per hot record. */
+    public void pace() {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long permit;
+        synchronized (this) {
+            permit = Math.max(nextPermitNanos, System.nanoTime());
+            nextPermitNanos = permit + intervalNanos;
+        }
+        long wait;
+        while ((wait = permit - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.fraud.engine.kafka;
+
+import com.fraud.engine.config.RetryTiers;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult.ListOffsetsResultInfo;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.KafkaBackoffException;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Outcome and backlog of each retry tier.
+ *
+ * As a record interceptor it sees every record the listeners finish: per tier it counts records
+ * that succeeded ({@code recovered} on a retry tier) and records that failed and moved on to the
+ * next tier or the DLQ. Depth is the consumer lag of each tier's group, refreshed on a schedule;
+ * records waiting out their delay count towards it.
+ */
+@Slf4j
+@Component
+public class RetryTierMetrics implements RecordInterceptor<Object, Object> {
+
+    private record Tier(String name, String group, Counter succeeded, Counter failed, AtomicLong depth) {
+    }
+
+    private final RetryTiers retryTiers;
+    private final KafkaAdmin kafkaAdmin;
+    private final Map<String, Tier> tiersByTopic = new HashMap<>();
+    private AdminClient adminClient;
+
+    public RetryTierMetrics(RetryTiers retryTiers, KafkaAdmin kafkaAdmin, MeterRegistry meterRegistry) {
+        this.retryTiers = retryTiers;
+        this.kafkaAdmin = kafkaAdmin;
+        tiersByTopic.put(retryTiers.getMainTopic(), tier("main", RetryTiers.MAIN_GROUP, "processed", meterRegistry));
+        for (long delay : retryTiers.getDelaysMs()) {
+            Tier tier = tier(RetryTiers.label(delay), retryTiers.group(delay), "recovered", meterRegistry);
+            tiersByTopic.put(retryTiers.topic(delay), tier);
+            Gauge.builder("fraud_retry_tier_depth", tier.depth(), AtomicLong::get)
+                .description("Records waiting in a retry tier")
+                .tag("tier", tier.name())
+                .register(meterRegistry);
+        }
+    }
+
+    private static Tier tier(String name, String group, String success, MeterRegistry meterRegistry) {
+        Counter succeeded = Counter.builder("fraud_retry_records_total")
+            .description("Records finished per retry tier, by outcome")
+            .tag("tier", name)
+            .tag("outcome", success)
+            .register(meterRegistry);
+        Counter failed = Counter.builder("fraud_retry_records_total")
+            .description("Records finished per retry tier, by outcome")
+            .tag("tier", name)
+            .tag("outcome", "failed")
+            .register(meterRegistry);
+        return new Tier(name, group, succeeded, failed, new AtomicLong());
+    }
+
+    @Override
+    public ConsumerRecord<Object, Object> intercept(ConsumerRecord<Object, Object> record, Consumer<Object, Object> consumer) {
+        return record;
+    }
+
+    @Override
+    public void success(ConsumerRecord<Object, Object> record, Consumer<Object, Object> consumer) {
+        Tier tier = tiersByTopic.get(record.topic());
+        if (tier != null) {
+            tier.succeeded().increment();
+        }
+    }
+
+    @Override
+    public void failure(ConsumerRecord<Object, Object> record, Exception exception, Consumer<Object, Object> consumer) {
+        Tier tier = tiersByTopic.get(record.topic());
+        // A retry tier rejects records that are not due yet; that is a pause, not a failure
+        if (tier != null && !isBackoff(exception)) {
+            tier.failed().increment();
+        }
+    }
+
+    private static boolean isBackoff(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof KafkaBackoffException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${app.retry.depth-check-ms:30000}")
+    public void refreshDepth() {
+        try {
+            if (adminClient == null) {
+                adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+            }
+            for (Map.Entry<String, Tier> entry : tiersByTopic.entrySet()) {
+                Tier tier = entry.getValue();
+                if (!tier.group().equals(RetryTiers.MAIN_GROUP)) {
+                    tier.depth().set(lag(tier.group(), entry.getKey()));
+                }
+            }
+        } catch (Exception ex) {
+            log.debug("Retry tier depth check failed: {}", ex.getMessage());
+        }
+    }
+
+    private long lag(String group, String topic) throws Exception {
+        Map<TopicPartition, OffsetAndMetadata> committed = adminClient.listConsumerGroupOffsets(group)
+            .partitionsToOffsetAndMetadata().get(5, TimeUnit.SECONDS);
+        TopicDescription description = adminClient.describeTopics(List.of(topic))
+            .allTopicNames().get(5, TimeUnit.SECONDS).get(topic);
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        for (TopicPartitionInfo partition : description.partitions()) {
+            latest.put(new TopicPartition(topic, partition.partition()), OffsetSpec.latest());
+        }
+        Map<TopicPartition, ListOffsetsResultInfo> ends = adminClient.listOffsets(latest).all().get(5, TimeUnit.SECONDS);
+        long lag = 0;
+        for (Map.Entry<TopicPartition, ListOffsetsResultInfo> end : ends.entrySet()) {
+            OffsetAndMetadata position = committed.get(end.getKey());
+            lag += end.getValue().offset() - (position != null ? position.offset() : 0);
+        }
+        return lag;
+    }
+
+    @PreDestroy
+    void close() {
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.fraud.engine.merchant;
+
+import com.fraud.common.model.Transaction;
+import com.fraud.engine.config.RulesProperties;
+import com.fraud.engine.merchant.MerchantWindow.Counts;
+import com.fraud.engine.stats.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-merchant velocity over a sliding window: transactions, distinct users, and two
+ * decline-rate proxies (transactions the per-user rules flagged, and small "test" amounts).
+ *
+ * Every instance counts its own traffic in memory ({@link MerchantWindow}), so the consumer
+ * never waits on the network for merchant state. Users are spread over all partitions and
+ * instances, so a scheduled flush publishes this instance's window totals as one field of a
+ * per-merchant Redis hash and reads the other instances' fields back; a lookup adds that remote
+ * part, at most one flush old, to the live local window.
+ */
+@Slf4j
+@Component
+public class MerchantVelocity {
+
+    /** Window totals for a merchant across all instances, before the current transaction. */
+    public record Snapshot(long transactions, long distinctUsers, long flagged, long smallAmount) {
+
+        public double flaggedShare() {
+            return transactions == 0 ? 0 : (double) flagged / transactions;
+        }
+
+        public double smallAmountShare() {
+            return transactions == 0 ? 0 : (double) smallAmount / transactions;
+        }
+    }
+
+    private static final String KEY = "merchant:%s:velocity";
+
+    private final StringRedisTemplate redis;
+    private final long windowMillis;
+    private final long bucketMillis;
+    private final int buckets;
+    private final int maxMerchants;
+    private final double smallAmount;
+    private final LongSupplier clock;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Map<String, MerchantWindow> windows = new ConcurrentHashMap<>();
+    private volatile Map<String, Counts> remote = Map.of();
+
+    private final Counter untrackedCounter;
+    private final Counter flushedCounter;
+    private final Counter flushFailedCounter;
+
+    @Autowired
+    public MerchantVelocity(
+            StringRedisTemplate redis,
+            MeterRegistry meterRegistry,
+            @Value("${app.merchant-velocity.window-sec:60}") int windowSec,
+            @Value("${app.merchant-velocity.buckets:6}") int buckets,
+            @Value("${app.merchant-velocity.max-merchants:100000}") int maxMerchants,
+            RulesProperties rules) {
+        this(redis, meterRegistry, TimeUnit.SECONDS.toMillis(Math.max(windowSec, 1)), buckets, maxMerchants,
+            rules.getMerchant().getSmallAmount(), System::currentTimeMillis);
+    }
+
+    MerchantVelocity(StringRedisTemplate redis, MeterRegistry meterRegistry, long windowMillis, int buckets,
+                     int maxMerchants, double smallAmount, LongSupplier clock) {
+        this.redis = redis;
+        this.buckets = Math.max(buckets, 1);
+        this.bucketMillis = Math.max(windowMillis / this.buckets, 1);
+        this.windowMillis = this.bucketMillis * this.buckets;
+        this.maxMerchants = Math.max(maxMerchants, 1);
+        this.smallAmount = smallAmount;
+        this.clock = clock;
+
+        this.untrackedCounter = Counter.builder("fraud_merchant_velocity_untracked_total")
+            .description("Transactions from merchants not tracked because max-merchants was reached")
+            .register(meterRegistry);
+        this.flushedCounter = Counter.builder("fraud_merchant_velocity_flushes_total")
+            .description("Merchant velocity exchanges with Redis, by outcome")
+            .tag("outcome", "success")
+            .register(meterRegistry);
+        this.flushFailedCounter = Counter.builder("fraud_merchant_velocity_flushes_total")
+            .description("Merchant velocity exchanges with Redis, by outcome")
+            .tag("outcome", "failed")
+            .register(meterRegistry);
+        Gauge.builder("fraud_merchant_velocity_merchants", windows, Map::size)
+            .description("Merchants with a live velocity window on this instance")
+            .register(meterRegistry);
+    }
+
+    /** Window totals for {@code tx}'s merchant, not including {@code tx} itself. */
+    public Snapshot snapshot(Transaction tx) {
+        String merchantId = tx.getMerchantId();
+        if (merchantId == null) {
+            return new Snapshot(0, 0, 0, 0);
+        }
+        MerchantWindow window = windows.get(merchantId);
+        Counts counts = window != null ? window.counts(clock.getAsLong()) : Counts.empty();
+        Counts others = remote.get(merchantId);
+        if (others != null) {
+            counts = counts.plus(others);
+        }
+        return new Snapshot(counts.transactions(), counts.distinctUsers(), counts.flagged(), counts.smallAmount());
+    }
+
+    /**
+     * Count {@code tx} in its merchant's window once the decision commits, so a rolled-back and
+     * redelivered event is counted once.
+     *
+     * @param flagged whether the rules that do not depend on merchant velocity flagged it
+     */
+    public void record(Transaction tx, boolean flagged) {
+        AfterCommit.run(() -> count(tx, flagged));
+    }
+
+    private void count(Transaction tx, boolean flagged) {
+        String merchantId = tx.getMerchantId();
+        if (merchantId == null) {
+            return;
+        }
+        MerchantWindow window = windows.get(merchantId);
+        if (window == null) {
+            if (windows.size() >= maxMerchants) {
+                untrackedCounter.increment();
+                return;
+            }
+            window = windows.computeIfAbsent(merchantId, id -> new MerchantWindow(bucketMillis, buckets));
+        }
+        window.record(tx.getUserId(), tx.getAmount() <= smallAmount, flagged, clock.getAsLong());
+    }
+
+    /** Publish this instance's windows to Redis and pick up everyone else's. */
+    @Scheduled(fixedDelayString = "${app.merchant-velocity.flush-ms:2000}")
+    public void flush() {
+        long now = clock.getAsLong();
+        List<String> merchants = new ArrayList<>();
+        Map<String, String> published = new HashMap<>();
+        windows.forEach((merchantId, window) -> {
+            if (now - window.lastSeenMillis() > windowMillis) {
+                // Idle for a whole window; a racing record on the removed window is lost
+                windows.remove(merchantId, window);
+                return;
+            }
+            merchants.add(merchantId);
+            published.put(merchantId, window.counts(now).encode(now));
+        });
+        if (merchants.isEmpty()) {
+            remote = Map.of();
+            return;
+        }
+
+        long ttlSec = Math.max(TimeUnit.MILLISECONDS.toSeconds(windowMillis * 2), 1);
+        try {
+            List<Object> fields = redis.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection c = (StringRedisConnection) connection;
+                for (String merchantId : merchants) {
+                    String key = KEY.formatted(merchantId);
+                    c.hSet(key, instanceId, published.get(merchantId));
+                    c.expire(key, ttlSec);
+                    c.hGetAll(key);
+                }
+                return null;
+            });
+
+            Map<String, Counts> merged = new HashMap<>();
+            for (int i = 0; i < merchants.size(); i++) {
+                Object all = fields.get(i * 3 + 2);
+                if (!(all instanceof Map<?, ?> byInstance)) {
+                    continue;
+                }
+                Counts others = null;
+                for (Map.Entry<?, ?> entry : byInstance.entrySet()) {
+                    // A stopped instance's field stays until the key expires; skip it once stale
+                    Counts counts = instanceId.equals(entry.getKey()) ? null
+                        : Counts.decode(String.valueOf(entry.getValue()), now - windowMillis);
+                    if (counts != null) {
+                        others = others == null ? counts : others.plus(counts);
+                    }
+                }
+                if (others != null) {
+                    merged.put(merchants.get(i), others);
+                }
+            }
+            remote = merged;
+            flushedCounter.increment();
+        } catch (RuntimeException ex) {
+            // Keep the last remote view; local counts are unaffected
+            flushFailedCounter.increment();
+            log.warn("Merchant velocity flush failed: {}", ex.getMessage());
+        }
+    }
+}
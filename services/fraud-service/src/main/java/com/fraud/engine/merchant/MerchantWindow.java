@@ -0,0 +1,175 @@
+package com.fraud.engine.merchant;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One merchant's sliding window: a ring of time buckets, each with striped counters
+ * ({@link LongAdder}) and a linear-counting bitmap of the users seen.
+ *
+ * Recording never locks. A bucket whose tick has passed is swapped for a fresh one with a CAS;
+ * an increment racing with the swap may land in the retired bucket and be lost, which the
+ * rules tolerate. Bitmaps are OR-able, so windows (and other instances' windows) merge into
+ * one distinct-user estimate without double counting.
+ */
+final class MerchantWindow {
+
+    static final int USER_BITS = 1024;
+    static final int USER_WORDS = USER_BITS / 64;
+
+    /** Window totals; {@code users} is the merged bitmap. */
+    record Counts(long transactions, long flagged, long smallAmount, long[] users) {
+
+        static Counts empty() {
+            return new Counts(0, 0, 0, new long[USER_WORDS]);
+        }
+
+        Counts plus(Counts other) {
+            long[] merged = users.clone();
+            for (int i = 0; i < USER_WORDS; i++) {
+                merged[i] |= other.users[i];
+            }
+            return new Counts(transactions + other.transactions, flagged + other.flagged,
+                smallAmount + other.smallAmount, merged);
+        }
+
+        /** Linear-counting estimate; accurate to a few percent up to roughly {@code USER_BITS} users. */
+        long distinctUsers() {
+            int set = 0;
+            for (long word : users) {
+                set += Long.bitCount(word);
+            }
+            if (set == 0) {
+                return 0;
+            }
+            // Saturated: report the estimate for one zero bit rather than infinity
+            int zeros = Math.max(USER_BITS - set, 1);
+            return Math.round(USER_BITS * Math.log((double) USER_BITS / zeros));
+        }
+
+        String encode(long publishedAt) {
+            ByteBuffer bitmap = ByteBuffer.allocate(USER_WORDS * Long.BYTES);
+            for (long word : users) {
+                bitmap.putLong(word);
+            }
+            return publishedAt + ";" + transactions + ";" + flagged + ";" + smallAmount + ";"
+                + Base64.getEncoder().encodeToString(bitmap.array());
+        }
+
+        /** Counts published at or after {@code notBefore}, or null if stale or malformed. */
+        static Counts decode(String value, long notBefore) {
+            String[] parts = value.split(";", 5);
+            try {
+                if (parts.length != 5 || Long.parseLong(parts[0]) < notBefore) {
+                    return null;
+                }
+                ByteBuffer bitmap = ByteBuffer.wrap(Base64.getDecoder().decode(parts[4]));
+                if (bitmap.remaining() != USER_WORDS * Long.BYTES) {
+                    return null;
+                }
+                long[] users = new long[USER_WORDS];
+                for (int i = 0; i < USER_WORDS; i++) {
+                    users[i] = bitmap.getLong();
+                }
+                return new Counts(Long.parseLong(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3]), users);
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
+        }
+    }
+
+    private static final class Bucket {
+        final long tick;
+        final LongAdder transactions = new LongAdder();
+        final LongAdder flagged = new LongAdder();
+        final LongAdder smallAmount = new LongAdder();
+        final AtomicLongArray users = new AtomicLongArray(USER_WORDS);
+
+        Bucket(long tick) {
+            this.tick = tick;
+        }
+    }
+
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Bucket> ring;
+    private volatile long lastSeenMillis;
+
+    MerchantWindow(long bucketMillis, int buckets) {
+        this.bucketMillis = bucketMillis;
+        this.ring = new AtomicReferenceArray<>(buckets);
+    }
+
+    void record(String userId, boolean smallAmount, boolean flagged, long nowMillis) {
+        lastSeenMillis = nowMillis;
+        Bucket bucket = bucket(nowMillis / bucketMillis);
+        if (bucket == null) {
+            return;
+        }
+        bucket.transactions.increment();
+        if (smallAmount) {
+            bucket.smallAmount.increment();
+        }
+        if (flagged) {
+            bucket.flagged.increment();
+        }
+        if (userId != null) {
+            int bit = mix(userId.hashCode()) & (USER_BITS - 1);
+            long mask = 1L << (bit & 63);
+            // Most events hit an already-set bit; only write when it changes
+            if ((bucket.users.get(bit >>> 6) & mask) == 0) {
+                bucket.users.getAndAccumulate(bit >>> 6, mask, (word, m) -> word | m);
+            }
+        }
+    }
+
+    private Bucket bucket(long tick) {
+        int slot = (int) Math.floorMod(tick, (long) ring.length());
+        Bucket bucket = ring.get(slot);
+        while (bucket == null || bucket.tick < tick) {
+            if (ring.compareAndSet(slot, bucket, new Bucket(tick))) {
+                return ring.get(slot);
+            }
+            bucket = ring.get(slot);
+        }
+        // A newer tick already owns the slot: this event is older than the window
+        return bucket.tick == tick ? bucket : null;
+    }
+
+    Counts counts(long nowMillis) {
+        long tick = nowMillis / bucketMillis;
+        long transactions = 0;
+        long flagged = 0;
+        long smallAmount = 0;
+        long[] users = new long[USER_WORDS];
+        for (int slot = 0; slot < ring.length(); slot++) {
+            Bucket bucket = ring.get(slot);
+            if (bucket == null || bucket.tick <= tick - ring.length() || bucket.tick > tick) {
+                continue;
+            }
+            transactions += bucket.transactions.sum();
+            flagged += bucket.flagged.sum();
+            smallAmount += bucket.smallAmount.sum();
+            for (int i = 0; i < USER_WORDS; i++) {
+                users[i] |= bucket.users.get(i);
+            }
+        }
+        return new Counts(transactions, flagged, smallAmount, users);
+    }
+
+    long lastSeenMillis() {
+        return lastSeenMillis;
+    }
+
+    // Murmur3 finalizer, so similar user ids spread over the bitmap
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -8,8 +8,6 @@ import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.time.ZonedDateTime;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Extracts features from transaction for ML model prediction
@@ -21,22 +19,13 @@ import java.util.Map;
 public class FeatureExtractor {
     
     private final RedisState redisState;
-    
-    // Currency encoding map
-    private static final Map<String, Integer> CURRENCY_MAP = new HashMap<>();
-    static {
-        CURRENCY_MAP.put("USD", 1);
-        CURRENCY_MAP.put("EUR", 2);
-        CURRENCY_MAP.put("GBP", 3);
-        CURRENCY_MAP.put("CAD", 4);
-        CURRENCY_MAP.put("AUD", 5);
-        // Default to 0 for unknown currencies
-    }
+    // Currency is encoded per model from its model_meta.json categories (see TransactionFeatures.toVector)
     
     /**
      * Extract features from transaction for ML model
      * @param tx Transaction
      * @param currentTimeSec Current timestamp in seconds
+     * @param linked Users sharing the transaction's device/IP, as read by the rules
      * @param ruleScore Rule-based score (0-100)
      * @param triggeredRules List of triggered rule names
      * @return TransactionFeatures for ML prediction
@@ -44,30 +33,16 @@ public class FeatureExtractor {
     public TransactionFeatures extractFeatures(
             Transaction tx, 
             long currentTimeSec,
+            RedisState.LinkedUsers linked,
             double ruleScore,
             java.util.List<String> triggeredRules) {
         
-        // Parse timestamp
-        Instant txInstant = parseTimestamp(tx.getTimestamp());
-        ZonedDateTime txDateTime = txInstant != null ? 
-            ZonedDateTime.ofInstant(txInstant, java.time.ZoneId.of("UTC")) : 
-            ZonedDateTime.now();
-        
-        int hourOfDay = txDateTime.getHour();
-        boolean isOddHour = hourOfDay >= 0 && hourOfDay <= 5; // Night time
-        
-        // 1. amount
-        double amount = tx.getAmount();
-        
-        // 2. hourOfDay
-        int hour = hourOfDay;
-        
         // 3. tx_count_60s - transactions in last 60 seconds
         long txCount60s = redisState.recentCount(tx.getUserId(), currentTimeSec, 60);
         
         // 4. spend_deviation_ratio - (amount / median) - 1, or 0 if no median
         double medianAmount = redisState.getMedianAmount(tx.getUserId());
-        double spendDeviationRatio = medianAmount > 0 ? (amount / medianAmount) - 1.0 : 0.0;
+        double spendDeviationRatio = medianAmount > 0 ? (tx.getAmount() / medianAmount) - 1.0 : 0.0;
         
         // 5. required_speed_kmph - travel speed if location exists
         double requiredSpeedKmph = 0.0;
@@ -96,6 +71,41 @@ public class FeatureExtractor {
         if (tx.getDevice() != null && tx.getDevice().getIp() != null) {
             isNewIp = redisState.recordIp(tx.getUserId(), tx.getDevice().getIp(), currentTimeSec);
         }
+
+        return extractFeatures(tx, txCount60s, spendDeviationRatio, requiredSpeedKmph,
+            isNewDevice, isNewIp, linked.deviceUsers(), linked.ipUsers(), ruleScore, triggeredRules);
+    }
+
+    /**
+     * Assemble features from user-state signals that were already read, without touching Redis
+     * (e.g. for shadow evaluation of a candidate rule set).
+     */
+    public TransactionFeatures extractFeatures(
+            Transaction tx,
+            long txCount60s,
+            double spendDeviationRatio,
+            double requiredSpeedKmph,
+            boolean isNewDevice,
+            boolean isNewIp,
+            long deviceUsers24h,
+            long ipUsers24h,
+            double ruleScore,
+            java.util.List<String> triggeredRules) {
+
+        // Parse timestamp
+        Instant txInstant = parseTimestamp(tx.getTimestamp());
+        ZonedDateTime txDateTime = txInstant != null ? 
+            ZonedDateTime.ofInstant(txInstant, java.time.ZoneId.of("UTC")) : 
+            ZonedDateTime.now();
+        
+        int hourOfDay = txDateTime.getHour();
+        boolean isOddHour = hourOfDay >= 0 && hourOfDay <= 5; // Night time
+        
+        // 1. amount
+        double amount = tx.getAmount();
+        
+        // 2. hourOfDay
+        int hour = hourOfDay;
         
         // 8-12. Rule flags (0 or 1) - check if rule was triggered
         int ruleBurst60s = triggeredRules.contains("burst_60s") ? 1 : 0;
@@ -129,6 +139,8 @@ public class FeatureExtractor {
             .ruleOddHour(ruleOddHour)
             .ruleScore(ruleScoreValue)
             .currency(currency)
+            .deviceUsers24h(deviceUsers24h)
+            .ipUsers24h(ipUsers24h)
             .build();
     }
     
@@ -1,16 +1,35 @@
 package com.fraud.engine.ml;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.RestClientException;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * ML Fraud Detector - calls Python ML service for predictions
+ *
+ * {@link #predict} asks for the version {@link ModelRegistry} routes the user to and keeps
+ * latency, score distribution and errors per version and role. With {@code app.ml.protocol=binary}
+ * it sends the features as one little-endian float32 row in the model's layout
+ * ({@code application/octet-stream}, version in {@code X-Model-Version}) and reads the fraud
+ * probability back as one float32; versions whose meta has no category lists fall back to JSON.
  */
 @Slf4j
 @Component
@@ -27,11 +46,82 @@ public class MLFraudDetector {
     
     @Value("${app.ml.timeout:2000}")
     private int timeoutMs;
+
+    @Value("${app.ml.protocol:binary}")
+    private String protocol;
+
+    /** Above this probability a REVIEW-band transaction is blocked, otherwise allowed. */
+    public static final double BLOCK_PROBABILITY = 0.5;
+
+    private static final MediaType BINARY = MediaType.APPLICATION_OCTET_STREAM;
+    private static final String VERSION_HEADER = "X-Model-Version";
     
     private final RestTemplate restTemplate;
-    
-    public MLFraudDetector() {
+    private final ModelRegistry modelRegistry;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, VersionMeters> versionMeters = new ConcurrentHashMap<>();
+
+    /** A prediction and the model version that made it. */
+    public record Prediction(String modelVersion, ModelRegistry.Role role, double probability) {
+    }
+
+    private record VersionMeters(Timer latency, DistributionSummary scores, Counter errors) {
+    }
+
+    public MLFraudDetector(ModelRegistry modelRegistry, MeterRegistry meterRegistry) {
         this.restTemplate = new RestTemplate();
+        this.modelRegistry = modelRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Score with the champion or challenger model, as routed for {@code userId}.
+     * @throws IllegalStateException if no model is registered or the ML service call fails
+     */
+    public Prediction predict(String userId, TransactionFeatures features) {
+        ModelRegistry.Route route = modelRegistry.route(userId);
+        if (route == null) {
+            throw new IllegalStateException("No model registered");
+        }
+        String version = route.model().version();
+        VersionMeters meters = versionMeters.computeIfAbsent(version + "|" + route.role().tag(),
+            key -> meters(version, route.role()));
+        long start = System.nanoTime();
+        try {
+            double probability = "binary".equals(protocol) && route.model().currencyCodes() != null
+                ? requestProbabilityBinary(mlServiceUrl, route.model(), features)
+                : requestProbability(mlServiceUrl, version, features);
+            meters.latency().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            meters.scores().record(probability);
+            return new Prediction(version, route.role(), probability);
+        } catch (RuntimeException e) {
+            meters.latency().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            meters.errors().increment();
+            throw e;
+        }
+    }
+
+    private VersionMeters meters(String version, ModelRegistry.Role role) {
+        return new VersionMeters(
+            Timer.builder("fraud_model_latency")
+                .description("ML service prediction latency per model version")
+                .tag("version", version)
+                .tag("role", role.tag())
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry),
+            DistributionSummary.builder("fraud_model_score")
+                .description("Fraud probabilities returned per model version")
+                .tag("version", version)
+                .tag("role", role.tag())
+                .serviceLevelObjectives(0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8, 0.9)
+                .register(meterRegistry),
+            Counter.builder("fraud_model_errors_total")
+                .description("Failed ML service predictions per model version")
+                .tag("version", version)
+                .tag("role", role.tag())
+                .register(meterRegistry));
     }
     
     /**
@@ -44,35 +134,19 @@ public class MLFraudDetector {
             log.debug("ML fraud detection is disabled");
             return 0.0; // Return neutral if ML is disabled
         }
-        
+        return predictFraudProbability(mlServiceUrl, features);
+    }
+
+    /**
+     * Predict fraud probability with the model served at {@code serviceUrl}, regardless of
+     * {@code app.ml.enabled} (e.g. a candidate model under shadow evaluation)
+     */
+    public double predictFraudProbability(String serviceUrl, TransactionFeatures features) {
         try {
-            Map<String, Object> request = new HashMap<>();
-            request.put("features", features.toArray());
-            
-            String url = mlServiceUrl + "/predict";
-            Map<String, Object> response = restTemplate.postForObject(url, request, Map.class);
-            
-            if (response == null) {
-                log.warn("ML service returned null response");
-                return 0.0;
-            }
-            
-            Object fraudProbObj = response.get("fraud_probability");
-            if (fraudProbObj == null) {
-                log.warn("ML service response missing fraud_probability");
-                return 0.0;
-            }
-            
-            double fraudProbability;
-            if (fraudProbObj instanceof Number) {
-                fraudProbability = ((Number) fraudProbObj).doubleValue();
-            } else {
-                fraudProbability = Double.parseDouble(fraudProbObj.toString());
-            }
-            
-            log.debug("ML prediction: fraud_probability={}", fraudProbability);
-            return fraudProbability;
-            
+            return requestProbability(serviceUrl, null, features);
+        } catch (IllegalStateException e) {
+            log.warn("{}", e.getMessage());
+            return 0.0;
         } catch (RestClientException e) {
             log.warn("Error calling ML service: {}", e.getMessage());
             return 0.0; // Return neutral on error
@@ -82,6 +156,57 @@ public class MLFraudDetector {
         }
     }
     
+    // The service's default model when version is null
+    private double requestProbability(String serviceUrl, String version, TransactionFeatures features) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("features", features.toArray());
+        request.put("extra_features", features.extraFeatures());
+        if (version != null) {
+            request.put("model_version", version);
+        }
+
+        String url = serviceUrl + "/predict";
+        Map<String, Object> response = restTemplate.postForObject(url, request, Map.class);
+
+        if (response == null) {
+            throw new IllegalStateException("ML service returned null response");
+        }
+
+        Object fraudProbObj = response.get("fraud_probability");
+        if (fraudProbObj == null) {
+            throw new IllegalStateException("ML service response missing fraud_probability");
+        }
+
+        double fraudProbability;
+        if (fraudProbObj instanceof Number) {
+            fraudProbability = ((Number) fraudProbObj).doubleValue();
+        } else {
+            fraudProbability = Double.parseDouble(fraudProbObj.toString());
+        }
+
+        log.debug("ML prediction: version={}, fraud_probability={}", version, fraudProbability);
+        return fraudProbability;
+    }
+
+    private double requestProbabilityBinary(String serviceUrl, ModelRegistry.ModelVersion model,
+                                            TransactionFeatures features) {
+        float[] vector = features.toVector(model.features(), model.currencyCodes());
+        ByteBuffer body = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        body.asFloatBuffer().put(vector);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(BINARY);
+        headers.setAccept(List.of(BINARY));
+        headers.set(VERSION_HEADER, model.version());
+        byte[] response = restTemplate.postForObject(serviceUrl + "/predict",
+            new HttpEntity<>(body.array(), headers), byte[].class);
+
+        if (response == null || response.length < Float.BYTES) {
+            throw new IllegalStateException("ML service returned no probability");
+        }
+        return ByteBuffer.wrap(response).order(ByteOrder.LITTLE_ENDIAN).getFloat(0);
+    }
+
     /**
      * Convert ML probability to score (0-100)
      */
@@ -0,0 +1,307 @@
+package com.fraud.engine.ml;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The model versions the ML service can serve, and which one each user is routed to.
+ *
+ * Versions are read from {@code app.ml.registry.dir}: the root {@code model_meta.json} (the
+ * model ml-service loads at startup) and one {@code <version>/model_meta.json} per
+ * subdirectory, which ml-service loads on first use. {@code registry.json} in the same
+ * directory names the champion, an optional challenger and the challenger's share of users
+ * ({@code {"champion": "...", "challenger": "...", "challengerShare": 0.1}}); without it the
+ * {@code app.ml.routing.*} properties apply.
+ *
+ * The directory is rescanned on a schedule. A change is loaded into a new immutable
+ * {@link Routing} and swapped in with one volatile write, so consumers never wait on a reload;
+ * an invalid change (unknown champion, features this service cannot supply) is rejected and
+ * the previous routing stays. Users are split by a hash of their id, so each user keeps seeing
+ * the same model while the split is unchanged.
+ */
+@Slf4j
+@Component
+public class ModelRegistry {
+
+    public enum Role {
+        CHAMPION("champion"), CHALLENGER("challenger");
+
+        private final String tag;
+
+        Role(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    /**
+     * @param currencyCodes index of each currency in the model's {@code categories.currency}
+     *                      list, or null if its meta has none (then it is only served JSON)
+     */
+    public record ModelVersion(String version, List<String> features, Map<String, Integer> currencyCodes) {
+    }
+
+    public record Route(ModelVersion model, Role role) {
+    }
+
+    /** One consistent view of the registry; replaced whole on reload. */
+    public record Routing(ModelVersion champion, ModelVersion challenger, double challengerShare,
+                          Map<String, ModelVersion> versions) {
+    }
+
+    private static final String META = "model_meta.json";
+    private static final String ROUTING = "registry.json";
+    private static final String CLASSPATH_META = "/models/" + META;
+
+    private final ObjectMapper objectMapper;
+    private final Path dir;
+    private final String defaultChampion;
+    private final String defaultChallenger;
+    private final double defaultChallengerShare;
+
+    private volatile Routing routing;
+    private String fingerprint;
+
+    private final Counter reloadedCounter;
+    private final Counter rejectedCounter;
+
+    public ModelRegistry(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.ml.registry.dir:}") String dir,
+            @Value("${app.ml.routing.champion:}") String defaultChampion,
+            @Value("${app.ml.routing.challenger:}") String defaultChallenger,
+            @Value("${app.ml.routing.challenger-share:0.0}") double defaultChallengerShare) {
+        this.objectMapper = objectMapper;
+        this.dir = dir == null || dir.isBlank() ? null : Path.of(dir);
+        this.defaultChampion = defaultChampion;
+        this.defaultChallenger = defaultChallenger;
+        this.defaultChallengerShare = defaultChallengerShare;
+
+        this.reloadedCounter = Counter.builder("fraud_model_registry_reloads_total")
+            .description("Model registry reloads, by outcome")
+            .tag("outcome", "applied")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("fraud_model_registry_reloads_total")
+            .description("Model registry reloads, by outcome")
+            .tag("outcome", "rejected")
+            .register(meterRegistry);
+        Gauge.builder("fraud_model_challenger_share", this, r -> r.routing != null ? r.routing.challengerShare() : 0)
+            .description("Share of users routed to the challenger model")
+            .register(meterRegistry);
+
+        reload();
+    }
+
+    public Routing routing() {
+        return routing;
+    }
+
+    /** The model {@code userId} is scored by, or null if no model is registered. */
+    public Route route(String userId) {
+        Routing current = routing;
+        if (current == null) {
+            return null;
+        }
+        if (current.challenger() != null && userId != null && share(userId) < current.challengerShare()) {
+            return new Route(current.challenger(), Role.CHALLENGER);
+        }
+        return new Route(current.champion(), Role.CHAMPION);
+    }
+
+    // Position of the user in [0, 1); a murmur3 finalizer spreads sequential ids
+    static double share(String userId) {
+        int h = userId.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return Integer.toUnsignedLong(h) / 4294967296.0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.ml.registry.reload-ms:10000}")
+    public synchronized void reload() {
+        String current;
+        try {
+            current = fingerprint();
+        } catch (IOException ex) {
+            log.warn("Model registry scan of {} failed: {}", dir, ex.getMessage());
+            return;
+        }
+        if (current.equals(fingerprint)) {
+            return;
+        }
+        try {
+            Routing loaded = load();
+            Routing previous = routing;
+            routing = loaded;
+            fingerprint = current;
+            reloadedCounter.increment();
+            if (previous == null || !sameRoutes(previous, loaded)) {
+                log.info("Model routing: champion={}, challenger={} at {}", loaded.champion().version(),
+                    loaded.challenger() != null ? loaded.challenger().version() : null, loaded.challengerShare());
+            }
+        } catch (IOException | IllegalArgumentException ex) {
+            // Remember the rejected state so it is not retried until something changes again
+            fingerprint = current;
+            rejectedCounter.increment();
+            log.error("Model registry change rejected, keeping the current routing: {}", ex.getMessage());
+            if (routing == null) {
+                throw new IllegalStateException("No usable model registry: " + ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private static boolean sameRoutes(Routing a, Routing b) {
+        return a.champion().version().equals(b.champion().version())
+            && (a.challenger() == null ? b.challenger() == null
+                : b.challenger() != null && a.challenger().version().equals(b.challenger().version()))
+            && a.challengerShare() == b.challengerShare();
+    }
+
+    private Routing load() throws IOException {
+        Map<String, ModelVersion> versions = new LinkedHashMap<>();
+        String rootVersion = null;
+        if (dir == null) {
+            try (InputStream in = getClass().getResourceAsStream(CLASSPATH_META)) {
+                if (in == null) {
+                    throw new IllegalArgumentException("no app.ml.registry.dir and no " + CLASSPATH_META);
+                }
+                ModelVersion root = version(objectMapper.readTree(in), CLASSPATH_META);
+                versions.put(root.version(), root);
+                rootVersion = root.version();
+            }
+        } else {
+            Path rootMeta = dir.resolve(META);
+            if (Files.isRegularFile(rootMeta)) {
+                ModelVersion root = version(objectMapper.readTree(rootMeta.toFile()), rootMeta.toString());
+                versions.put(root.version(), root);
+                rootVersion = root.version();
+            }
+            for (Path meta : versionMetas()) {
+                try {
+                    ModelVersion version = version(objectMapper.readTree(meta.toFile()), meta.toString());
+                    if (!version.version().equals(meta.getParent().getFileName().toString())) {
+                        throw new IllegalArgumentException("model_version does not match its directory");
+                    }
+                    versions.put(version.version(), version);
+                } catch (IOException | IllegalArgumentException ex) {
+                    // Unusable versions are skipped; they only matter if routing names them
+                    log.warn("Skipping model {}: {}", meta, ex.getMessage());
+                }
+            }
+        }
+
+        String champion = defaultChampion;
+        String challenger = defaultChallenger;
+        double challengerShare = defaultChallengerShare;
+        Path routingFile = dir != null ? dir.resolve(ROUTING) : null;
+        if (routingFile != null && Files.isRegularFile(routingFile)) {
+            JsonNode node = objectMapper.readTree(routingFile.toFile());
+            champion = node.path("champion").asText("");
+            challenger = node.path("challenger").asText("");
+            challengerShare = node.path("challengerShare").asDouble(0);
+        }
+        if (champion == null || champion.isBlank()) {
+            champion = rootVersion;
+        }
+        if (champion == null || !versions.containsKey(champion)) {
+            throw new IllegalArgumentException("champion model '%s' is not registered (have %s)"
+                .formatted(champion, versions.keySet()));
+        }
+        ModelVersion challengerModel = null;
+        if (challenger != null && !challenger.isBlank() && !challenger.equals(champion)) {
+            challengerModel = versions.get(challenger);
+            if (challengerModel == null) {
+                throw new IllegalArgumentException("challenger model '%s' is not registered (have %s)"
+                    .formatted(challenger, versions.keySet()));
+            }
+        }
+        if (challengerShare < 0 || challengerShare > 1) {
+            throw new IllegalArgumentException("challengerShare must be between 0 and 1");
+        }
+        return new Routing(versions.get(champion), challengerModel,
+            challengerModel != null ? challengerShare : 0, Map.copyOf(versions));
+    }
+
+    private static ModelVersion version(JsonNode meta, String source) {
+        String version = meta.path("model_version").asText("");
+        if (version.isBlank()) {
+            throw new IllegalArgumentException(source + " has no model_version");
+        }
+        List<String> features = new ArrayList<>();
+        meta.path("features").forEach(name -> features.add(name.asText()));
+        // The positional features, then any of the named extras: anything else cannot be supplied
+        int positional = TransactionFeatures.POSITIONAL_FEATURES.size();
+        if (features.size() < positional
+            || !features.subList(0, positional).equals(TransactionFeatures.POSITIONAL_FEATURES)
+            || !TransactionFeatures.EXTRA_FEATURES.containsAll(features.subList(positional, features.size()))
+            || new HashSet<>(features).size() != features.size()) {
+            throw new IllegalArgumentException("%s: unsupported feature list %s".formatted(source, features));
+        }
+        Map<String, Integer> currencyCodes = null;
+        JsonNode currencies = meta.path("categories").path("currency");
+        if (currencies.isArray()) {
+            currencyCodes = new LinkedHashMap<>();
+            for (int i = 0; i < currencies.size(); i++) {
+                currencyCodes.putIfAbsent(currencies.get(i).asText(), i);
+            }
+            currencyCodes = Map.copyOf(currencyCodes);
+        }
+        return new ModelVersion(version, List.copyOf(features), currencyCodes);
+    }
+
+    private List<Path> versionMetas() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> children = Files.list(dir)) {
+            return children.filter(Files::isDirectory)
+                .map(child -> child.resolve(META))
+                .filter(Files::isRegularFile)
+                .sorted()
+                .toList();
+        }
+    }
+
+    // Changes when any registry file is added, removed or rewritten
+    private String fingerprint() throws IOException {
+        if (dir == null) {
+            return "classpath";
+        }
+        StringBuilder print = new StringBuilder();
+        Set<Path> files = new TreeSet<>(versionMetas());
+        files.add(dir.resolve(META));
+        files.add(dir.resolve(ROUTING));
+        for (Path file : files) {
+            if (Files.isRegularFile(file)) {
+                print.append(file).append('@').append(Files.getLastModifiedTime(file).toMillis())
+                    .append('/').append(Files.size(file)).append(';');
+            }
+        }
+        return print.toString();
+    }
+}
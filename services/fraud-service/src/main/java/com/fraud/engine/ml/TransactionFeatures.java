@@ -3,6 +3,9 @@ package com.fraud.engine.ml;
 import lombok.Builder;
 import lombok.Data;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Features extracted from transaction for ML model prediction
  * Features must match the order in model_meta.json
@@ -10,6 +13,17 @@ import lombok.Data;
 @Data
 @Builder
 public class TransactionFeatures {
+
+    /** Names of the positional features, in {@link #toArray()} order. */
+    public static final List<String> POSITIONAL_FEATURES = List.of(
+        "amount", "hourOfDay", "tx_count_60s", "spend_deviation_ratio",
+        "required_speed_kmph", "is_new_device", "is_new_ip", "rule_burst_60s",
+        "rule_spend_spike", "rule_new_device", "rule_new_ip", "rule_geo_impossible",
+        "rule_odd_hour", "rule_score", "currency");
+
+    /** Names of the {@link #extraFeatures()}. */
+    public static final List<String> EXTRA_FEATURES = List.of("device_users_24h", "ip_users_24h");
+
     // Feature order matches model_meta.json:
     // ["amount", "hourOfDay", "tx_count_60s", "spend_deviation_ratio",
     //  "required_speed_kmph", "is_new_device", "is_new_ip", "rule_burst_60s",
@@ -32,6 +46,10 @@ public class TransactionFeatures {
     private double ruleScore;
     private String currency;    // Currency code (USD, EUR, etc)
 
+    // Newer features, not in the positional array; sent by name (see extraFeatures)
+    private long deviceUsers24h; // distinct users on this device in the last 24h
+    private long ipUsers24h;     // distinct users on this IP in the last 24h
+
     /**
      * Convert to array for ML model input
      * Order must match model_meta.json features array exactly
@@ -56,5 +74,57 @@ public class TransactionFeatures {
             currency
         };
     }
+
+    /**
+     * The features as one float32 row in {@code layout} order (a model's feature list: the
+     * positional features, then any extras), for the binary /predict format. Each slot is looked
+     * up by its name in {@link #POSITIONAL_FEATURES} or {@link #EXTRA_FEATURES}. Currency becomes
+     * its index in the model's category list, -1 when the model never saw it.
+     *
+     * @throws IllegalArgumentException for a name this class cannot supply
+     */
+    public float[] toVector(List<String> layout, Map<String, Integer> currencyCodes) {
+        float[] vector = new float[layout.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = feature(layout.get(i), currencyCodes);
+        }
+        return vector;
+    }
+
+    private float feature(String name, Map<String, Integer> currencyCodes) {
+        return switch (name) {
+            case "amount" -> (float) amount;
+            case "hourOfDay" -> hourOfDay;
+            case "tx_count_60s" -> txCount60s;
+            case "spend_deviation_ratio" -> (float) spendDeviationRatio;
+            case "required_speed_kmph" -> (float) requiredSpeedKmph;
+            case "is_new_device" -> isNewDevice;
+            case "is_new_ip" -> isNewIp;
+            case "rule_burst_60s" -> ruleBurst60s;
+            case "rule_spend_spike" -> ruleSpendSpike;
+            case "rule_new_device" -> ruleNewDevice;
+            case "rule_new_ip" -> ruleNewIp;
+            case "rule_geo_impossible" -> ruleGeoImpossible;
+            case "rule_odd_hour" -> ruleOddHour;
+            case "rule_score" -> (float) ruleScore;
+            // Map.copyOf rejects null lookups
+            case "currency" -> currency != null ? currencyCodes.getOrDefault(currency, -1) : -1;
+            case "device_users_24h" -> deviceUsers24h;
+            case "ip_users_24h" -> ipUsers24h;
+            default -> throw new IllegalArgumentException("Unknown feature " + name);
+        };
+    }
+
+    /**
+     * Features added after the positional array, keyed by their model_meta.json names. The ML
+     * service appends the ones its model was trained with and ignores the rest, so models
+     * trained before they existed keep working.
+     */
+    public Map<String, Object> extraFeatures() {
+        return Map.of(
+            "device_users_24h", deviceUsers24h,
+            "ip_users_24h", ipUsers24h
+        );
+    }
 }
 
@@ -0,0 +1,277 @@
+package com.fraud.engine.payload;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fraud.common.model.Transaction;
+import com.fraud.engine.db.TransactionPayloadRepo;
+import com.fraud.engine.service.DegradationController;
+import com.fraud.engine.stats.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the original transaction events to {@code transaction_payloads} off the consumer's
+ * hot path, and reads them back for the payload endpoint.
+ *
+ * Payloads are queued once the decision commits and a single writer thread serialises,
+ * compresses and batch-inserts them. When the queue is full the caller writes inline, which
+ * slows the consumer down instead of dropping audit data, unless the service is degraded
+ * ({@link DegradationController.Level#DEFER_PAYLOADS}): then the overflow waits in memory, up to
+ * {@code deferred-capacity}, and fills up the writer's batches whenever the queue is empty. A
+ * batch the database rejects goes to the same deferred queue at any level and is retried, up to
+ * {@code max-attempts} writes per payload; what is over capacity or out of attempts is counted
+ * as dropped. Payloads still queued when the process dies are lost; the decision and
+ * transaction rows are not affected.
+ */
+@Slf4j
+@Component
+public class TransactionPayloadStore {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO transaction_payloads (transaction_id, occurred_at, codec, payload)
+        VALUES (?, ?, ?, ?)
+        ON CONFLICT DO NOTHING""";
+
+    private record Pending(Transaction transaction, Instant occurredAt, int attempts) {
+
+        Pending retry() {
+            return new Pending(transaction, occurredAt, attempts + 1);
+        }
+    }
+
+    private final TransactionPayloadRepo payloadRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<Pending> queue;
+    private final Queue<Pending> deferred = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger deferredCount = new AtomicInteger();
+    private final DegradationController degradation;
+    private final int batchSize;
+    private final int deferredCapacity;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+
+    private final Counter writtenCounter;
+    private final Counter inlineCounter;
+    private final Counter deferredCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+    private final Counter droppedCounter;
+    private final Counter rawBytes;
+    private final Counter storedBytes;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public TransactionPayloadStore(
+            TransactionPayloadRepo payloadRepo,
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            DegradationController degradation,
+            @Value("${app.payloads.queue-capacity:10000}") int queueCapacity,
+            @Value("${app.payloads.batch-size:200}") int batchSize,
+            @Value("${app.payloads.deferred-capacity:200000}") int deferredCapacity,
+            @Value("${app.payloads.max-attempts:5}") int maxAttempts,
+            @Value("${app.payloads.retry-backoff-ms:1000}") long retryBackoffMs) {
+        this.payloadRepo = payloadRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.degradation = degradation;
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+        this.batchSize = Math.max(batchSize, 1);
+        this.deferredCapacity = Math.max(deferredCapacity, 0);
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.retryBackoffMs = Math.max(retryBackoffMs, 0);
+
+        Gauge.builder("fraud_payload_queue_size", queue, BlockingQueue::size)
+            .description("Transaction payloads waiting to be written")
+            .register(meterRegistry);
+        Gauge.builder("fraud_payload_deferred_size", deferredCount, AtomicInteger::get)
+            .description("Transaction payloads held back while the service is degraded")
+            .register(meterRegistry);
+        this.writtenCounter = Counter.builder("fraud_payload_writes_total")
+            .description("Transaction payload writes by outcome")
+            .tag("outcome", "written")
+            .register(meterRegistry);
+        this.inlineCounter = Counter.builder("fraud_payload_writes_total")
+            .description("Transaction payload writes by outcome")
+            .tag("outcome", "inline")
+            .register(meterRegistry);
+        this.deferredCounter = Counter.builder("fraud_payload_writes_total")
+            .description("Transaction payload writes by outcome")
+            .tag("outcome", "deferred")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("fraud_payload_writes_total")
+            .description("Transaction payload writes by outcome")
+            .tag("outcome", "failed")
+            .register(meterRegistry);
+        this.retriedCounter = Counter.builder("fraud_payload_writes_total")
+            .description("Transaction payload writes by outcome")
+            .tag("outcome", "retried")
+            .register(meterRegistry);
+        this.droppedCounter = Counter.builder("fraud_payload_writes_total")
+            .description("Transaction payload writes by outcome")
+            .tag("outcome", "dropped")
+            .register(meterRegistry);
+        this.rawBytes = Counter.builder("fraud_payload_bytes_total")
+            .description("Transaction payload bytes before and after compression")
+            .tag("form", "raw")
+            .register(meterRegistry);
+        this.storedBytes = Counter.builder("fraud_payload_bytes_total")
+            .description("Transaction payload bytes before and after compression")
+            .tag("form", "stored")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("payload-writer").daemon().start(this::run);
+    }
+
+    /** Queue the event for writing once the surrounding transaction commits. */
+    public void submit(Transaction transaction, Instant occurredAt) {
+        AfterCommit.run(() -> {
+            Pending pending = new Pending(transaction, occurredAt, 0);
+            if (running && queue.offer(pending)) {
+                return;
+            }
+            if (running && degradation.atLeast(DegradationController.Level.DEFER_PAYLOADS) && defer(pending)) {
+                deferredCounter.increment();
+                return;
+            }
+            inlineCounter.increment();
+            write(List.of(pending));
+        });
+    }
+
+    private boolean defer(Pending pending) {
+        if (deferredCount.incrementAndGet() > deferredCapacity) {
+            deferredCount.decrementAndGet();
+            return false;
+        }
+        deferred.add(pending);
+        return true;
+    }
+
+    /** The original event as JSON, if it was stored. */
+    public Optional<String> find(String transactionId) {
+        return payloadRepo.findById(transactionId)
+            .map(row -> PayloadCodec.decode(row.getCodec(), row.getPayload()));
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || deferredCount.get() > 0) {
+            try {
+                Pending first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                // Queue caught up: fill the rest of the batch with what was deferred
+                if (queue.isEmpty()) {
+                    Pending next;
+                    while (batch.size() < batchSize && (next = deferred.poll()) != null) {
+                        deferredCount.decrementAndGet();
+                        batch.add(next);
+                    }
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                if (!write(batch) && retryBackoffMs > 0) {
+                    // Don't spend the retries of a whole backlog on one outage
+                    Thread.sleep(retryBackoffMs);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.warn("Payload writer failed on a batch of {}: {}", batch.size(), ex.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /** Writes {@code batch}; false when the database rejected it and it was handed to {@link #retry}. */
+    private boolean write(List<Pending> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        List<Pending> attempted = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            try {
+                byte[] json = objectMapper.writeValueAsBytes(pending.transaction());
+                byte[] encoded = PayloadCodec.encode(json);
+                rawBytes.increment(json.length);
+                storedBytes.increment(encoded.length);
+                rows.add(new Object[] {
+                    pending.transaction().getTransactionId(),
+                    LocalDateTime.ofInstant(pending.occurredAt(), ZoneOffset.UTC),
+                    PayloadCodec.JSON_ZSTD,
+                    encoded
+                });
+                attempted.add(pending);
+            } catch (JsonProcessingException ex) {
+                failedCounter.increment();
+                log.warn("Failed to serialise transaction {} for audit", pending.transaction().getTransactionId(), ex);
+            }
+        }
+        if (rows.isEmpty()) {
+            return true;
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            writtenCounter.increment(rows.size());
+            return true;
+        } catch (DataAccessException ex) {
+            failedCounter.increment(rows.size());
+            log.warn("Failed to write {} transaction payloads: {}", rows.size(), ex.getMessage());
+            for (Pending pending : attempted) {
+                retry(pending.retry());
+            }
+            return false;
+        }
+    }
+
+    // The writer picks these up with the degraded overflow once the queue has caught up
+    private void retry(Pending pending) {
+        if (pending.attempts() < maxAttempts && defer(pending)) {
+            retriedCounter.increment();
+            return;
+        }
+        droppedCounter.increment();
+        log.warn("Dropped the unwritten payload of transaction {} ({} failed writes)",
+            pending.transaction().getTransactionId(), pending.attempts());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // Let the writer drain what is queued before the data source closes
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+}
@@ -2,10 +2,15 @@ package com.fraud.engine.redis;
 
 import com.fraud.common.model.Transaction;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Component
@@ -203,4 +208,126 @@ public class RedisState {
         long daysSinceFirstSeen = (nowSec - firstSeenSec.longValue()) / 86400;
         return daysSinceFirstSeen <= withinDays;
     }
+
+    // ─── Shared device / IP link index ───────────────────────────────────
+
+    /** Distinct users seen on a device and on an IP over {@link #LINK_WINDOW_SEC}, this one included. */
+    public static record LinkedUsers(long deviceUsers, long ipUsers) {
+        public static final LinkedUsers NONE = new LinkedUsers(0, 0);
+    }
+
+    public static final long LINK_WINDOW_SEC = 24 * 3600;
+    // HyperLogLogs per 6h bucket; a lookup merges the current bucket and the four before it,
+    // so it covers at least the last 24h (at most 30h)
+    static final long LINK_BUCKET_SEC = 6 * 3600;
+    static final int LINK_BUCKETS = 5;
+    static final long LINK_BUCKET_TTL_SEC = LINK_BUCKETS * LINK_BUCKET_SEC + 3600;
+
+    /*
+     * One side (device or IP): KEYS[1] is the exact sample (ZSET of user -> last seen), then the
+     * HLL buckets, newest first. The sample holds the most recent ARGV[2] users of the window;
+     * while it is not full it is the exact answer, past that the merged HLLs (~0.8% error) are.
+     */
+    private static final RedisScript<Long> LINK_USERS = RedisScript.of("""
+            local user, sampleSize = ARGV[1], tonumber(ARGV[2])
+            local now, window, bucketTtl = tonumber(ARGV[3]), tonumber(ARGV[4]), tonumber(ARGV[5])
+            local sample = KEYS[1]
+            redis.call('PFADD', KEYS[2], user)
+            redis.call('EXPIRE', KEYS[2], bucketTtl)
+            redis.call('ZADD', sample, now, user)
+            redis.call('ZREMRANGEBYSCORE', sample, '-inf', now - window)
+            redis.call('EXPIRE', sample, window)
+            local exact = redis.call('ZCARD', sample)
+            if exact < sampleSize then
+              return exact
+            end
+            if exact > sampleSize then
+              redis.call('ZREMRANGEBYRANK', sample, 0, exact - sampleSize - 1)
+            end
+            return math.max(redis.call('PFCOUNT', unpack(KEYS, 2)), sampleSize)
+            """, Long.class);
+
+    /**
+     * Link {@code userId} to the transaction's device and IP and return how many distinct users
+     * each has been seen with; one script call per side, a constant number of keys each.
+     * @param sampleSize users per device/IP counted exactly before switching to the HyperLogLog
+     */
+    public LinkedUsers linkUsers(String userId, String deviceId, String ip, long nowSec, int sampleSize) {
+        boolean hasDevice = deviceId != null && !deviceId.isBlank();
+        boolean hasIp = ip != null && !ip.isBlank();
+        if (userId == null || (!hasDevice && !hasIp)) {
+            return LinkedUsers.NONE;
+        }
+        long deviceUsers = hasDevice ? link(linkKeys("device", deviceId, nowSec), userId, nowSec, sampleSize) : 0;
+        long ipUsers = hasIp ? link(linkKeys("ip", ip, nowSec), userId, nowSec, sampleSize) : 0;
+        return new LinkedUsers(deviceUsers, ipUsers);
+    }
+
+    private long link(List<String> keys, String userId, long nowSec, int sampleSize) {
+        Long count = redis.execute(LINK_USERS, keys, userId, String.valueOf(sampleSize), String.valueOf(nowSec),
+                String.valueOf(LINK_WINDOW_SEC), String.valueOf(LINK_BUCKET_TTL_SEC));
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Keys of one side of the link index at {@code nowSec}: the sample, then the buckets newest
+     * first. The {@code {id}} hash tag keeps them in one cluster slot, so the script can take
+     * them all; the device and the IP of a transaction generally live in different slots.
+     */
+    static List<String> linkKeys(String side, String id, long nowSec) {
+        String prefix = "%s:{%s}:users".formatted(side, id);
+        long bucket = nowSec / LINK_BUCKET_SEC;
+        List<String> keys = new ArrayList<>(LINK_BUCKETS + 1);
+        keys.add(prefix);
+        for (int i = 0; i < LINK_BUCKETS; i++) {
+            keys.add(prefix + ":" + (bucket - i));
+        }
+        return keys;
+    }
+
+    // ─── Degraded path ───────────────────────────────────────────────────
+
+    /**
+     * The writes of {@link #recordAmount}, {@link #recordDevice}, {@link #recordIp} and
+     * {@link #linkUsers} in one pipelined round trip, reading nothing back. For decisions that
+     * skip those rules under load: the state still sees the transaction, so its device and IP are
+     * not "new" again once the rules are back, and medians and link counts stay current.
+     */
+    public void recordQuietly(String userId, double amount, int historySize, String deviceId, String ip,
+                              long nowSec) {
+        boolean hasDevice = deviceId != null && !deviceId.isBlank();
+        boolean hasIp = ip != null && !ip.isBlank();
+        long keepSec = TimeUnit.DAYS.toSeconds(90);
+        redis.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection c = (StringRedisConnection) connection;
+            String amounts = "user:%s:amounts".formatted(userId);
+            c.lPush(amounts, String.valueOf(amount));
+            c.lTrim(amounts, 0, historySize - 1);
+            c.expire(amounts, keepSec);
+            if (hasDevice) {
+                String devices = "user:%s:device_times".formatted(userId);
+                c.zAdd(devices, nowSec, deviceId);
+                c.expire(devices, keepSec);
+                linkQuietly(c, linkKeys("device", deviceId, nowSec), userId, nowSec);
+            }
+            if (hasIp) {
+                String ips = "user:%s:ip_times".formatted(userId);
+                c.zAdd(ips, nowSec, ip);
+                c.expire(ips, keepSec);
+                linkQuietly(c, linkKeys("ip", ip, nowSec), userId, nowSec);
+            }
+            return null;
+        });
+    }
+
+    // The link script's writes; the next script call trims the sample back to its size
+    private static void linkQuietly(StringRedisConnection c, List<String> keys, String userId, long nowSec) {
+        String sample = keys.get(0);
+        String bucket = keys.get(1);
+        c.pfAdd(bucket, userId);
+        c.expire(bucket, LINK_BUCKET_TTL_SEC);
+        c.zAdd(sample, nowSec, userId);
+        c.zRemRangeByScore(sample, Double.NEGATIVE_INFINITY, nowSec - LINK_WINDOW_SEC);
+        c.expire(sample, LINK_WINDOW_SEC);
+    }
 }
@@ -0,0 +1,383 @@
+package com.fraud.engine.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fraud.common.model.Transaction;
+import com.fraud.engine.config.RulesProperties;
+import com.fraud.engine.db.ReasonCodeRegistry;
+import com.fraud.engine.payload.PayloadCodec;
+import com.fraud.engine.service.MerchantRules;
+import com.fraud.engine.service.RuleEngine;
+import com.fraud.engine.service.SignalRules;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Re-runs stored transactions through the rules with candidate thresholds, without Kafka and
+ * without touching the production Redis.
+ *
+ * A single reader streams {@code transaction_payloads} in event-time order from a server-side
+ * cursor (read-only, so it lands on the replica when one is configured) and deals rows out to
+ * shards by user. Each shard runs as one task in a fork-join pool and owns the in-memory
+ * {@link UserState} of its users, so per-user order is kept and no state is shared; it
+ * decompresses and parses the payload itself, keeping the reader cheap. Shards aggregate
+ * privately and are merged once at the end.
+ *
+ * Replayed decisions are rule-only: the model is not called, so the REVIEW band stays REVIEW.
+ * Stored decisions the model resolved therefore count as REVIEW when comparing. Like the
+ * device/IP links, per-merchant windows span users and are not rebuilt, so merchant rules are
+ * not replayed: stored decisions carrying a {@code merchant_*} reason are reported under
+ * {@code MERCHANT_RULES} in {@code versusStored} and never count as changed.
+ */
+@Slf4j
+@Component
+public class ReplayEngine {
+
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    public record Report(
+            long transactions,
+            long failed,
+            long users,
+            Map<String, Long> decisions,
+            Map<String, Map<String, Long>> versusStored,
+            long changed,
+            List<String> changedSample,
+            long elapsedMs,
+            long perMinute,
+            SignalRules.Thresholds thresholds) {
+    }
+
+    public record Status(State state, Instant from, Instant to, Instant startedAt, long processed,
+                         Report report, String error) {
+    }
+
+    private static final String SQL = """
+        SELECT t.user_id, p.occurred_at, p.codec, p.payload, d.decision,
+               %s AS model_decided, %s AS merchant_scored
+        FROM transaction_payloads p
+        JOIN transactions t ON t.transaction_id = p.transaction_id AND t.occurred_at = p.occurred_at
+        LEFT JOIN LATERAL (
+            SELECT decision, reason_codes FROM fraud_decisions
+            WHERE transaction_id = p.transaction_id
+            ORDER BY evaluated_at DESC
+            LIMIT 1) d ON TRUE
+        WHERE p.occurred_at >= ? AND p.occurred_at < ?
+        ORDER BY p.occurred_at""";
+
+    static final String[] DECISIONS = {"ALLOW", "REVIEW", "BLOCK"};
+    private static final int NO_STORED_DECISION = DECISIONS.length;
+    // Stored decisions merchant rules contributed to, which replay cannot reproduce
+    private static final int MERCHANT_SCORED = DECISIONS.length + 1;
+    private static final int CHANGED_SAMPLE_PER_SHARD = 20;
+
+    private record Row(String userId, long epochSec, String codec, byte[] payload, int storedZone) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper objectMapper;
+    private final ReasonCodeRegistry reasonCodeRegistry;
+    private final RulesProperties rules;
+    private final Counter replayedCounter;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Status status;
+    private final LongAdder progress = new LongAdder();
+
+    @Value("${app.replay.shards:0}")
+    private int shards;
+
+    @Value("${app.replay.batch-size:512}")
+    private int batchSize;
+
+    public ReplayEngine(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            ReasonCodeRegistry reasonCodeRegistry,
+            RulesProperties rules,
+            MeterRegistry meterRegistry,
+            @Value("${app.replay.fetch-size:10000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.reasonCodeRegistry = reasonCodeRegistry;
+        this.rules = rules;
+        this.replayedCounter = Counter.builder("fraud_replay_transactions_total")
+            .description("Stored transactions re-scored by replay runs")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Production thresholds with {@code overrides} applied; keys are the {@code app.rules.*}
+     * names without the prefix (e.g. {@code burst.count}), plus {@code decision.review} and
+     * {@code decision.block} for the score bands.
+     *
+     * @throws IllegalArgumentException for unknown keys or unparsable values
+     */
+    public SignalRules.Thresholds thresholds(Map<String, String> overrides) {
+        return rules.thresholds(overrides);
+    }
+
+    /** Start a replay in the background; false if one is already running. */
+    public boolean start(Instant from, Instant to, SignalRules.Thresholds thresholds) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Instant startedAt = Instant.now();
+        progress.reset();
+        status = new Status(State.RUNNING, from, to, startedAt, 0, null, null);
+        Thread.ofPlatform().name("replay").start(() -> {
+            try {
+                Report report = run(from, to, thresholds);
+                status = new Status(State.COMPLETED, from, to, startedAt, report.transactions(), report, null);
+                log.info("Replay {} - {} re-scored {} transactions in {} ms ({} changed)",
+                    from, to, report.transactions(), report.elapsedMs(), report.changed());
+            } catch (RuntimeException ex) {
+                status = new Status(State.FAILED, from, to, startedAt, progress.sum(), null, ex.getMessage());
+                log.error("Replay {} - {} failed", from, to, ex);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public Optional<Status> status() {
+        Status current = status;
+        if (current != null && current.state() == State.RUNNING) {
+            return Optional.of(new Status(current.state(), current.from(), current.to(), current.startedAt(),
+                progress.sum(), null, null));
+        }
+        return Optional.ofNullable(current);
+    }
+
+    Report run(Instant from, Instant to, SignalRules.Thresholds thresholds) {
+        long started = System.nanoTime();
+        int shardCount = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        int batch = Math.max(batchSize, 1);
+        List<Shard> workers = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            workers.add(new Shard(thresholds));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(shardCount);
+        try {
+            List<ForkJoinTask<?>> tasks = workers.stream().<ForkJoinTask<?>>map(shard -> pool.submit(shard::drain)).toList();
+            try {
+                read(from, to, workers, batch);
+            } finally {
+                for (Shard shard : workers) {
+                    shard.close();
+                }
+            }
+            tasks.forEach(ForkJoinTask::join);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return merge(workers, thresholds, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void read(Instant from, Instant to, List<Shard> workers, int batch) {
+        // Stored decisions carrying a model reason were in the REVIEW band before the model ran
+        String sql = SQL.formatted(
+            carriesAnyOf(List.of("ml_approved", "ml_flagged_as_fraud")), carriesAnyOf(MerchantRules.REASONS));
+        List<List<Row>> pending = new ArrayList<>(workers.size());
+        for (int i = 0; i < workers.size(); i++) {
+            pending.add(new ArrayList<>(batch));
+        }
+
+        readOnlyTx.executeWithoutResult(status -> jdbcTemplate.query(
+            con -> {
+                PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(jdbcTemplate.getFetchSize());
+                ps.setObject(1, LocalDateTime.ofInstant(from, ZoneOffset.UTC));
+                ps.setObject(2, LocalDateTime.ofInstant(to, ZoneOffset.UTC));
+                return ps;
+            },
+            (RowCallbackHandler) rs -> {
+                String userId = rs.getString(1);
+                String stored = rs.getString(5);
+                int storedZone = stored == null ? NO_STORED_DECISION
+                    : rs.getBoolean(7) ? MERCHANT_SCORED
+                    : rs.getBoolean(6) ? 1 : indexOf(stored);
+                Row row = new Row(userId,
+                    rs.getObject(2, LocalDateTime.class).toEpochSecond(ZoneOffset.UTC),
+                    rs.getString(3), rs.getBytes(4), storedZone);
+                int shard = Math.floorMod(userId.hashCode(), workers.size());
+                List<Row> rows = pending.get(shard);
+                rows.add(row);
+                if (rows.size() == batch) {
+                    workers.get(shard).offer(rows);
+                    pending.set(shard, new ArrayList<>(batch));
+                }
+            }));
+
+        for (int i = 0; i < workers.size(); i++) {
+            if (!pending.get(i).isEmpty()) {
+                workers.get(i).offer(pending.get(i));
+            }
+        }
+    }
+
+    // Whether the stored decision carries any of these reasons
+    private String carriesAnyOf(List<String> reasons) {
+        String codes = reasons.stream()
+            .map(reasonCodeRegistry::find)
+            .flatMap(Optional::stream)
+            .map(String::valueOf)
+            .collect(Collectors.joining(","));
+        return codes.isEmpty() ? "FALSE" : "COALESCE(d.reason_codes && '{%s}'::smallint[], FALSE)".formatted(codes);
+    }
+
+    private static int indexOf(String decision) {
+        for (int i = 0; i < DECISIONS.length; i++) {
+            if (DECISIONS[i].equals(decision)) {
+                return i;
+            }
+        }
+        return NO_STORED_DECISION;
+    }
+
+    private Report merge(List<Shard> workers, SignalRules.Thresholds thresholds, long elapsedMs) {
+        long transactions = 0;
+        long failed = 0;
+        long users = 0;
+        long changed = 0;
+        long[][] matrix = new long[MERCHANT_SCORED + 1][DECISIONS.length];
+        List<String> changedSample = new ArrayList<>();
+        for (Shard shard : workers) {
+            transactions += shard.transactions;
+            failed += shard.failed;
+            users += shard.users.size();
+            changed += shard.changed;
+            changedSample.addAll(shard.changedSample);
+            for (int s = 0; s < matrix.length; s++) {
+                for (int r = 0; r < DECISIONS.length; r++) {
+                    matrix[s][r] += shard.matrix[s][r];
+                }
+            }
+        }
+
+        Map<String, Long> decisions = new LinkedHashMap<>();
+        Map<String, Map<String, Long>> versusStored = new LinkedHashMap<>();
+        for (int r = 0; r < DECISIONS.length; r++) {
+            long total = 0;
+            for (long[] stored : matrix) {
+                total += stored[r];
+            }
+            decisions.put(DECISIONS[r], total);
+        }
+        for (int s = 0; s < matrix.length; s++) {
+            Map<String, Long> replayed = new LinkedHashMap<>();
+            for (int r = 0; r < DECISIONS.length; r++) {
+                replayed.put(DECISIONS[r], matrix[s][r]);
+            }
+            versusStored.put(s == NO_STORED_DECISION ? "NONE" : s == MERCHANT_SCORED ? "MERCHANT_RULES" : DECISIONS[s],
+                replayed);
+        }
+        long perMinute = elapsedMs > 0 ? transactions * 60_000 / elapsedMs : transactions;
+        return new Report(transactions, failed, users, decisions, versusStored, changed,
+            changedSample, elapsedMs, perMinute, thresholds);
+    }
+
+    /** One user partition: its rows arrive in event-time order, and it alone owns their state. */
+    private final class Shard {
+
+        private static final List<Row> END = List.of();
+
+        private final BlockingQueue<List<Row>> inbox = new ArrayBlockingQueue<>(8);
+        private final SignalRules.Thresholds thresholds;
+        private final Map<String, UserState> users = new HashMap<>();
+        private final long[][] matrix = new long[MERCHANT_SCORED + 1][DECISIONS.length];
+        private final List<String> changedSample = new ArrayList<>();
+        private long transactions;
+        private long failed;
+        private long changed;
+
+        Shard(SignalRules.Thresholds thresholds) {
+            this.thresholds = thresholds;
+        }
+
+        void offer(List<Row> rows) {
+            try {
+                inbox.put(rows);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Replay interrupted", ex);
+            }
+        }
+
+        void close() {
+            offer(END);
+        }
+
+        void drain() {
+            try {
+                List<Row> rows;
+                while ((rows = inbox.take()) != END) {
+                    for (Row row : rows) {
+                        score(row);
+                    }
+                    progress.add(rows.size());
+                    replayedCounter.increment(rows.size());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void score(Row row) {
+            Transaction tx;
+            int replayed;
+            try {
+                tx = objectMapper.readValue(PayloadCodec.decodeJson(row.codec(), row.payload()), Transaction.class);
+                UserState state = users.computeIfAbsent(row.userId(), id -> new UserState());
+                SignalRules.Signals signals = state.observe(tx, row.epochSec(), thresholds);
+                RuleEngine.Result result = SignalRules.apply(RuleEngine.evaluate(tx), tx.getAmount(), signals, thresholds);
+                replayed = indexOf(thresholds.decision(Math.min(result.score(), 100)));
+            } catch (Exception ex) {
+                // A shard must never die mid-run: the reader would block on its full inbox
+                failed++;
+                return;
+            }
+
+            transactions++;
+            matrix[row.storedZone()][replayed]++;
+            if (row.storedZone() < DECISIONS.length && row.storedZone() != replayed) {
+                changed++;
+                if (changedSample.size() < CHANGED_SAMPLE_PER_SHARD) {
+                    changedSample.add(tx.getTransactionId());
+                }
+            }
+        }
+    }
+}
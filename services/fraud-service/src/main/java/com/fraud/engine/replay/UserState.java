@@ -0,0 +1,138 @@
+package com.fraud.engine.replay;
+
+import com.fraud.common.model.Transaction;
+import com.fraud.engine.redis.RedisState;
+import com.fraud.engine.service.SignalRules;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * One user's rule state during a replay: the in-memory counterpart of the {@link RedisState}
+ * keys, with the same semantics (transaction times are per distinct second, like the ZSET
+ * members; keys expire after the same idle periods). Owned by a single shard, never shared.
+ */
+final class UserState {
+
+    private static final long DAY_SEC = 86_400;
+    private static final long SET_TTL_SEC = 90 * DAY_SEC;
+    private static final long LOCATION_TTL_SEC = 30 * DAY_SEC;
+
+    // Transaction times still inside the burst window: times[first..last)
+    private long[] times = new long[4];
+    private int first;
+    private int last;
+
+    private double[] amounts;
+    private int amountCount;
+    private int amountNext;
+    private long amountsTouchedAt;
+
+    private Set<String> devices;
+    private long devicesTouchedAt;
+    private Set<String> ips;
+    private long ipsTouchedAt;
+
+    private boolean hasLocation;
+    private double lat;
+    private double lon;
+    private long locationAt;
+
+    /** Read the signals for {@code tx} at {@code nowSec}, then record it, in FraudProcessor's order. */
+    SignalRules.Signals observe(Transaction tx, long nowSec, SignalRules.Thresholds thresholds) {
+        long burstCount = burstCount(nowSec, thresholds.burstWindowSec());
+        recordTime(nowSec);
+
+        double median = medianAmount(nowSec);
+        recordAmount(tx.getAmount(), nowSec, thresholds.spendHistorySize());
+
+        boolean newDevice = false;
+        boolean newIp = false;
+        if (tx.getDevice() != null) {
+            newDevice = recordDevice(tx.getDevice().getId(), nowSec);
+            newIp = recordIp(tx.getDevice().getIp(), nowSec);
+        }
+
+        double speed = Double.NaN;
+        if (tx.getLocation() != null && tx.getLocation().getLat() != null && tx.getLocation().getLon() != null) {
+            if (hasLocation && nowSec - locationAt <= LOCATION_TTL_SEC) {
+                double km = RedisState.haversineKm(lat, lon, tx.getLocation().getLat(), tx.getLocation().getLon());
+                long dt = Math.max(1, nowSec - locationAt);
+                speed = km / (dt / 3600.0);
+            }
+            hasLocation = true;
+            lat = tx.getLocation().getLat();
+            lon = tx.getLocation().getLon();
+            locationAt = nowSec;
+        }
+        // Device/IP links span users (and so shards); replay does not rebuild them
+        return new SignalRules.Signals(burstCount, median, newDevice, newIp, 0, 0, speed);
+    }
+
+    private long burstCount(long nowSec, int windowSec) {
+        while (first < last && times[first] < nowSec - windowSec) {
+            first++;
+        }
+        return last - first;
+    }
+
+    private void recordTime(long nowSec) {
+        if (last > first && times[last - 1] == nowSec) {
+            return;
+        }
+        if (last == times.length) {
+            int live = last - first;
+            if (live * 2 > times.length) {
+                times = Arrays.copyOf(times, times.length * 2);
+            }
+            System.arraycopy(times, first, times, 0, live);
+            first = 0;
+            last = live;
+        }
+        times[last++] = nowSec;
+    }
+
+    private double medianAmount(long nowSec) {
+        if (amountCount == 0 || nowSec - amountsTouchedAt > SET_TTL_SEC) {
+            return 0.0;
+        }
+        double[] sorted = Arrays.copyOf(amounts, amountCount);
+        Arrays.sort(sorted);
+        int size = sorted.length;
+        return size % 2 == 0 ? (sorted[size / 2 - 1] + sorted[size / 2]) / 2.0 : sorted[size / 2];
+    }
+
+    private void recordAmount(double amount, long nowSec, int historySize) {
+        if (amounts == null || amounts.length != historySize || nowSec - amountsTouchedAt > SET_TTL_SEC) {
+            amounts = new double[Math.max(historySize, 1)];
+            amountCount = 0;
+            amountNext = 0;
+        }
+        amounts[amountNext] = amount;
+        amountNext = (amountNext + 1) % amounts.length;
+        amountCount = Math.min(amountCount + 1, amounts.length);
+        amountsTouchedAt = nowSec;
+    }
+
+    private boolean recordDevice(String deviceId, long nowSec) {
+        if (deviceId == null || deviceId.isBlank()) {
+            return false;
+        }
+        if (devices == null || nowSec - devicesTouchedAt > SET_TTL_SEC) {
+            devices = new HashSet<>(4);
+        }
+        devicesTouchedAt = nowSec;
+        return devices.add(deviceId);
+    }
+
+    private boolean recordIp(String ip, long nowSec) {
+        if (ip == null || ip.isBlank()) {
+            return false;
+        }
+        if (ips == null || nowSec - ipsTouchedAt > SET_TTL_SEC) {
+            ips = new HashSet<>(4);
+        }
+        ipsTouchedAt = nowSec;
+        return ips.add(ip);
+    }
+}
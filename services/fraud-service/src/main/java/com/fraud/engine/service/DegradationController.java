@@ -0,0 +1,202 @@
+package com.fraud.engine.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sheds optional work from the decision pipeline while fraud-service is behind, so blocked
+ * payments are not kept waiting on a backlog.
+ *
+ * Every check interval the controller reads the main consumer's lag and the p99 of the
+ * decisions made since the last check. Pressure (either above its high mark) that lasts
+ * {@code escalate-checks} raises the level by one; calm (both below their low marks) that
+ * lasts {@code recover-checks} lowers it by one. Levels are cumulative:
+ * <ol>
+ *   <li>{@link Level#SKIP_ML}: the REVIEW band stays REVIEW instead of calling the model</li>
+ *   <li>{@link Level#DEFER_PAYLOADS}: payloads that don't fit the writer queue wait in memory
+ *       instead of being written on the consumer thread</li>
+ *   <li>{@link Level#SKIP_OPTIONAL_RULES}: the spend-spike and device/IP rules are skipped (their
+ *       state is still written); burst and geo-impossible always run</li>
+ * </ol>
+ * Independently, a single event that has used up its latency budget skips the model and the
+ * optional rules. Decisions affected either way carry the {@code degraded} reason.
+ */
+@Slf4j
+@Component
+public class DegradationController {
+
+    public enum Level { NORMAL, SKIP_ML, DEFER_PAYLOADS, SKIP_OPTIONAL_RULES }
+
+    public static final String REASON = "degraded";
+
+    private static final Level[] LEVELS = Level.values();
+    private static final int LATENCY_SAMPLES = 4096;
+
+    /** Pressure and calm marks, and how many checks in a row move the level. */
+    record Limits(long lagHigh, long lagLow, long p99HighMs, long p99LowMs, int escalateChecks, int recoverChecks) {
+    }
+
+    private final LongSupplier consumerLag;
+    private final boolean enabled;
+    private final long budgetNanos;
+    private final Limits limits;
+
+    private volatile Level level = Level.NORMAL;
+    private int pressuredChecks;
+    private int calmChecks;
+
+    // Decision latencies since the last check; overflow beyond the buffer is not sampled
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+
+    private final Counter skippedMl;
+    private final Counter skippedRules;
+
+    @Autowired
+    public DegradationController(
+            KafkaListenerEndpointRegistry listenerRegistry,
+            MeterRegistry meterRegistry,
+            @Value("${app.degradation.enabled:true}") boolean enabled,
+            @Value("${app.degradation.budget-ms:250}") long budgetMs,
+            @Value("${app.topics.in}") String mainTopic,
+            @Value("${app.degradation.lag-high:5000}") long lagHigh,
+            @Value("${app.degradation.lag-low:500}") long lagLow,
+            @Value("${app.degradation.p99-high-ms:250}") long p99HighMs,
+            @Value("${app.degradation.p99-low-ms:100}") long p99LowMs,
+            @Value("${app.degradation.escalate-checks:3}") int escalateChecks,
+            @Value("${app.degradation.recover-checks:10}") int recoverChecks) {
+        this(() -> consumerLag(listenerRegistry, mainTopic), meterRegistry, enabled, budgetMs,
+            new Limits(lagHigh, lagLow, p99HighMs, p99LowMs, escalateChecks, recoverChecks));
+    }
+
+    DegradationController(LongSupplier consumerLag, MeterRegistry meterRegistry, boolean enabled, long budgetMs,
+                          Limits limits) {
+        this.consumerLag = consumerLag;
+        this.enabled = enabled;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        this.limits = limits;
+
+        Gauge.builder("fraud_degradation_level", this, c -> c.level.ordinal())
+            .description("Current degradation level (0 = full pipeline)")
+            .register(meterRegistry);
+        this.skippedMl = Counter.builder("fraud_degraded_decisions_total")
+            .description("Decisions that skipped part of the pipeline, by what was skipped")
+            .tag("skipped", "ml")
+            .register(meterRegistry);
+        this.skippedRules = Counter.builder("fraud_degraded_decisions_total")
+            .description("Decisions that skipped part of the pipeline, by what was skipped")
+            .tag("skipped", "optional-rules")
+            .register(meterRegistry);
+    }
+
+    public Level level() {
+        return level;
+    }
+
+    public boolean atLeast(Level step) {
+        return level.ordinal() >= step.ordinal();
+    }
+
+    /** Whether the event started at {@code startNanos} should skip the model call. */
+    public boolean skipMl(long startNanos) {
+        if (atLeast(Level.SKIP_ML) || overBudget(startNanos)) {
+            skippedMl.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /** Whether the event started at {@code startNanos} should skip the optional Redis rules. */
+    public boolean skipOptionalRules(long startNanos) {
+        if (atLeast(Level.SKIP_OPTIONAL_RULES) || overBudget(startNanos)) {
+            skippedRules.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean overBudget(long startNanos) {
+        return enabled && budgetNanos > 0 && System.nanoTime() - startNanos > budgetNanos;
+    }
+
+    /** Feed one decision's end-to-end latency into the p99 of the current check interval. */
+    public synchronized void recordLatency(long nanos) {
+        if (latencyCount < latencies.length) {
+            latencies[latencyCount++] = nanos;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.degradation.check-ms:1000}")
+    public void check() {
+        if (!enabled) {
+            return;
+        }
+        long p99Ms = TimeUnit.NANOSECONDS.toMillis(drainP99());
+        long lag = consumerLag.getAsLong();
+        boolean pressured = lag > limits.lagHigh() || p99Ms > limits.p99HighMs();
+        boolean calm = lag < limits.lagLow() && p99Ms < limits.p99LowMs();
+
+        pressuredChecks = pressured ? pressuredChecks + 1 : 0;
+        calmChecks = calm ? calmChecks + 1 : 0;
+        Level current = level;
+        if (pressuredChecks >= limits.escalateChecks() && current.ordinal() < LEVELS.length - 1) {
+            move(LEVELS[current.ordinal() + 1], lag, p99Ms);
+        } else if (calmChecks >= limits.recoverChecks() && current != Level.NORMAL) {
+            move(LEVELS[current.ordinal() - 1], lag, p99Ms);
+        }
+    }
+
+    private void move(Level next, long lag, long p99Ms) {
+        log.warn("Degradation level {} -> {} (lag {}, p99 {} ms)", level, next, lag, p99Ms);
+        level = next;
+        pressuredChecks = 0;
+        calmChecks = 0;
+    }
+
+    private long drainP99() {
+        long[] sample;
+        synchronized (this) {
+            sample = Arrays.copyOf(latencies, latencyCount);
+            latencyCount = 0;
+        }
+        if (sample.length == 0) {
+            return 0;
+        }
+        Arrays.sort(sample);
+        return sample[(int) Math.ceil(sample.length * 0.99) - 1];
+    }
+
+    // records-lag-max of the consumers reading the main topic (retry tiers don't count)
+    private static long consumerLag(KafkaListenerEndpointRegistry listenerRegistry, String mainTopic) {
+        double lag = 0;
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            String[] topics = container.getContainerProperties().getTopics();
+            if (topics == null || !Arrays.asList(topics).contains(mainTopic)) {
+                continue;
+            }
+            for (Map<MetricName, ? extends Metric> metrics : container.metrics().values()) {
+                for (Map.Entry<MetricName, ? extends Metric> metric : metrics.entrySet()) {
+                    if ("records-lag-max".equals(metric.getKey().name())
+                            && metric.getValue().metricValue() instanceof Double value && !value.isNaN()) {
+                        lag = Math.max(lag, value);
+                    }
+                }
+            }
+        }
+        return (long) lag;
+    }
+}
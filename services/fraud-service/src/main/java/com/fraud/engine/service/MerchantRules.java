@@ -0,0 +1,57 @@
+package com.fraud.engine.service;
+
+import com.fraud.engine.merchant.MerchantVelocity;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merchant-level rules over {@link MerchantVelocity} window totals. They catch attacks spread
+ * over many users at one merchant (card testing), which the per-user rules cannot see. A merchant
+ * with less than {@code minTransactions} in the window is not judged.
+ */
+public final class MerchantRules {
+
+    public static final String VELOCITY = "merchant_velocity";
+    public static final String CARD_TESTING = "merchant_card_testing";
+    public static final String HIGH_FLAG_RATE = "merchant_high_flag_rate";
+    /** Every reason these rules add. */
+    public static final List<String> REASONS = List.of(VELOCITY, CARD_TESTING, HIGH_FLAG_RATE);
+
+    /** Rule knobs, mirroring {@code app.rules.merchant.*}. */
+    public record Thresholds(
+            long minTransactions,
+            long velocityMax,
+            int velocityScore,
+            long cardTestingUsers,
+            double cardTestingSmallShare,
+            int cardTestingScore,
+            double flagRateMax,
+            int flagRateScore) {
+    }
+
+    private MerchantRules() {
+    }
+
+    /** {@code base} plus the merchant rules; the score is not capped. */
+    public static RuleEngine.Result apply(RuleEngine.Result base, MerchantVelocity.Snapshot merchant, Thresholds t) {
+        if (merchant.transactions() < t.minTransactions()) {
+            return base;
+        }
+        double score = base.score();
+        List<String> reasons = new ArrayList<>(base.reasons());
+        if (merchant.transactions() >= t.velocityMax()) {
+            score += t.velocityScore();
+            reasons.add(VELOCITY);
+        }
+        // Many cards, each tried once for a tiny amount
+        if (merchant.distinctUsers() >= t.cardTestingUsers() && merchant.smallAmountShare() >= t.cardTestingSmallShare()) {
+            score += t.cardTestingScore();
+            reasons.add(CARD_TESTING);
+        }
+        if (merchant.flaggedShare() >= t.flagRateMax()) {
+            score += t.flagRateScore();
+            reasons.add(HIGH_FLAG_RATE);
+        }
+        return new RuleEngine.Result(score, reasons);
+    }
+}
@@ -0,0 +1,87 @@
+package com.fraud.engine.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The per-user rules (burst, spend spike, new device/IP, shared device/IP, geo-impossible) applied to signals that
+ * were already read from user state. The live path ({@code FraudProcessor}), shadow evaluation
+ * and historical replay all score through here, so they share scores and reason names.
+ */
+public final class SignalRules {
+
+    /** Rule knobs, bound from {@code app.rules.*} by {@code RulesProperties}. */
+    public record Thresholds(
+            int burstWindowSec,
+            int burstCount,
+            int burstScore,
+            double geoMaxSpeedKmph,
+            int geoScore,
+            int deviceScore,
+            int ipScore,
+            double spendMultiplier,
+            int spendScore,
+            int spendHistorySize,
+            long sharedDeviceMaxUsers,
+            int sharedDeviceScore,
+            long sharedIpMaxUsers,
+            int sharedIpScore,
+            double reviewThreshold,
+            double blockThreshold) {
+
+        public String decision(double score) {
+            if (score >= blockThreshold) return "BLOCK";
+            if (score >= reviewThreshold) return "REVIEW";
+            return "ALLOW";
+        }
+    }
+
+    /**
+     * User state as seen before this transaction was recorded.
+     *
+     * @param deviceUsers distinct users on this device in the last 24h, this one included (0 if unknown)
+     * @param ipUsers distinct users on this IP in the last 24h, this one included (0 if unknown)
+     * @param speedKmph travel speed from the previous location, or NaN when there is none
+     */
+    public record Signals(long burstCount, double medianAmount, boolean newDevice, boolean newIp,
+                          long deviceUsers, long ipUsers, double speedKmph) {
+    }
+
+    private SignalRules() {
+    }
+
+    /** {@code base} (the stateless rules) plus the per-user rules; the score is not capped. */
+    public static RuleEngine.Result apply(RuleEngine.Result base, double amount, Signals signals, Thresholds t) {
+        double score = base.score();
+        List<String> reasons = new ArrayList<>(base.reasons());
+        if (signals.burstCount() >= t.burstCount()) {
+            score += t.burstScore();
+            reasons.add("burst_%ds".formatted(t.burstWindowSec()));
+        }
+        if (signals.medianAmount() > 0 && amount >= signals.medianAmount() * t.spendMultiplier()) {
+            score += t.spendScore();
+            reasons.add("spend_spike");
+        }
+        if (signals.newDevice()) {
+            score += t.deviceScore();
+            reasons.add("new_device");
+        }
+        if (signals.newIp()) {
+            score += t.ipScore();
+            reasons.add("new_ip");
+        }
+        if (signals.deviceUsers() > t.sharedDeviceMaxUsers()) {
+            score += t.sharedDeviceScore();
+            reasons.add("shared_device");
+        }
+        if (signals.ipUsers() > t.sharedIpMaxUsers()) {
+            score += t.sharedIpScore();
+            reasons.add("shared_ip");
+        }
+        if (!Double.isNaN(signals.speedKmph()) && signals.speedKmph() > t.geoMaxSpeedKmph()) {
+            score += t.geoScore();
+            reasons.add("geo_impossible");
+        }
+        return new RuleEngine.Result(score, reasons);
+    }
+}
@@ -0,0 +1,264 @@
+package com.fraud.engine.shadow;
+
+import com.fraud.engine.config.RulesProperties;
+import com.fraud.engine.ml.FeatureExtractor;
+import com.fraud.engine.ml.MLFraudDetector;
+import com.fraud.engine.ml.TransactionFeatures;
+import com.fraud.engine.service.RuleEngine;
+import com.fraud.engine.service.SignalRules;
+import com.fraud.engine.stats.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Re-scores a sample of decided transactions with a candidate rule configuration (and
+ * optionally a candidate model) and compares the outcome with production. Candidate thresholds
+ * are the production {@link RulesProperties} with {@code app.shadow.rules.*} overrides.
+ *
+ * Without a candidate model the REVIEW band is settled like production: with production's
+ * probability and cutoff when its model answered, and by asking the production model only when
+ * the candidate thresholds moved the transaction into the band. A rule-only candidate therefore
+ * agrees on every decision its knobs don't change.
+ *
+ * The consumer only offers a {@link ShadowInput} to a small, bounded executor once the decision
+ * has committed; when the executor is busy the sample is dropped, never waited for. Only the
+ * overridden knobs differ from production. The burst window is not a knob: the shadow sees the
+ * count production read, not Redis.
+ *
+ * Agreement is counted per candidate, and a sample of disagreements is written to
+ * {@code shadow_diffs} for inspection.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ShadowEvaluator {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO shadow_diffs (transaction_id, candidate, production_decision, production_score,
+                                  shadow_decision, shadow_score, shadow_reasons)
+        VALUES (?, ?, ?, ?, ?, ?, ?)""";
+
+    private static final Set<String> UNTUNABLE = Set.of("burst.windowSec");
+
+    private record Outcome(String decision, double score, List<String> reasons) {
+    }
+
+    private final FeatureExtractor featureExtractor;
+    private final MLFraudDetector mlFraudDetector;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final RulesProperties rules;
+    private final Environment environment;
+
+    @Value("${app.shadow.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.shadow.name:candidate}")
+    private String candidate;
+
+    @Value("${app.shadow.sample-rate:0.1}")
+    private double sampleRate;
+
+    @Value("${app.shadow.diff-sample-rate:0.1}")
+    private double diffSampleRate;
+
+    @Value("${app.shadow.threads:1}")
+    private int threads;
+
+    @Value("${app.shadow.queue-capacity:1000}")
+    private int queueCapacity;
+
+    // ─── Candidate model ────────────────────────────────────────────────
+    @Value("${app.shadow.ml.enabled:false}")
+    private boolean modelEnabled;
+
+    @Value("${app.shadow.ml.url:${app.ml.service.url:http://localhost:8084}}")
+    private String modelUrl;
+
+    @Value("${app.shadow.ml.block-probability:0.5}")
+    private double blockProbability;
+
+    private SignalRules.Thresholds thresholds;
+    private ThreadPoolExecutor executor;
+    private Counter agreeCounter;
+    private Counter disagreeCounter;
+    private Counter errorCounter;
+    private Counter droppedCounter;
+    private Timer evaluationTimer;
+
+    @PostConstruct
+    void init() {
+        this.thresholds = rules.thresholds(candidateOverrides());
+        int size = Math.max(threads, 1);
+        // Low priority: under CPU pressure the decision path wins
+        this.executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)),
+            Thread.ofPlatform().name("shadow-eval-", 0).daemon().priority(Thread.MIN_PRIORITY).factory(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+        this.agreeCounter = evaluations("agree");
+        this.disagreeCounter = evaluations("disagree");
+        this.errorCounter = evaluations("error");
+        this.droppedCounter = Counter.builder("fraud_shadow_dropped_total")
+            .description("Sampled transactions dropped because the shadow executor was full")
+            .tag("candidate", candidate)
+            .register(meterRegistry);
+        this.evaluationTimer = Timer.builder("fraud_shadow_evaluation_latency")
+            .description("Time to re-score a transaction with the shadow candidate")
+            .tag("candidate", candidate)
+            .register(meterRegistry);
+        Gauge.builder("fraud_shadow_queue_size", executor, e -> e.getQueue().size())
+            .description("Transactions waiting for shadow evaluation")
+            .register(meterRegistry);
+    }
+
+    // Candidate knobs are app.shadow.rules.<name>, the score bands app.shadow.{review,block}-threshold
+    private Map<String, String> candidateOverrides() {
+        Map<String, String> overrides = new HashMap<>();
+        for (String key : RulesProperties.THRESHOLD_KEYS) {
+            String value = environment.getProperty("app.shadow.rules." + key);
+            if (value != null && !UNTUNABLE.contains(key)) {
+                overrides.put(key, value);
+            }
+        }
+        String review = environment.getProperty("app.shadow.review-threshold");
+        if (review != null) {
+            overrides.put("decision.review", review);
+        }
+        String block = environment.getProperty("app.shadow.block-threshold");
+        if (block != null) {
+            overrides.put("decision.block", block);
+        }
+        return overrides;
+    }
+
+    private Counter evaluations(String outcome) {
+        return Counter.builder("fraud_shadow_evaluations_total")
+            .description("Shadow evaluations by agreement with the production decision")
+            .tag("candidate", candidate)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    /** Offer a decided transaction for shadow evaluation; never blocks. */
+    public void submit(ShadowInput input) {
+        if (!enabled || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            try {
+                executor.execute(() -> evaluationTimer.record(() -> compare(input)));
+            } catch (RejectedExecutionException ex) {
+                droppedCounter.increment();
+            }
+        });
+    }
+
+    private void compare(ShadowInput input) {
+        Outcome shadow;
+        try {
+            shadow = evaluate(input);
+        } catch (RuntimeException ex) {
+            errorCounter.increment();
+            log.debug("Shadow evaluation failed for {}: {}", input.transaction().getTransactionId(), ex.getMessage());
+            return;
+        }
+        if (shadow.decision().equals(input.decision())) {
+            agreeCounter.increment();
+            return;
+        }
+        disagreeCounter.increment();
+        meterRegistry.counter("fraud_shadow_disagreements_total",
+            "candidate", candidate, "production", input.decision(), "shadow", shadow.decision()).increment();
+        if (ThreadLocalRandom.current().nextDouble() < diffSampleRate) {
+            try {
+                jdbcTemplate.update(INSERT_SQL,
+                    input.transaction().getTransactionId(), candidate,
+                    input.decision(), input.score(),
+                    shadow.decision(), shadow.score(), String.join(",", shadow.reasons()));
+            } catch (DataAccessException ex) {
+                log.warn("Failed to record shadow diff for {}: {}", input.transaction().getTransactionId(), ex.getMessage());
+            }
+        }
+    }
+
+    // Mirrors FraudProcessor's scoring with the candidate knobs, over the signals it recorded
+    private Outcome evaluate(ShadowInput input) {
+        var tx = input.transaction();
+        RuleEngine.Result rules = SignalRules.apply(input.baseRules(), tx.getAmount(), input.signals(), thresholds);
+        double score = rules.score();
+        List<String> reasons = new ArrayList<>(rules.reasons());
+
+        String decision = thresholds.decision(score);
+        if (!"REVIEW".equals(decision)) {
+            return new Outcome(decision, Math.min(score, 100), reasons);
+        }
+        if (modelEnabled) {
+            double probability = mlFraudDetector.predictFraudProbability(modelUrl, features(input, score, reasons));
+            return settle(probability, blockProbability, reasons);
+        }
+        if (input.prediction() != null) {
+            return settle(input.prediction().probability(), MLFraudDetector.BLOCK_PROBABILITY, reasons);
+        }
+        // Production left its REVIEW unsettled (model off or failed), and so does the shadow
+        if (input.features() != null || "REVIEW".equals(input.decision()) || !mlFraudDetector.isEnabled()) {
+            return new Outcome(decision, Math.min(score, 100), reasons);
+        }
+        MLFraudDetector.Prediction prediction = mlFraudDetector.predict(tx.getUserId(), features(input, score, reasons));
+        return settle(prediction.probability(), MLFraudDetector.BLOCK_PROBABILITY, reasons);
+    }
+
+    // FraudProcessor's mapping of a probability onto the decision and score
+    private static Outcome settle(double probability, double cutoff, List<String> reasons) {
+        if (probability > cutoff) {
+            reasons.add("ml_flagged_as_fraud");
+            return new Outcome("BLOCK", Math.min(60 + (probability * 40), 100), reasons);
+        }
+        reasons.add("ml_approved");
+        return new Outcome("ALLOW", probability * 30, reasons);
+    }
+
+    private TransactionFeatures features(ShadowInput input, double score, List<String> reasons) {
+        var tx = input.transaction();
+        TransactionFeatures seen = input.features();
+        if (seen != null) {
+            // Same state signals production fed its model; only the rule outputs differ
+            return featureExtractor.extractFeatures(tx, seen.getTxCount60s(), seen.getSpendDeviationRatio(),
+                seen.getRequiredSpeedKmph(), seen.getIsNewDevice() == 1, seen.getIsNewIp() == 1,
+                seen.getDeviceUsers24h(), seen.getIpUsers24h(), score, reasons);
+        }
+        SignalRules.Signals signals = input.signals();
+        double deviation = signals.medianAmount() > 0 ? (tx.getAmount() / signals.medianAmount()) - 1.0 : 0.0;
+        double speed = Double.isNaN(signals.speedKmph()) ? 0.0 : signals.speedKmph();
+        // Production's own feature read happens after this transaction is recorded, so count it
+        return featureExtractor.extractFeatures(tx, signals.burstCount() + 1, deviation, speed,
+            signals.newDevice(), signals.newIp(), signals.deviceUsers(), signals.ipUsers(), score, reasons);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,26 @@
+package com.fraud.engine.shadow;
+
+import com.fraud.common.model.Transaction;
+import com.fraud.engine.ml.MLFraudDetector;
+import com.fraud.engine.ml.TransactionFeatures;
+import com.fraud.engine.service.RuleEngine;
+import com.fraud.engine.service.SignalRules;
+
+/**
+ * What {@code FraudProcessor} had in hand when it decided a transaction: the stateless rule
+ * result, the user-state signals it read from Redis (before recording this transaction), the
+ * model features and prediction if it consulted the model, and the production outcome. Enough to
+ * re-score the transaction under other thresholds without touching Redis again.
+ *
+ * @param features null unless the production path called the model
+ * @param prediction null unless the production model answered
+ */
+public record ShadowInput(
+        Transaction transaction,
+        RuleEngine.Result baseRules,
+        SignalRules.Signals signals,
+        TransactionFeatures features,
+        MLFraudDetector.Prediction prediction,
+        String decision,
+        double score) {
+}
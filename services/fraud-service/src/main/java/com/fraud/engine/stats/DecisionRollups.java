@@ -0,0 +1,157 @@
+package com.fraud.engine.stats;
+
+import com.fraud.engine.db.DecisionRollup;
+import com.fraud.engine.db.DecisionRollupHourRepo;
+import com.fraud.engine.db.DecisionRollupMinuteRepo;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Per-minute and per-hour decision rollups.
+ *
+ * Each committed decision is added to an in-memory bucket keyed by granularity, bucket start and
+ * decision; a scheduled flush upserts the accumulated deltas into {@code decision_rollup_minute}
+ * and {@code decision_rollup_hour}. Trend queries then read a few hundred rollup rows instead of
+ * scanning {@code fraud_decisions}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DecisionRollups {
+
+    private final DecisionRollupMinuteRepo minuteRepo;
+    private final DecisionRollupHourRepo hourRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    // Recorders hold the read side while adding; flush() takes the write side to swap the map,
+    // so a detached map is never written again
+    private final ReadWriteLock pendingLock = new ReentrantReadWriteLock();
+    private Map<Key, Bucket> pending = new ConcurrentHashMap<>();
+
+    private record Key(TrendGranularity granularity, Instant bucketStart, String decision) {
+    }
+
+    private static final class Bucket {
+        final LongAdder count = new LongAdder();
+        final DoubleAdder scoreSum = new DoubleAdder();
+        final LongAdder latencySumMs = new LongAdder();
+        final DoubleAdder amountSum = new DoubleAdder();
+
+        void add(long count, double score, long latencyMs, double amount) {
+            this.count.add(count);
+            scoreSum.add(score);
+            latencySumMs.add(latencyMs);
+            amountSum.add(amount);
+        }
+    }
+
+    /** Aggregates of one bucket for one decision type. */
+    public record Cell(Instant bucketStart, String decision, long count, double scoreSum,
+                       long latencySumMs, double amountSum) {
+    }
+
+    public void record(String decision, double score, long latencyMs, double amount, Instant evaluatedAt) {
+        if (decision == null || evaluatedAt == null) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            pendingLock.readLock().lock();
+            try {
+                for (TrendGranularity granularity : TrendGranularity.values()) {
+                    pending.computeIfAbsent(new Key(granularity, granularity.bucketOf(evaluatedAt), decision),
+                        k -> new Bucket()).add(1, score, latencyMs, amount);
+                }
+            } finally {
+                pendingLock.readLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Rollup cells in [from, to), merged with this instance's not yet flushed deltas so the
+     * current bucket stays live between checkpoints.
+     */
+    public List<Cell> cells(TrendGranularity granularity, Instant from, Instant to) {
+        List<? extends DecisionRollup> rows = granularity == TrendGranularity.MINUTE
+            ? minuteRepo.findBuckets(from, to)
+            : hourRepo.findBuckets(from, to);
+
+        List<Cell> cells = new ArrayList<>(rows.size() + 8);
+        for (DecisionRollup row : rows) {
+            cells.add(new Cell(row.getId().getBucketStart(), row.getId().getDecision(), row.getCount(),
+                row.getScoreSum(), row.getLatencySumMs(), row.getAmountSum()));
+        }
+        pendingLock.readLock().lock();
+        try {
+            pending.forEach((key, bucket) -> {
+                if (key.granularity() == granularity
+                    && !key.bucketStart().isBefore(from) && key.bucketStart().isBefore(to)
+                    && bucket.count.sum() > 0) {
+                    cells.add(new Cell(key.bucketStart(), key.decision(), bucket.count.sum(),
+                        bucket.scoreSum.sum(), bucket.latencySumMs.sum(), bucket.amountSum.sum()));
+                }
+            });
+        } finally {
+            pendingLock.readLock().unlock();
+        }
+        return cells;
+    }
+
+    @Scheduled(fixedDelayString = "${app.overview.trend.flush-interval-ms:5000}")
+    public void flush() {
+        Map<Key, Bucket> drained = drain();
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> drained.forEach((key, b) -> {
+                if (key.granularity() == TrendGranularity.MINUTE) {
+                    minuteRepo.upsert(key.bucketStart(), key.decision(), b.count.sum(), b.scoreSum.sum(),
+                        b.latencySumMs.sum(), b.amountSum.sum());
+                } else {
+                    hourRepo.upsert(key.bucketStart(), key.decision(), b.count.sum(), b.scoreSum.sum(),
+                        b.latencySumMs.sum(), b.amountSum.sum());
+                }
+            }));
+        } catch (RuntimeException ex) {
+            // Re-queue the deltas so the next flush retries them
+            pendingLock.readLock().lock();
+            try {
+                drained.forEach((key, b) -> pending.computeIfAbsent(key, k -> new Bucket())
+                    .add(b.count.sum(), b.scoreSum.sum(), b.latencySumMs.sum(), b.amountSum.sum()));
+            } finally {
+                pendingLock.readLock().unlock();
+            }
+            log.warn("Failed to flush {} decision rollup buckets: {}", drained.size(), ex.getMessage());
+        }
+    }
+
+    // Swap the whole map under the write lock: every decision lands either in this flush or in
+    // the next one with all of its fields, and the detached buckets are read without racing adds
+    private Map<Key, Bucket> drain() {
+        pendingLock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return Map.of();
+            }
+            Map<Key, Bucket> drained = pending;
+            pending = new ConcurrentHashMap<>();
+            return drained;
+        } finally {
+            pendingLock.writeLock().unlock();
+        }
+    }
+}
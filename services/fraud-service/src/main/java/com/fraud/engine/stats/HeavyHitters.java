@@ -0,0 +1,208 @@
+package com.fraud.engine.stats;
+
+import com.fraud.common.model.Transaction;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The most frequent users, merchants and device IPs over the last few minutes.
+ *
+ * Each dimension keeps a ring of per-minute (by default) {@link SpaceSaving} summaries; a
+ * query merges the buckets still inside the window, so memory is fixed regardless of how many
+ * distinct keys pass through. Counts are approximate: each carries the Space-Saving error
+ * bound, and a key that fell out of a bucket's summary is not counted for that bucket.
+ *
+ * A periodic refresh publishes the top ranks as gauges (ranks, not keys, as tags) and the set
+ * of keys that exceed the hot-key guard thresholds, which the consumer checks per event.
+ */
+@Component
+public class HeavyHitters {
+
+    public enum Dimension {
+        USER("user"), MERCHANT("merchant"), IP("ip");
+
+        private final String tag;
+
+        Dimension(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    public record Hitter(String key, long count, long error, double share) {
+    }
+
+    public record Top(long windowSeconds, long events, List<Hitter> hitters) {
+    }
+
+    private static final int GAUGE_RANKS = 5;
+    private static final Dimension[] DIMENSIONS = Dimension.values();
+
+    private final long bucketMillis;
+    private final int buckets;
+    private final LongSupplier clock;
+    private final Map<Dimension, Window> windows = new EnumMap<>(Dimension.class);
+    private final Map<Dimension, AtomicLong[]> rankGauges = new EnumMap<>(Dimension.class);
+    private final Map<Dimension, AtomicLong> eventGauges = new EnumMap<>(Dimension.class);
+    private volatile Map<Dimension, Set<String>> hotKeys = Map.of();
+
+    @Value("${app.heavy-hitters.guard.min-share:0.2}")
+    private double guardMinShare = 0.2;
+
+    @Value("${app.heavy-hitters.guard.min-count:1000}")
+    private long guardMinCount = 1000;
+
+    @Value("${app.heavy-hitters.top-k:20}")
+    private int refreshTopK = 20;
+
+    @Autowired
+    public HeavyHitters(
+            MeterRegistry meterRegistry,
+            @Value("${app.heavy-hitters.window-minutes:5}") int windowMinutes,
+            @Value("${app.heavy-hitters.capacity:256}") int capacity) {
+        this(meterRegistry, TimeUnit.MINUTES.toMillis(Math.max(windowMinutes, 1)), Math.max(windowMinutes, 1),
+            capacity, System::currentTimeMillis);
+    }
+
+    HeavyHitters(MeterRegistry meterRegistry, long windowMillis, int buckets, int capacity, LongSupplier clock) {
+        this.buckets = Math.max(buckets, 1);
+        this.bucketMillis = Math.max(windowMillis / this.buckets, 1);
+        this.clock = clock;
+        for (Dimension dimension : DIMENSIONS) {
+            windows.put(dimension, new Window(this.buckets, capacity));
+            AtomicLong[] ranks = new AtomicLong[GAUGE_RANKS];
+            for (int rank = 0; rank < GAUGE_RANKS; rank++) {
+                ranks[rank] = new AtomicLong();
+                Gauge.builder("fraud_heavy_hitter_count", ranks[rank], AtomicLong::get)
+                    .description("Events in the window from the N-th most frequent key")
+                    .tag("dimension", dimension.tag())
+                    .tag("rank", String.valueOf(rank + 1))
+                    .register(meterRegistry);
+            }
+            rankGauges.put(dimension, ranks);
+            AtomicLong events = new AtomicLong();
+            Gauge.builder("fraud_heavy_hitter_window_events", events, AtomicLong::get)
+                .description("Events in the heavy-hitter window")
+                .tag("dimension", dimension.tag())
+                .register(meterRegistry);
+            eventGauges.put(dimension, events);
+        }
+    }
+
+    public void record(Transaction tx) {
+        long tick = clock.getAsLong() / bucketMillis;
+        offer(Dimension.USER, tx.getUserId(), tick);
+        offer(Dimension.MERCHANT, tx.getMerchantId(), tick);
+        offer(Dimension.IP, tx.getDevice() != null ? tx.getDevice().getIp() : null, tick);
+    }
+
+    private void offer(Dimension dimension, String key, long tick) {
+        if (key != null && !key.isBlank()) {
+            windows.get(dimension).offer(key, tick);
+        }
+    }
+
+    /** Whether {@code key} was over the guard thresholds at the last refresh. */
+    public boolean isHot(Dimension dimension, String key) {
+        Set<String> keys = hotKeys.get(dimension);
+        return keys != null && key != null && keys.contains(key);
+    }
+
+    public Map<Dimension, Top> top(int limit) {
+        long tick = clock.getAsLong() / bucketMillis;
+        Map<Dimension, Top> result = new EnumMap<>(Dimension.class);
+        for (Dimension dimension : DIMENSIONS) {
+            result.put(dimension, windows.get(dimension).top(limit, tick, buckets * bucketMillis / 1000));
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${app.heavy-hitters.refresh-ms:5000}")
+    public void refresh() {
+        Map<Dimension, Set<String>> hot = new EnumMap<>(Dimension.class);
+        top(Math.max(refreshTopK, GAUGE_RANKS)).forEach((dimension, top) -> {
+            AtomicLong[] ranks = rankGauges.get(dimension);
+            for (int rank = 0; rank < GAUGE_RANKS; rank++) {
+                ranks[rank].set(rank < top.hitters().size() ? top.hitters().get(rank).count() : 0);
+            }
+            eventGauges.get(dimension).set(top.events());
+            Set<String> keys = new HashSet<>();
+            for (Hitter hitter : top.hitters()) {
+                if (hitter.count() >= guardMinCount && hitter.share() >= guardMinShare) {
+                    keys.add(hitter.key());
+                }
+            }
+            hot.put(dimension, keys);
+        });
+        hotKeys = hot;
+    }
+
+    /** One dimension's ring of per-bucket summaries. */
+    private static final class Window {
+
+        private final SpaceSaving[] summaries;
+        private final long[] ticks;
+        private final long[] events;
+
+        Window(int buckets, int capacity) {
+            this.summaries = new SpaceSaving[buckets];
+            this.ticks = new long[buckets];
+            this.events = new long[buckets];
+            for (int i = 0; i < buckets; i++) {
+                summaries[i] = new SpaceSaving(capacity);
+                ticks[i] = Long.MIN_VALUE;
+            }
+        }
+
+        synchronized void offer(String key, long tick) {
+            int index = (int) Math.floorMod(tick, (long) summaries.length);
+            if (ticks[index] != tick) {
+                summaries[index].clear();
+                events[index] = 0;
+                ticks[index] = tick;
+            }
+            summaries[index].offer(key);
+            events[index]++;
+        }
+
+        synchronized Top top(int limit, long tick, long windowSeconds) {
+            Map<String, long[]> merged = new HashMap<>();
+            long total = 0;
+            for (int i = 0; i < summaries.length; i++) {
+                if (ticks[i] <= tick - summaries.length || ticks[i] > tick) {
+                    continue;
+                }
+                total += events[i];
+                summaries[i].forEach((key, count, error) -> {
+                    long[] sums = merged.computeIfAbsent(key, k -> new long[2]);
+                    sums[0] += count;
+                    sums[1] += error;
+                });
+            }
+            long events = total;
+            List<Hitter> hitters = new ArrayList<>(merged.size());
+            merged.forEach((key, sums) -> hitters.add(
+                new Hitter(key, sums[0], sums[1], events == 0 ? 0 : (double) sums[0] / events)));
+            hitters.sort(Comparator.comparingLong(Hitter::count).reversed());
+            return new Top(windowSeconds, events, List.copyOf(hitters.subList(0, Math.min(Math.max(limit, 0), hitters.size()))));
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.fraud.engine.stats;
+
+import com.fraud.engine.db.OverviewCounterMinuteEntity;
+import com.fraud.engine.db.OverviewCounterMinuteRepo;
+import com.fraud.engine.db.OverviewCountersEntity;
+import com.fraud.engine.db.OverviewCountersRepo;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Running totals for the dashboard overview.
+ *
+ * Decisions are added to in-memory deltas, per minute of {@code evaluated_at}, once their
+ * transaction commits. Every few seconds the deltas are checkpointed into
+ * {@code overview_counter_minutes}; the totals are the single {@code overview_counters} row plus
+ * those minutes.
+ *
+ * A slow reconciliation pass corrects drift (crashed instance with unflushed deltas, manual
+ * deletes, etc.): it recounts the decisions evaluated before a cutoff a few minutes back in one
+ * statement, without touching the counters, then briefly locks the row to store the recount and
+ * delete the minutes it covers. Deltas for those minutes still unflushed anywhere are dropped when
+ * they arrive, since the recount already has them; newer minutes are kept as they are.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OverviewCounters {
+
+    private static final long NONE = Long.MIN_VALUE;
+
+    // One statement is one snapshot: decisions committed mid-scan are simply not seen
+    private static final String RECOUNT_SQL = """
+        SELECT COUNT(*) FILTER (WHERE d.decision = 'ALLOW') AS allow_count,
+               COUNT(*) FILTER (WHERE d.decision = 'REVIEW') AS review_count,
+               COUNT(*) FILTER (WHERE d.decision = 'BLOCK') AS block_count,
+               COALESCE(SUM(d.latency_ms) FILTER (WHERE d.decision = 'REVIEW'), 0) AS review_latency_sum_ms,
+               COUNT(t.transaction_id) AS total_transactions,
+               COALESCE(SUM(t.amount), 0) AS total_volume,
+               MAX(d.evaluated_at) AS latest_decision_at,
+               MAX(t.occurred_at) AS latest_transaction_at
+        FROM fraud_decisions d
+        LEFT JOIN transactions t ON t.transaction_id = d.transaction_id
+        WHERE d.evaluated_at < ?
+        """;
+
+    private final OverviewCountersRepo countersRepo;
+    private final OverviewCounterMinuteRepo minuteRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // How far behind now the reconciliation cutoff sits; every decision evaluated before it
+    // must have committed by the time the recount runs
+    @Value("${app.overview.reconcile-margin-ms:300000}")
+    private long reconcileMarginMs;
+
+    // Recorders hold the read side while adding; drain() takes the write side to swap the map,
+    // so a detached map is never written again
+    private final ReadWriteLock pendingLock = new ReentrantReadWriteLock();
+    private Map<Instant, Bucket> pending = new ConcurrentHashMap<>();
+    private final AtomicLong latestDecisionMillis = new AtomicLong(NONE);
+    private final AtomicLong latestTransactionMillis = new AtomicLong(NONE);
+
+    public record Totals(
+        long totalDecisions,
+        long allowCount,
+        long reviewCount,
+        long blockCount,
+        long reviewLatencySumMs,
+        long totalTransactions,
+        double totalVolume,
+        Instant latestDecisionAt,
+        Instant latestTransactionAt
+    ) {
+        public double blockRate() {
+            return totalDecisions == 0 ? 0.0 : (double) blockCount / totalDecisions;
+        }
+
+        public double averageReviewLatencyMs() {
+            return reviewCount == 0 ? 0.0 : (double) reviewLatencySumMs / reviewCount;
+        }
+    }
+
+    private static final class Bucket {
+        final LongAdder allow = new LongAdder();
+        final LongAdder review = new LongAdder();
+        final LongAdder block = new LongAdder();
+        final LongAdder reviewLatencyMs = new LongAdder();
+        final LongAdder transactions = new LongAdder();
+        final DoubleAdder volume = new DoubleAdder();
+
+        void add(Bucket other) {
+            allow.add(other.allow.sum());
+            review.add(other.review.sum());
+            block.add(other.block.sum());
+            reviewLatencyMs.add(other.reviewLatencyMs.sum());
+            transactions.add(other.transactions.sum());
+            volume.add(other.volume.sum());
+        }
+    }
+
+    private record Recount(long allow, long review, long block, long reviewLatencyMs,
+                           long transactions, double volume, Instant latestDecisionAt,
+                           Instant latestTransactionAt) {
+    }
+
+    /**
+     * Count one persisted decision. When called inside a transaction the update is deferred to
+     * after commit, so rolled-back events never reach the counters.
+     */
+    public void record(String decision, long latencyMs, double amount, Instant occurredAt, Instant evaluatedAt) {
+        AfterCommit.run(() -> apply(decision, latencyMs, amount, occurredAt, evaluatedAt));
+    }
+
+    private void apply(String decision, long latencyMs, double amount, Instant occurredAt, Instant evaluatedAt) {
+        Instant minute = (evaluatedAt != null ? evaluatedAt : Instant.now()).truncatedTo(ChronoUnit.MINUTES);
+        pendingLock.readLock().lock();
+        try {
+            Bucket bucket = pending.computeIfAbsent(minute, k -> new Bucket());
+            switch (decision) {
+                case "ALLOW" -> bucket.allow.increment();
+                case "REVIEW" -> {
+                    bucket.review.increment();
+                    bucket.reviewLatencyMs.add(latencyMs);
+                }
+                case "BLOCK" -> bucket.block.increment();
+                default -> log.warn("Unknown decision {} not counted in overview", decision);
+            }
+            bucket.transactions.increment();
+            bucket.volume.add(amount);
+        } finally {
+            pendingLock.readLock().unlock();
+        }
+        if (evaluatedAt != null) {
+            latestDecisionMillis.accumulateAndGet(evaluatedAt.toEpochMilli(), Math::max);
+        }
+        if (occurredAt != null) {
+            latestTransactionMillis.accumulateAndGet(occurredAt.toEpochMilli(), Math::max);
+        }
+    }
+
+    /**
+     * Current totals: the reconciled row, the flushed minutes since its cutoff and this
+     * instance's unflushed deltas. A primary-key read plus a few dozen minute rows regardless of
+     * table size.
+     */
+    public Totals totals() {
+        OverviewCountersEntity row = countersRepo.findById(OverviewCountersEntity.SINGLETON_ID)
+            .orElseGet(OverviewCounters::emptyRow);
+        Bucket sum = new Bucket();
+        for (OverviewCounterMinuteEntity minute : minuteRepo.findAll()) {
+            addRow(sum, minute);
+        }
+        pendingLock.readLock().lock();
+        try {
+            pending.values().forEach(sum::add);
+        } finally {
+            pendingLock.readLock().unlock();
+        }
+        long allowCount = row.getAllowCount() + sum.allow.sum();
+        long reviewCount = row.getReviewCount() + sum.review.sum();
+        long blockCount = row.getBlockCount() + sum.block.sum();
+        return new Totals(
+            row.getTotalDecisions() + sum.allow.sum() + sum.review.sum() + sum.block.sum(),
+            allowCount,
+            reviewCount,
+            blockCount,
+            row.getReviewLatencySumMs() + sum.reviewLatencyMs.sum(),
+            row.getTotalTransactions() + sum.transactions.sum(),
+            row.getTotalVolume() + sum.volume.sum(),
+            latest(row.getLatestDecisionAt(), latestDecisionMillis.get()),
+            latest(row.getLatestTransactionAt(), latestTransactionMillis.get()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.overview.flush-interval-ms:2000}")
+    public void flush() {
+        Map<Instant, Bucket> drained = drain();
+        long latestDecision = latestDecisionMillis.getAndSet(NONE);
+        long latestTransaction = latestTransactionMillis.getAndSet(NONE);
+        if (drained.isEmpty() && latestDecision == NONE && latestTransaction == NONE) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // The row lock orders this flush against reconciliation moving the cutoff
+                OverviewCountersEntity row = lockRow();
+                Instant through = row.getReconciledThrough();
+                drained.forEach((minute, bucket) -> {
+                    if (through != null && minute.isBefore(through)) {
+                        return; // already in the reconciled recount
+                    }
+                    minuteRepo.upsert(minute, bucket.allow.sum(), bucket.review.sum(), bucket.block.sum(),
+                        bucket.reviewLatencyMs.sum(), bucket.transactions.sum(), bucket.volume.sum());
+                });
+                row.setLatestDecisionAt(latest(row.getLatestDecisionAt(), latestDecision));
+                row.setLatestTransactionAt(latest(row.getLatestTransactionAt(), latestTransaction));
+                countersRepo.save(row);
+            });
+        } catch (RuntimeException ex) {
+            // Put the deltas back so the next checkpoint retries them
+            restore(drained);
+            latestDecisionMillis.accumulateAndGet(latestDecision, Math::max);
+            latestTransactionMillis.accumulateAndGet(latestTransaction, Math::max);
+            log.warn("Failed to checkpoint overview counters: {}", ex.getMessage());
+        }
+    }
+
+    @Scheduled(
+        initialDelayString = "${app.overview.reconcile-initial-delay-ms:60000}",
+        fixedDelayString = "${app.overview.reconcile-interval-ms:900000}")
+    public void reconcile() {
+        Instant cutoff = Instant.now().minusMillis(reconcileMarginMs).truncatedTo(ChronoUnit.MINUTES);
+        try {
+            Recount recount = jdbcTemplate.queryForObject(RECOUNT_SQL, (rs, n) -> new Recount(
+                rs.getLong("allow_count"),
+                rs.getLong("review_count"),
+                rs.getLong("block_count"),
+                rs.getLong("review_latency_sum_ms"),
+                rs.getLong("total_transactions"),
+                rs.getDouble("total_volume"),
+                toInstant(rs.getObject("latest_decision_at", LocalDateTime.class)),
+                toInstant(rs.getObject("latest_transaction_at", LocalDateTime.class))),
+                LocalDateTime.ofInstant(cutoff, ZoneOffset.UTC));
+
+            transactionTemplate.executeWithoutResult(status -> {
+                OverviewCountersEntity row = lockRow();
+                if (row.getReconciledThrough() != null && !cutoff.isAfter(row.getReconciledThrough())) {
+                    return; // another instance already reconciled at least this far
+                }
+                long before = row.getTotalDecisions();
+                List<OverviewCounterMinuteEntity> covered = minuteRepo.findByBucketStartBefore(cutoff);
+                for (OverviewCounterMinuteEntity minute : covered) {
+                    before += minute.getAllowCount() + minute.getReviewCount() + minute.getBlockCount();
+                }
+                minuteRepo.deleteBefore(cutoff);
+
+                row.setAllowCount(recount.allow());
+                row.setReviewCount(recount.review());
+                row.setBlockCount(recount.block());
+                row.setTotalDecisions(recount.allow() + recount.review() + recount.block());
+                row.setReviewLatencySumMs(recount.reviewLatencyMs());
+                row.setTotalTransactions(recount.transactions());
+                row.setTotalVolume(recount.volume());
+                // Newer flushes may already have moved these past the cutoff
+                row.setLatestDecisionAt(later(row.getLatestDecisionAt(), recount.latestDecisionAt()));
+                row.setLatestTransactionAt(later(row.getLatestTransactionAt(), recount.latestTransactionAt()));
+                row.setReconciledThrough(cutoff);
+                row.setReconciledAt(Instant.now());
+                countersRepo.save(row);
+
+                if (before != row.getTotalDecisions()) {
+                    log.info("Overview counters drifted by {} decisions before {}; corrected",
+                        row.getTotalDecisions() - before, cutoff);
+                }
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Overview counter reconciliation failed: {}", ex.getMessage());
+        }
+    }
+
+    private OverviewCountersEntity lockRow() {
+        return countersRepo.findWithLockById(OverviewCountersEntity.SINGLETON_ID)
+            .orElseGet(OverviewCounters::emptyRow);
+    }
+
+    // Swap the whole map under the write lock: every delta lands either in this drain or in
+    // the next one, and all fields of one decision land together
+    private Map<Instant, Bucket> drain() {
+        pendingLock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return Map.of();
+            }
+            Map<Instant, Bucket> drained = pending;
+            pending = new ConcurrentHashMap<>();
+            return drained;
+        } finally {
+            pendingLock.writeLock().unlock();
+        }
+    }
+
+    private void restore(Map<Instant, Bucket> drained) {
+        pendingLock.readLock().lock();
+        try {
+            drained.forEach((minute, bucket) -> pending.computeIfAbsent(minute, k -> new Bucket()).add(bucket));
+        } finally {
+            pendingLock.readLock().unlock();
+        }
+    }
+
+    private static void addRow(Bucket sum, OverviewCounterMinuteEntity minute) {
+        sum.allow.add(minute.getAllowCount());
+        sum.review.add(minute.getReviewCount());
+        sum.block.add(minute.getBlockCount());
+        sum.reviewLatencyMs.add(minute.getReviewLatencySumMs());
+        sum.transactions.add(minute.getTotalTransactions());
+        sum.volume.add(minute.getTotalVolume());
+    }
+
+    private static Instant latest(Instant stored, long pendingMillis) {
+        if (pendingMillis == NONE) {
+            return stored;
+        }
+        return later(stored, Instant.ofEpochMilli(pendingMillis));
+    }
+
+    private static Instant later(Instant a, Instant b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.isAfter(a) ? b : a;
+    }
+
+    // Timestamps are stored as UTC wall-clock values (hibernate.jdbc.time_zone=UTC)
+    private static Instant toInstant(LocalDateTime value) {
+        return value != null ? value.toInstant(ZoneOffset.UTC) : null;
+    }
+
+    private static OverviewCountersEntity emptyRow() {
+        return OverviewCountersEntity.builder().id(OverviewCountersEntity.SINGLETON_ID).build();
+    }
+}
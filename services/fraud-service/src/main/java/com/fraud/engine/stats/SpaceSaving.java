@@ -0,0 +1,113 @@
+package com.fraud.engine.stats;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving summary: tracks at most {@code capacity} keys of a stream and always holds every
+ * key whose frequency exceeds {@code total / capacity}. When a new key arrives with the summary
+ * full it takes over the least-counted slot and inherits its count as {@code error}, so a
+ * reported count over-estimates the true one by at most its error.
+ *
+ * Slots sit in a min-heap on count, making each offer O(log capacity). Not thread-safe.
+ */
+final class SpaceSaving {
+
+    interface Visitor {
+        void visit(String key, long count, long error);
+    }
+
+    private final Map<String, Integer> slots;
+    private final String[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    // heap[i] is a slot; position[slot] is its index in heap
+    private final int[] heap;
+    private final int[] position;
+    private int size;
+
+    SpaceSaving(int capacity) {
+        int n = Math.max(capacity, 1);
+        this.slots = new HashMap<>(n * 2);
+        this.keys = new String[n];
+        this.counts = new long[n];
+        this.errors = new long[n];
+        this.heap = new int[n];
+        this.position = new int[n];
+    }
+
+    void offer(String key) {
+        Integer slot = slots.get(key);
+        if (slot == null && size < keys.length) {
+            // A new leaf with count 1 belongs above any parent counted more often
+            slot = size;
+            keys[slot] = key;
+            slots.put(key, slot);
+            counts[slot] = 1;
+            errors[slot] = 0;
+            heap[size] = slot;
+            size++;
+            siftUp(size - 1);
+            return;
+        }
+        if (slot == null) {
+            // Replace the minimum; the newcomer may have been seen up to that many times
+            slot = heap[0];
+            slots.remove(keys[slot]);
+            errors[slot] = counts[slot];
+            keys[slot] = key;
+            slots.put(key, slot);
+        }
+        counts[slot]++;
+        siftDown(position[slot]);
+    }
+
+    void clear() {
+        slots.clear();
+        Arrays.fill(keys, 0, size, null);
+        size = 0;
+    }
+
+    void forEach(Visitor visitor) {
+        for (int slot = 0; slot < size; slot++) {
+            visitor.visit(keys[slot], counts[slot], errors[slot]);
+        }
+    }
+
+    private void siftUp(int index) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (counts[heap[parent]] <= counts[slot]) {
+                break;
+            }
+            heap[index] = heap[parent];
+            position[heap[index]] = index;
+            index = parent;
+        }
+        heap[index] = slot;
+        position[slot] = index;
+    }
+
+    private void siftDown(int index) {
+        int slot = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+            if (counts[heap[child]] >= counts[slot]) {
+                break;
+            }
+            heap[index] = heap[child];
+            position[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = slot;
+        position[slot] = index;
+    }
+}
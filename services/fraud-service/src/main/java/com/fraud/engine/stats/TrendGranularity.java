@@ -0,0 +1,37 @@
+package com.fraud.engine.stats;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+public enum TrendGranularity {
+    MINUTE(ChronoUnit.MINUTES, Duration.ofHours(1), Duration.ofDays(2)),
+    HOUR(ChronoUnit.HOURS, Duration.ofDays(1), Duration.ofDays(90));
+
+    private final ChronoUnit unit;
+    private final Duration defaultRange;
+    private final Duration maxRange;
+
+    TrendGranularity(ChronoUnit unit, Duration defaultRange, Duration maxRange) {
+        this.unit = unit;
+        this.defaultRange = defaultRange;
+        this.maxRange = maxRange;
+    }
+
+    public Instant bucketOf(Instant instant) {
+        return instant.truncatedTo(unit);
+    }
+
+    public Duration bucketSize() {
+        return unit.getDuration();
+    }
+
+    public Duration defaultRange() {
+        return defaultRange;
+    }
+
+    /** Widest window a single trend request may cover at this granularity. */
+    public Duration maxRange() {
+        return maxRange;
+    }
+}
@@ -0,0 +1,266 @@
+package com.fraud.engine.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fraud.common.model.FraudDecision;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Fans the live decision stream out to SSE subscribers.
+ *
+ * Decisions are serialised once into a fixed-size ring buffer; every subscriber only keeps a
+ * read cursor into it, so per-client memory is constant. Each client's backlog is capped at
+ * {@code app.stream.client-max-lag} events: a client that falls further behind skips ahead and
+ * receives a single {@code dropped} event with the number of events it missed, so a slow
+ * dashboard never holds up the writer or other clients. Delivery runs on virtual threads, so a
+ * client stuck in a blocking socket write costs no platform thread.
+ */
+@Slf4j
+@Component
+public class DecisionBroadcaster {
+
+    private record Entry(long sequence, String decision, String userId, String json) {
+    }
+
+    /** Server-side filter; null fields match everything. */
+    public record Filter(Set<String> decisions, String userId) {
+        boolean matches(Entry entry) {
+            return (decisions == null || decisions.contains(entry.decision()))
+                && (userId == null || userId.equals(entry.userId()));
+        }
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final Filter filter;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile boolean closed;
+        long cursor;
+
+        Subscriber(SseEmitter emitter, Filter filter, long cursor) {
+            this.emitter = emitter;
+            this.filter = filter;
+            this.cursor = cursor;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final int mask;
+    private final AtomicReferenceArray<Entry> ring;
+    private final AtomicLong head = new AtomicLong();
+    private final Map<Subscriber, Boolean> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService deliveryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final int clientMaxLag;
+    private final int maxSubscribers;
+    private final long emitterTimeoutMs;
+    private final int batchSize = 256;
+
+    private final Counter publishedCounter;
+    private final Counter deliveredCounter;
+    private final Counter droppedCounter;
+
+    public DecisionBroadcaster(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.stream.ring-size:4096}") int ringSize,
+            @Value("${app.stream.client-max-lag:512}") int clientMaxLag,
+            @Value("${app.stream.max-subscribers:5000}") int maxSubscribers,
+            @Value("${app.stream.timeout-ms:1800000}") long emitterTimeoutMs) {
+        int capacity = Integer.highestOneBit(Math.max(ringSize, 2) - 1) << 1;
+        this.objectMapper = objectMapper;
+        this.mask = capacity - 1;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.clientMaxLag = Math.min(Math.max(clientMaxLag, 1), capacity);
+        this.maxSubscribers = maxSubscribers;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+
+        Gauge.builder("fraud_stream_subscribers", subscribers, Map::size)
+            .description("Open decision stream (SSE) connections")
+            .register(meterRegistry);
+        this.publishedCounter = Counter.builder("fraud_stream_events_total")
+            .description("Decision stream events by outcome")
+            .tag("outcome", "published")
+            .register(meterRegistry);
+        this.deliveredCounter = Counter.builder("fraud_stream_events_total")
+            .description("Decision stream events by outcome")
+            .tag("outcome", "delivered")
+            .register(meterRegistry);
+        this.droppedCounter = Counter.builder("fraud_stream_events_total")
+            .description("Decision stream events by outcome")
+            .tag("outcome", "dropped")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Append a decision to the ring and wake matching subscribers. Called from a single
+     * listener thread; never blocks on clients.
+     */
+    public void publish(FraudDecision decision) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(decision);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialise decision {} for stream", decision.getTransactionId(), e);
+            return;
+        }
+        long sequence = head.get();
+        Entry entry = new Entry(sequence, decision.getDecision(), decision.getUserId(), json);
+        ring.set((int) (sequence & mask), entry);
+        head.set(sequence + 1);
+        publishedCounter.increment();
+
+        for (Subscriber subscriber : subscribers.keySet()) {
+            if (subscriber.filter.matches(entry)) {
+                schedule(subscriber);
+            } else if (subscriber.scheduled.compareAndSet(false, true)) {
+                // Holding the flag means no drain is running, so the cursor is ours to move:
+                // a caught-up client simply steps over events it filtered out
+                if (subscriber.cursor == sequence) {
+                    subscriber.cursor = sequence + 1;
+                }
+                subscriber.scheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Open a new subscription. {@code lastEventId} (the SSE Last-Event-ID header) resumes from
+     * the ring if the events are still there.
+     *
+     * @return null when the subscriber limit is reached
+     */
+    public SseEmitter subscribe(Filter filter, String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        long start = head.get();
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                start = Math.max(Long.parseLong(lastEventId.trim()) + 1, start - clientMaxLag);
+                start = Math.min(start, head.get());
+            } catch (NumberFormatException ignored) {
+                // Unknown id format: start live
+            }
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, filter, start);
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(ex -> close(subscriber));
+        subscribers.put(subscriber, Boolean.TRUE);
+        schedule(subscriber);
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        // Keeps idle connections open through proxies and reaps clients that went away
+        for (Subscriber subscriber : subscribers.keySet()) {
+            deliveryExecutor.execute(() -> {
+                try {
+                    subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException ex) {
+                    close(subscriber);
+                }
+            });
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.closed && subscriber.scheduled.compareAndSet(false, true)) {
+            deliveryExecutor.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            int sent = 0;
+            while (!subscriber.closed && sent < batchSize) {
+                long available = head.get();
+                if (subscriber.cursor >= available) {
+                    break;
+                }
+                long lag = available - subscriber.cursor;
+                if (lag > clientMaxLag) {
+                    // Too far behind: skip to the newest window and tell the client once
+                    long target = available - clientMaxLag;
+                    long skipped = countMatching(subscriber, subscriber.cursor, target);
+                    subscriber.cursor = target;
+                    if (skipped > 0) {
+                        droppedCounter.increment(skipped);
+                        subscriber.emitter.send(SseEmitter.event().name("dropped").data(Map.of("count", skipped)));
+                    }
+                    continue;
+                }
+                Entry entry = ring.get((int) (subscriber.cursor & mask));
+                if (entry == null || entry.sequence() != subscriber.cursor) {
+                    // Overwritten while we were reading; the lag check above catches up next pass
+                    subscriber.cursor++;
+                    droppedCounter.increment();
+                    continue;
+                }
+                subscriber.cursor++;
+                if (subscriber.filter.matches(entry)) {
+                    subscriber.emitter.send(SseEmitter.event()
+                        .id(Long.toString(entry.sequence()))
+                        .name("decision")
+                        .data(entry.json(), MediaType.APPLICATION_JSON));
+                    deliveredCounter.increment();
+                    sent++;
+                }
+            }
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Decision stream client disconnected: {}", ex.getMessage());
+            close(subscriber);
+        } finally {
+            subscriber.scheduled.set(false);
+            // Re-check: events may have arrived after our last look, or we hit the batch cap
+            if (!subscriber.closed && subscriber.cursor < head.get()) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    // Events in [from, to) this subscriber would have received; overwritten slots count as missed
+    private long countMatching(Subscriber subscriber, long from, long to) {
+        long matching = 0;
+        for (long seq = Math.max(from, to - ring.length()); seq < to; seq++) {
+            Entry entry = ring.get((int) (seq & mask));
+            if (entry == null || entry.sequence() != seq || subscriber.filter.matches(entry)) {
+                matching++;
+            }
+        }
+        return matching + Math.max(0, (to - ring.length()) - from);
+    }
+
+    private void close(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.remove(subscriber);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.keySet().forEach(subscriber -> subscriber.emitter.complete());
+        deliveryExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,42 @@
+package com.fraud.engine.stream;
+
+import com.fraud.common.model.FraudDecision;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+/**
+ * The one internal consumer of {@code fraud.decisions} that feeds SSE subscribers.
+ *
+ * Every instance uses its own consumer group so it sees all decisions, including those made by
+ * other instances. The group is named after the instance ({@code app.stream.instance-id}, the
+ * hostname by default) so a restart rejoins it instead of leaving a new group behind each time;
+ * committed offsets are ignored and every assignment starts at the live end of the topic.
+ */
+@Component
+@RequiredArgsConstructor
+public class DecisionStreamListener implements ConsumerSeekAware {
+
+    private final DecisionBroadcaster broadcaster;
+
+    @KafkaListener(
+        id = "decision-stream",
+        topics = "${app.topics.out}",
+        groupId = "fraud-service-stream-${app.stream.instance-id}",
+        properties = {
+            "auto.offset.reset=latest",
+            "enable.auto.commit=false",
+            "spring.json.value.default.type=com.fraud.common.model.FraudDecision"
+        })
+    public void onDecision(FraudDecision decision) {
+        broadcaster.publish(decision);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        callback.seekToEnd(assignments.keySet());
+    }
+}
@@ -0,0 +1,9 @@
+package com.fraud.engine.web;
+
+import java.util.List;
+
+/**
+ * One keyset page: no total count, and {@code nextCursor} is null on the last page.
+ */
+public record CursorPage<T>(List<T> content, int size, String nextCursor) {
+}
@@ -0,0 +1,42 @@
+package com.fraud.engine.web;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position over (evaluatedAt DESC, transactionId DESC).
+ * Clients only ever echo back the encoded form returned as {@code nextCursor}.
+ */
+public record DecisionCursor(Instant evaluatedAt, String transactionId) {
+
+    /** Position before the newest possible row, used for the first page. */
+    public static final DecisionCursor START = new DecisionCursor(Instant.parse("9999-12-31T23:59:59Z"), "");
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = evaluatedAt.toString() + SEPARATOR + transactionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode()}
+     */
+    public static DecisionCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(SEPARATOR);
+            if (sep <= 0) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new DecisionCursor(Instant.parse(raw.substring(0, sep)), raw.substring(sep + 1));
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Malformed cursor", ex);
+        }
+    }
+}
@@ -2,16 +2,19 @@ package com.fraud.engine.web;
 
 import com.fraud.engine.db.DecisionEntity;
 import com.fraud.engine.db.DecisionRepo;
-import com.fraud.engine.db.TransactionEntity;
-import com.fraud.engine.db.TransactionRepo;
+import com.fraud.engine.db.ReasonCodeRegistry;
+import com.fraud.engine.db.RecentDecisionIndex;
+import com.fraud.engine.db.UserProfileEntity;
+import com.fraud.engine.db.UserProfileRepo;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.Instant;
 import java.util.List;
@@ -25,7 +28,12 @@ import java.util.stream.Collectors;
 public class DecisionQueryController {
 
     private final DecisionRepo decisionRepo;
-    private final TransactionRepo transactionRepo;
+    private final UserProfileRepo userProfileRepo;
+    private final ReasonCodeRegistry reasonCodeRegistry;
+    private final ResponseCache responseCache;
+    private final RecentDecisionIndex recentDecisions;
+
+    private static final int MAX_SCROLL_PAGE_SIZE = 500;
 
     /**
      * Get a decision by transaction ID
@@ -33,7 +41,9 @@ public class DecisionQueryController {
      */
     @GetMapping("/{transactionId}")
     public ResponseEntity<DecisionEntity> getDecisionByTransactionId(@PathVariable("transactionId") String transactionId) {
-        Optional<DecisionEntity> decision = decisionRepo.findById(transactionId);
+        // Callers usually ask right after submitting; the decision is still in memory then
+        Optional<DecisionEntity> decision = recentDecisions.find(transactionId)
+            .or(() -> decisionRepo.findById(transactionId));
         return decision.map(ResponseEntity::ok)
                       .orElse(ResponseEntity.notFound().build());
     }
@@ -41,11 +51,13 @@ public class DecisionQueryController {
     /**
      * Query decisions by userId with pagination
      * GET /api/decisions?userId=charlie&page=0&size=20
+     * GET /api/decisions?reason=geo_impossible,new_device&decision=BLOCK
      */
     @GetMapping
     public ResponseEntity<Page<DecisionEntity>> queryDecisions(
             @RequestParam(value = "userId", required = false) String userId,
             @RequestParam(value = "decision", required = false) String decision,
+            @RequestParam(value = "reason", required = false) List<String> reasons,
             @RequestParam(value = "startDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startDate,
             @RequestParam(value = "endDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endDate,
             @RequestParam(value = "page", defaultValue = "0") int page,
@@ -54,9 +66,16 @@ public class DecisionQueryController {
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by("evaluatedAt").descending());
 
         Page<DecisionEntity> results;
+        // Blank values (?reason=,) are no filter, not an empty set that every row contains
+        List<String> reasonFilter = reasons == null ? List.of()
+            : reasons.stream().filter(reason -> !reason.isBlank()).toList();
 
+        // Query by reason codes, combined with any other filters given
+        if (!reasonFilter.isEmpty()) {
+            results = queryByReasons(reasonFilter, userId, decision, startDate, endDate, PageRequest.of(page, size));
+        }
         // Query by userId
-        if (userId != null && !userId.isBlank()) {
+        else if (userId != null && !userId.isBlank()) {
             results = decisionRepo.findByUserId(userId, pageRequest);
         }
         // Query by decision type
@@ -75,6 +94,45 @@ public class DecisionQueryController {
         return ResponseEntity.ok(results);
     }
 
+    /**
+     * Keyset-paginated variant of {@link #queryDecisions}: constant cost per page, no total count
+     * GET /api/decisions/scroll?userId=charlie&size=20&cursor=...
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<?> scrollDecisions(
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestParam(value = "decision", required = false) String decision,
+            @RequestParam(value = "startDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startDate,
+            @RequestParam(value = "endDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endDate,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size
+    ) {
+        DecisionCursor position;
+        try {
+            position = DecisionCursor.decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
+        int pageSize = clampPageSize(size);
+        // One extra row tells us whether another page exists without a COUNT(*)
+        Limit limit = Limit.of(pageSize + 1);
+        Instant at = position.evaluatedAt();
+        String id = position.transactionId();
+
+        List<DecisionEntity> rows;
+        // Same filter priority as queryDecisions
+        if (userId != null && !userId.isBlank()) {
+            rows = decisionRepo.seekByUserId(userId, at, id, limit);
+        } else if (decision != null && !decision.isBlank()) {
+            rows = decisionRepo.seekByDecision(decision.toUpperCase(), at, id, limit);
+        } else if (startDate != null && endDate != null) {
+            rows = decisionRepo.seekByDateRange(startDate, endDate, at, id, limit);
+        } else {
+            rows = decisionRepo.seekAll(at, id, limit);
+        }
+        return ResponseEntity.ok(toCursorPage(rows, pageSize));
+    }
+
     /**
      * Get decisions for a user within a date range
      * GET /api/decisions/user/{userId}/range?startDate=2025-11-01T00:00:00Z&endDate=2025-11-10T23:59:59Z
@@ -94,13 +152,35 @@ public class DecisionQueryController {
      * GET /api/decisions/high-risk?page=0&size=50
      */
     @GetMapping("/high-risk")
-    public ResponseEntity<Page<DecisionEntity>> getHighRiskDecisions(
+    public ResponseEntity<byte[]> getHighRiskDecisions(
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "50") int size
+            @RequestParam(value = "size", defaultValue = "50") int size,
+            WebRequest request
     ) {
         PageRequest pageRequest = PageRequest.of(page, size);
-        Page<DecisionEntity> results = decisionRepo.findHighRiskDecisions(pageRequest);
-        return ResponseEntity.ok(results);
+        return responseCache.get("high-risk", page + "|" + size, ResponseCache.SCOPE_HIGH_RISK, request,
+            () -> decisionRepo.findHighRiskDecisions(pageRequest));
+    }
+
+    /**
+     * Keyset-paginated high-risk decisions
+     * GET /api/decisions/high-risk/scroll?size=50&cursor=...
+     */
+    @GetMapping("/high-risk/scroll")
+    public ResponseEntity<?> scrollHighRiskDecisions(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "50") int size
+    ) {
+        DecisionCursor position;
+        try {
+            position = DecisionCursor.decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
+        int pageSize = clampPageSize(size);
+        List<DecisionEntity> rows = decisionRepo.seekHighRisk(
+            position.evaluatedAt(), position.transactionId(), Limit.of(pageSize + 1));
+        return ResponseEntity.ok(toCursorPage(rows, pageSize));
     }
 
     /**
@@ -108,44 +188,38 @@ public class DecisionQueryController {
      * GET /api/decisions/user/{userId}/stats
      */
     @GetMapping("/user/{userId}/stats")
-    @Transactional(readOnly = true)
-    public ResponseEntity<Map<String, Object>> getUserStats(@PathVariable("userId") String userId) {
-        long totalDecisions = decisionRepo.countByUserId(userId);
-        long allowCount = decisionRepo.countByUserIdAndDecision(userId, "ALLOW");
-        long reviewCount = decisionRepo.countByUserIdAndDecision(userId, "REVIEW");
-        long blockCount = decisionRepo.countByUserIdAndDecision(userId, "BLOCK");
-        
-        // Get average score
-        Double avgScore = decisionRepo.averageScoreByUserId(userId);
-        
-        // Get total transaction volume for this user
-        Double totalVolume = transactionRepo.sumAmountsByUserId(userId);
-        
-        // Get recent decisions (last 10)
+    public ResponseEntity<byte[]> getUserStats(@PathVariable("userId") String userId, WebRequest request) {
+        return responseCache.get("user-stats", userId, ResponseCache.userScope(userId), request,
+            () -> userStats(userId));
+    }
+
+    private Map<String, Object> userStats(String userId) {
+        // Aggregates come from the user's profile row; only the recent list touches fraud_decisions
+        UserProfileEntity profile = userProfileRepo.findById(userId)
+            .orElseGet(() -> UserProfileEntity.builder().userId(userId).build());
         List<DecisionEntity> recentDecisions = decisionRepo.findTop10ByUserIdOrderByEvaluatedAtDesc(userId);
-        
-        // Get first and last transaction dates
-        Instant firstTransactionAt = transactionRepo.findFirstByUserIdOrderByOccurredAtAsc(userId)
-            .map(TransactionEntity::getOccurredAt).orElse(null);
-        Instant lastTransactionAt = transactionRepo.findFirstByUserIdOrderByOccurredAtDesc(userId)
-            .map(TransactionEntity::getOccurredAt).orElse(null);
-        
+
+        long totalDecisions = profile.getTotalCount();
+        long reviewCount = profile.getReviewCount();
+        long blockCount = profile.getBlockCount();
+
         // Calculate risk rate
         double riskRate = totalDecisions > 0 
             ? ((double)(reviewCount + blockCount) / totalDecisions) * 100 
             : 0.0;
+        double avgScore = totalDecisions > 0 ? profile.getScoreSum() / totalDecisions : 0.0;
         
         Map<String, Object> stats = new java.util.HashMap<>();
         stats.put("userId", userId);
         stats.put("totalDecisions", totalDecisions);
-        stats.put("allowCount", allowCount);
+        stats.put("allowCount", profile.getAllowCount());
         stats.put("reviewCount", reviewCount);
         stats.put("blockCount", blockCount);
         stats.put("riskRate", riskRate);
-        stats.put("averageScore", avgScore != null ? avgScore : 0.0);
-        stats.put("totalVolume", totalVolume != null ? totalVolume : 0.0);
-        stats.put("firstTransactionAt", firstTransactionAt);
-        stats.put("lastTransactionAt", lastTransactionAt);
+        stats.put("averageScore", avgScore);
+        stats.put("totalVolume", profile.getTotalVolume());
+        stats.put("firstTransactionAt", profile.getFirstTransactionAt());
+        stats.put("lastTransactionAt", profile.getLastTransactionAt());
         stats.put("recentDecisions", recentDecisions.stream()
             .map(d -> {
                 Map<String, Object> decisionMap = new java.util.HashMap<>();
@@ -158,8 +232,7 @@ public class DecisionQueryController {
             })
             .collect(Collectors.toList())
         );
-        
-        return ResponseEntity.ok(stats);
+        return stats;
     }
 
     /**
@@ -174,4 +247,36 @@ public class DecisionQueryController {
             "totalDecisions", String.valueOf(count)
         ));
     }
+
+    private Page<DecisionEntity> queryByReasons(List<String> reasons, String userId, String decision,
+                                                Instant startDate, Instant endDate, PageRequest pageRequest) {
+        StringBuilder codes = new StringBuilder("{");
+        for (String reason : reasons) {
+            Optional<Short> code = reasonCodeRegistry.find(reason.trim().toLowerCase(java.util.Locale.ROOT));
+            if (code.isEmpty()) {
+                // Never recorded, so nothing can match
+                return Page.empty(pageRequest);
+            }
+            codes.append(codes.length() > 1 ? "," : "").append(code.get());
+        }
+        codes.append('}');
+        return decisionRepo.findByReasonCodes(codes.toString(),
+            userId != null && !userId.isBlank() ? userId : null,
+            decision != null && !decision.isBlank() ? decision.toUpperCase() : null,
+            startDate, endDate, pageRequest);
+    }
+
+    private static int clampPageSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_SCROLL_PAGE_SIZE);
+    }
+
+    private static CursorPage<DecisionEntity> toCursorPage(List<DecisionEntity> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, rows.size(), null);
+        }
+        List<DecisionEntity> content = rows.subList(0, pageSize);
+        DecisionEntity last = content.get(pageSize - 1);
+        String next = new DecisionCursor(last.getEvaluatedAt(), last.getTransactionId()).encode();
+        return new CursorPage<>(content, pageSize, next);
+    }
 }
@@ -0,0 +1,54 @@
+package com.fraud.engine.web;
+
+import com.fraud.engine.stream.DecisionBroadcaster;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/decisions")
+@RequiredArgsConstructor
+public class DecisionStreamController {
+
+    private final DecisionBroadcaster broadcaster;
+
+    /**
+     * Live decisions as Server-Sent Events, filtered server-side
+     * GET /api/decisions/stream?decision=REVIEW,BLOCK&userId=charlie
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(
+            @RequestParam(value = "decision", required = false) String decision,
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        Set<String> decisions = null;
+        if (decision != null && !decision.isBlank()) {
+            decisions = Arrays.stream(decision.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(String::toUpperCase)
+                .collect(Collectors.toUnmodifiableSet());
+        }
+        DecisionBroadcaster.Filter filter = new DecisionBroadcaster.Filter(
+            decisions, userId != null && !userId.isBlank() ? userId : null);
+
+        SseEmitter emitter = broadcaster.subscribe(filter, lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok()
+            .header("X-Accel-Buffering", "no")
+            .body(emitter);
+    }
+}
@@ -0,0 +1,76 @@
+package com.fraud.engine.web;
+
+import com.fraud.engine.export.ExportFormat;
+import com.fraud.engine.export.StreamingExporter;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Bulk extracts for compliance, streamed row by row so heap use stays flat.
+ * GET /api/export/decisions?startDate=2025-10-01T00:00:00Z&endDate=2025-11-01T00:00:00Z&format=csv&gzip=true
+ */
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final StreamingExporter exporter;
+
+    @GetMapping("/{dataset}")
+    public ResponseEntity<?> export(
+            @PathVariable("dataset") String dataset,
+            @RequestParam(value = "startDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startDate,
+            @RequestParam(value = "endDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endDate,
+            @RequestParam(value = "decision", required = false) String decision,
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip
+    ) {
+        if (!"decisions".equals(dataset) && !"transactions".equals(dataset)) {
+            return ResponseEntity.notFound().build();
+        }
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", "format must be csv or ndjson"));
+        }
+
+        StreamingExporter.Filter filter = new StreamingExporter.Filter(
+            startDate,
+            endDate,
+            decision != null && !decision.isBlank() ? decision.toUpperCase() : null,
+            userId != null && !userId.isBlank() ? userId : null);
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            if ("decisions".equals(dataset)) {
+                exporter.exportDecisions(filter, exportFormat, target);
+            } else {
+                exporter.exportTransactions(filter, exportFormat, target);
+            }
+            if (target instanceof GZIPOutputStream gz) {
+                gz.finish();
+            }
+        };
+
+        String filename = dataset + "." + exportFormat.extension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.contentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+            .body(body);
+    }
+}
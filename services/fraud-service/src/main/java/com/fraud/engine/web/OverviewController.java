@@ -1,58 +1,168 @@
 package com.fraud.engine.web;
 
-import com.fraud.engine.db.DecisionEntity;
-import com.fraud.engine.db.DecisionRepo;
-import com.fraud.engine.db.TransactionEntity;
-import com.fraud.engine.db.TransactionRepo;
+import com.fraud.engine.stats.DecisionRollups;
+import com.fraud.engine.stats.HeavyHitters;
+import com.fraud.engine.stats.OverviewCounters;
+import com.fraud.engine.stats.TrendGranularity;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import lombok.Builder;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/overview")
 @RequiredArgsConstructor
 public class OverviewController {
 
-    private final DecisionRepo decisionRepo;
-    private final TransactionRepo transactionRepo;
+    private final OverviewCounters overviewCounters;
+    private final DecisionRollups decisionRollups;
+    private final ResponseCache responseCache;
+    private final HeavyHitters heavyHitters;
+
+    @Value
+    @Builder
+    public static class TrendPoint {
+        Instant bucketStart;
+        long total;
+        long allowCount;
+        long reviewCount;
+        long blockCount;
+        double averageScore;
+        double averageLatencyMs;
+        double totalVolume;
+    }
 
     @GetMapping
-    @Transactional(readOnly = true)
-    public ResponseEntity<Map<String, Object>> overview() {
-        long totalDecisions = decisionRepo.count();
-        long allowCount = decisionRepo.countByDecision("ALLOW");
-        long reviewCount = decisionRepo.countByDecision("REVIEW");
-        long blockCount = decisionRepo.countByDecision("BLOCK");
+    public ResponseEntity<byte[]> overview(WebRequest request) {
+        return responseCache.get("overview", "", null, request, this::overviewPayload);
+    }
+
+    private Map<String, Object> overviewPayload() {
+        // Served from the materialized counters row, not from scans of the base tables
+        OverviewCounters.Totals totals = overviewCounters.totals();
+
+        Map<String, Object> payload = new java.util.HashMap<>();
+        payload.put("totalDecisions", totals.totalDecisions());
+        payload.put("allowCount", totals.allowCount());
+        payload.put("reviewCount", totals.reviewCount());
+        payload.put("blockCount", totals.blockCount());
+        payload.put("blockRate", totals.blockRate());
+        payload.put("totalTransactions", totals.totalTransactions());
+        payload.put("totalVolume", totals.totalVolume());
+        payload.put("latestDecisionAt", totals.latestDecisionAt());
+        payload.put("latestTransactionAt", totals.latestTransactionAt());
+        payload.put("averageReviewLatencyMs", totals.averageReviewLatencyMs());
+        return payload;
+    }
 
-        long totalTransactions = transactionRepo.count();
-        Double totalVolume = transactionRepo.sumAmounts();
+    /**
+     * Most frequent users, merchants and device IPs over the heavy-hitter window (approximate;
+     * each count may overstate the true one by at most its {@code error})
+     * GET /api/overview/top?limit=10&dimension=merchant
+     */
+    @GetMapping("/top")
+    public ResponseEntity<?> top(
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            @RequestParam(value = "dimension", required = false) String dimension
+    ) {
+        if (limit < 1 || limit > 100) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be between 1 and 100"));
+        }
+        Map<String, HeavyHitters.Top> payload = new java.util.LinkedHashMap<>();
+        heavyHitters.top(limit).forEach((dim, top) -> {
+            if (dimension == null || dim.tag().equalsIgnoreCase(dimension)) {
+                payload.put(dim.tag(), top);
+            }
+        });
+        if (payload.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "dimension must be user, merchant or ip"));
+        }
+        return ResponseEntity.ok(payload);
+    }
 
-        DecisionEntity latestDecision = decisionRepo.findFirstByOrderByEvaluatedAtDesc();
-        Instant latestDecisionAt = latestDecision != null ? latestDecision.getEvaluatedAt() : null;
+    /**
+     * Decision trend read only from the rollup tables
+     * GET /api/overview/trend?from=2025-11-10T00:00:00Z&to=2025-11-11T00:00:00Z&granularity=HOUR
+     */
+    @GetMapping("/trend")
+    public ResponseEntity<?> trend(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(value = "granularity", defaultValue = "MINUTE") String granularity,
+            WebRequest request
+    ) {
+        TrendGranularity unit;
+        try {
+            unit = TrendGranularity.valueOf(granularity.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", "granularity must be MINUTE or HOUR"));
+        }
 
-        TransactionEntity latestTx = transactionRepo.findFirstByOrderByOccurredAtDesc();
-        Instant latestTransactionAt = latestTx != null ? latestTx.getOccurredAt() : null;
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(unit.defaultRange());
+        if (!start.isBefore(end)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "from must be before to"));
+        }
+        if (start.plus(unit.maxRange()).isBefore(end)) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "range too large for %s granularity (max %s)".formatted(unit, unit.maxRange())));
+        }
 
-        double blockRate = totalDecisions == 0 ? 0.0 : (double) blockCount / totalDecisions;
-        Double reviewLatencyMs = decisionRepo.averageLatencyForDecision("REVIEW");
+        // Keyed on the parameters as given, so open-ended "last N" requests share an entry
+        String args = unit + "|" + from + "|" + to;
+        return responseCache.get("trend", args, null, request, () -> trendPayload(unit, start, end));
+    }
 
-        Map<String, Object> payload = new java.util.HashMap<>();
-        payload.put("totalDecisions", totalDecisions);
-        payload.put("allowCount", allowCount);
-        payload.put("reviewCount", reviewCount);
-        payload.put("blockCount", blockCount);
-        payload.put("blockRate", blockRate);
-        payload.put("totalTransactions", totalTransactions);
-        payload.put("totalVolume", totalVolume != null ? totalVolume : 0.0);
-        payload.put("latestDecisionAt", latestDecisionAt);
-        payload.put("latestTransactionAt", latestTransactionAt);
-        payload.put("averageReviewLatencyMs", reviewLatencyMs != null ? reviewLatencyMs : 0.0);
+    private Map<String, Object> trendPayload(TrendGranularity unit, Instant start, Instant end) {
+        // Fold the per-decision cells into one point per bucket
+        Map<Instant, long[]> counts = new TreeMap<>();
+        Map<Instant, double[]> sums = new TreeMap<>();
+        for (DecisionRollups.Cell cell : decisionRollups.cells(unit, unit.bucketOf(start), end)) {
+            long[] c = counts.computeIfAbsent(cell.bucketStart(), k -> new long[4]);
+            double[] s = sums.computeIfAbsent(cell.bucketStart(), k -> new double[3]);
+            c[0] += cell.count();
+            switch (cell.decision()) {
+                case "ALLOW" -> c[1] += cell.count();
+                case "REVIEW" -> c[2] += cell.count();
+                case "BLOCK" -> c[3] += cell.count();
+                default -> { }
+            }
+            s[0] += cell.scoreSum();
+            s[1] += cell.latencySumMs();
+            s[2] += cell.amountSum();
+        }
 
-        return ResponseEntity.ok(payload);
+        List<TrendPoint> points = new ArrayList<>(counts.size());
+        counts.forEach((bucket, c) -> {
+            double[] s = sums.get(bucket);
+            points.add(TrendPoint.builder()
+                .bucketStart(bucket)
+                .total(c[0])
+                .allowCount(c[1])
+                .reviewCount(c[2])
+                .blockCount(c[3])
+                .averageScore(c[0] == 0 ? 0.0 : s[0] / c[0])
+                .averageLatencyMs(c[0] == 0 ? 0.0 : s[1] / c[0])
+                .totalVolume(s[2])
+                .build());
+        });
+
+        Map<String, Object> payload = new java.util.HashMap<>();
+        payload.put("granularity", unit.name());
+        payload.put("from", start);
+        payload.put("to", end);
+        payload.put("points", points);
+        return payload;
     }
 }
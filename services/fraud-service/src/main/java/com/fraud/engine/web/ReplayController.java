@@ -0,0 +1,55 @@
+package com.fraud.engine.web;
+
+import com.fraud.engine.replay.ReplayEngine;
+import com.fraud.engine.service.SignalRules;
+import java.time.Instant;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Re-score stored transactions with candidate rule thresholds and compare with the stored
+ * decisions. One run at a time; it continues in the background and is polled with GET.
+ * POST /api/replay {"startDate":"2025-09-01T00:00:00Z","endDate":"2025-12-01T00:00:00Z","rules":{"burst.count":5}}
+ */
+@RestController
+@RequestMapping("/api/replay")
+@RequiredArgsConstructor
+public class ReplayController {
+
+    private final ReplayEngine replayEngine;
+
+    /** {@code rules} keys are {@code app.rules.*} names without the prefix; unset ones keep production values. */
+    public record ReplayRequest(Instant startDate, Instant endDate, Map<String, String> rules) {
+    }
+
+    @PostMapping
+    public ResponseEntity<?> start(@RequestBody ReplayRequest request) {
+        if (request.startDate() == null || request.endDate() == null || !request.startDate().isBefore(request.endDate())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "startDate and endDate are required, startDate before endDate"));
+        }
+        SignalRules.Thresholds thresholds;
+        try {
+            thresholds = replayEngine.thresholds(request.rules());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+        if (!replayEngine.start(request.startDate(), request.endDate(), thresholds)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "A replay is already running"));
+        }
+        return ResponseEntity.accepted().body(replayEngine.status().orElseThrow());
+    }
+
+    @GetMapping
+    public ResponseEntity<ReplayEngine.Status> status() {
+        return replayEngine.status()
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,163 @@
+package com.fraud.engine.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fraud.engine.stats.AfterCommit;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Cache of serialised dashboard responses.
+ *
+ * Entries are bounded by count and by {@code app.web-cache.ttl-ms}. Concurrent misses for the
+ * same key wait on the first caller's load, so a burst of identical requests costs one query.
+ * Entries keep the JSON bytes and their ETag, so hits and {@code If-None-Match} revalidations
+ * never serialise again.
+ *
+ * Invalidation is by scope (a user, the high-risk list): each scope hashes to a generation
+ * counter that is part of the key, and a committed decision bumps the counters it affects.
+ * Older entries simply stop being looked up and age out. A load that raced with a bump is
+ * stored under the old generation, so it can never be served after the write. Decisions
+ * written by other instances are only picked up through the TTL.
+ */
+@Component
+public class ResponseCache {
+
+    public static final String SCOPE_HIGH_RISK = "high-risk";
+
+    // Collisions only cause extra misses; the array bounds memory regardless of user count
+    private static final int GENERATION_SLOTS = 4096;
+
+    private record Key(String name, String args, long generation) {
+    }
+
+    private record Entry(byte[] body, String etag) {
+    }
+
+    private final AsyncCache<Key, Entry> cache;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_SLOTS);
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter coalescedCounter;
+    private final Counter notModifiedCounter;
+
+    public ResponseCache(
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.web-cache.max-entries:10000}") long maxEntries,
+            @Value("${app.web-cache.ttl-ms:2000}") long ttlMs) {
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(Duration.ofMillis(ttlMs))
+            .buildAsync();
+
+        Gauge.builder("fraud_response_cache_entries", cache, c -> c.synchronous().estimatedSize())
+            .description("Cached dashboard responses")
+            .register(meterRegistry);
+        this.hitCounter = requests(meterRegistry, "hit");
+        this.missCounter = requests(meterRegistry, "miss");
+        this.coalescedCounter = requests(meterRegistry, "coalesced");
+        this.notModifiedCounter = requests(meterRegistry, "not_modified");
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("fraud_response_cache_requests_total")
+            .description("Dashboard response cache lookups by result")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Cached JSON response for {@code name}/{@code args}, loading it with {@code loader} in a
+     * read-only transaction on a miss. Returns null after answering 304 Not Modified.
+     *
+     * @param scope invalidation scope of the response, or null for TTL-only entries
+     */
+    public ResponseEntity<byte[]> get(String name, String args, String scope, WebRequest request, Supplier<?> loader) {
+        long generation = scope != null ? generations.get(slot(scope)) : 0L;
+        Entry entry = load(new Key(name, args, generation), loader);
+        if (request.checkNotModified(entry.etag())) {
+            notModifiedCounter.increment();
+            return null;
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(entry.body());
+    }
+
+    /** Drop responses affected by a decision once its transaction commits. */
+    public void onDecisionWritten(String userId, String decision) {
+        AfterCommit.run(() -> {
+            invalidate(userScope(userId));
+            if (!"ALLOW".equals(decision)) {
+                invalidate(SCOPE_HIGH_RISK);
+            }
+        });
+    }
+
+    public static String userScope(String userId) {
+        return "user:" + userId;
+    }
+
+    private void invalidate(String scope) {
+        generations.incrementAndGet(slot(scope));
+    }
+
+    private Entry load(Key key, Supplier<?> loader) {
+        CompletableFuture<Entry> created = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = cache.asMap().putIfAbsent(key, created);
+        if (existing != null) {
+            (existing.isDone() ? hitCounter : coalescedCounter).increment();
+            try {
+                return existing.join();
+            } catch (CompletionException ex) {
+                // Surface the leader's failure to every waiter
+                throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+            }
+        }
+        missCounter.increment();
+        try {
+            Entry entry = serialise(readOnlyTx.execute(status -> loader.get()));
+            created.complete(entry);
+            return entry;
+        } catch (RuntimeException ex) {
+            // Failed futures are evicted by the cache, so the next request retries
+            created.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private Entry serialise(Object body) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(body);
+            return new Entry(bytes, "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"");
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to serialise cached response", ex);
+        }
+    }
+
+    private static int slot(String scope) {
+        return (scope.hashCode() & Integer.MAX_VALUE) % GENERATION_SLOTS;
+    }
+}
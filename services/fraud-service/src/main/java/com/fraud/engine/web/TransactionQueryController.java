@@ -3,6 +3,7 @@ package com.fraud.engine.web;
 import com.fraud.engine.db.DecisionEntity;
 import com.fraud.engine.db.DecisionRepo;
 import com.fraud.engine.db.TransactionRepo;
+import com.fraud.engine.payload.TransactionPayloadStore;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
@@ -12,8 +13,10 @@ import lombok.Value;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -25,6 +28,7 @@ public class TransactionQueryController {
 
     private final TransactionRepo transactionRepo;
     private final DecisionRepo decisionRepo;
+    private final TransactionPayloadStore payloadStore;
 
     @Value
     @Builder
@@ -67,6 +71,17 @@ public class TransactionQueryController {
         return ResponseEntity.ok(results);
     }
 
+    /**
+     * GET /api/transactions/{transactionId}/payload
+     * The original event as received, for audit and debugging
+     */
+    @GetMapping(value = "/{transactionId}/payload", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> getPayload(@PathVariable String transactionId) {
+        return payloadStore.find(transactionId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
     private TransactionView toView(String transactionId, String userId, Double amount, String currency, String merchantId, Instant occurredAt) {
         DecisionEntity decision = decisionRepo.findById(transactionId).orElse(null);
         return TransactionView.builder()
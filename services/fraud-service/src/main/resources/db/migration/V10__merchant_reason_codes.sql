@@ -0,0 +1,6 @@
+-- Reasons emitted by the merchant velocity rules
+INSERT INTO reason_codes (name) VALUES
+    ('merchant_velocity'),
+    ('merchant_card_testing'),
+    ('merchant_high_flag_rate')
+ON CONFLICT (name) DO NOTHING;
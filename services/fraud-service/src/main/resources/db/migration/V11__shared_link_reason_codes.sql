@@ -0,0 +1,5 @@
+-- Reasons emitted by the shared device/IP rules
+INSERT INTO reason_codes (name) VALUES
+    ('shared_device'),
+    ('shared_ip')
+ON CONFLICT (name) DO NOTHING;
@@ -0,0 +1,17 @@
+-- One row per decided transaction. fraud_decisions is partitioned on evaluated_at, so its key
+-- (transaction_id, evaluated_at) cannot keep a transaction from being decided twice; this
+-- unpartitioned key can. FraudProcessor claims the transaction here first (INSERT ... ON CONFLICT
+-- DO NOTHING) and skips the event when the claim finds an existing row.
+CREATE TABLE IF NOT EXISTS decided_transactions (
+    transaction_id VARCHAR(255) PRIMARY KEY,
+    decided_at TIMESTAMP NOT NULL
+);
+
+-- Pruned together with expired decision partitions (see PartitionManager)
+CREATE INDEX IF NOT EXISTS idx_decided_transactions_decided_at ON decided_transactions (decided_at);
+
+INSERT INTO decided_transactions (transaction_id, decided_at)
+SELECT transaction_id, MAX(evaluated_at)
+FROM fraud_decisions
+GROUP BY transaction_id
+ON CONFLICT (transaction_id) DO NOTHING;
@@ -0,0 +1,16 @@
+-- Flushed overview deltas newer than the last reconciliation cutoff, one row per minute of
+-- evaluated_at. Reconciliation recounts everything before its cutoff into overview_counters
+-- and deletes the minutes it covered, so a delta is never counted by both.
+CREATE TABLE IF NOT EXISTS overview_counter_minutes (
+    bucket_start TIMESTAMP PRIMARY KEY,
+    allow_count BIGINT NOT NULL DEFAULT 0,
+    review_count BIGINT NOT NULL DEFAULT 0,
+    block_count BIGINT NOT NULL DEFAULT 0,
+    review_latency_sum_ms BIGINT NOT NULL DEFAULT 0,
+    total_transactions BIGINT NOT NULL DEFAULT 0,
+    total_volume DOUBLE PRECISION NOT NULL DEFAULT 0
+);
+
+-- Decisions evaluated before this are in the overview_counters totals; NULL until the first
+-- reconciliation, in which case every flushed delta goes to overview_counter_minutes
+ALTER TABLE overview_counters ADD COLUMN IF NOT EXISTS reconciled_through TIMESTAMP;
@@ -0,0 +1,31 @@
+-- Materialized dashboard counters so /api/overview no longer scans the base tables
+CREATE TABLE IF NOT EXISTS overview_counters (
+    id INTEGER PRIMARY KEY,
+    total_decisions BIGINT NOT NULL DEFAULT 0,
+    allow_count BIGINT NOT NULL DEFAULT 0,
+    review_count BIGINT NOT NULL DEFAULT 0,
+    block_count BIGINT NOT NULL DEFAULT 0,
+    review_latency_sum_ms BIGINT NOT NULL DEFAULT 0,
+    total_transactions BIGINT NOT NULL DEFAULT 0,
+    total_volume DOUBLE PRECISION NOT NULL DEFAULT 0,
+    latest_decision_at TIMESTAMP,
+    latest_transaction_at TIMESTAMP,
+    reconciled_at TIMESTAMP
+);
+
+-- Seed the single counters row from whatever is already stored
+INSERT INTO overview_counters (
+    id, total_decisions, allow_count, review_count, block_count, review_latency_sum_ms,
+    total_transactions, total_volume, latest_decision_at, latest_transaction_at, reconciled_at)
+SELECT 1,
+       (SELECT COUNT(*) FROM fraud_decisions),
+       (SELECT COUNT(*) FROM fraud_decisions WHERE decision = 'ALLOW'),
+       (SELECT COUNT(*) FROM fraud_decisions WHERE decision = 'REVIEW'),
+       (SELECT COUNT(*) FROM fraud_decisions WHERE decision = 'BLOCK'),
+       (SELECT COALESCE(SUM(latency_ms), 0) FROM fraud_decisions WHERE decision = 'REVIEW'),
+       (SELECT COUNT(*) FROM transactions),
+       (SELECT COALESCE(SUM(amount), 0) FROM transactions),
+       (SELECT MAX(evaluated_at) FROM fraud_decisions),
+       (SELECT MAX(occurred_at) FROM transactions),
+       NOW()
+WHERE NOT EXISTS (SELECT 1 FROM overview_counters WHERE id = 1);
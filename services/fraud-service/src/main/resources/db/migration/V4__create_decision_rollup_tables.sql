@@ -0,0 +1,34 @@
+-- Time-bucketed decision rollups backing /api/overview/trend
+CREATE TABLE IF NOT EXISTS decision_rollup_minute (
+    bucket_start TIMESTAMP NOT NULL,
+    decision VARCHAR(50) NOT NULL,
+    decision_count BIGINT NOT NULL DEFAULT 0,
+    score_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    latency_sum_ms BIGINT NOT NULL DEFAULT 0,
+    amount_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    PRIMARY KEY (bucket_start, decision)
+);
+
+CREATE TABLE IF NOT EXISTS decision_rollup_hour (
+    bucket_start TIMESTAMP NOT NULL,
+    decision VARCHAR(50) NOT NULL,
+    decision_count BIGINT NOT NULL DEFAULT 0,
+    score_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    latency_sum_ms BIGINT NOT NULL DEFAULT 0,
+    amount_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    PRIMARY KEY (bucket_start, decision)
+);
+
+-- Backfill from existing history so charts are populated right after the upgrade
+INSERT INTO decision_rollup_minute (bucket_start, decision, decision_count, score_sum, latency_sum_ms, amount_sum)
+SELECT date_trunc('minute', d.evaluated_at), d.decision, COUNT(*), SUM(d.score), SUM(d.latency_ms), COALESCE(SUM(t.amount), 0)
+FROM fraud_decisions d
+LEFT JOIN transactions t ON t.transaction_id = d.transaction_id
+GROUP BY 1, 2
+ON CONFLICT (bucket_start, decision) DO NOTHING;
+
+INSERT INTO decision_rollup_hour (bucket_start, decision, decision_count, score_sum, latency_sum_ms, amount_sum)
+SELECT date_trunc('hour', bucket_start), decision, SUM(decision_count), SUM(score_sum), SUM(latency_sum_ms), SUM(amount_sum)
+FROM decision_rollup_minute
+GROUP BY 1, 2
+ON CONFLICT (bucket_start, decision) DO NOTHING;
@@ -0,0 +1,32 @@
+-- Per-user running aggregates backing /api/decisions/user/{userId}/stats
+CREATE TABLE IF NOT EXISTS user_profile (
+    user_id VARCHAR(255) PRIMARY KEY,
+    total_count BIGINT NOT NULL DEFAULT 0,
+    allow_count BIGINT NOT NULL DEFAULT 0,
+    review_count BIGINT NOT NULL DEFAULT 0,
+    block_count BIGINT NOT NULL DEFAULT 0,
+    score_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    total_volume DOUBLE PRECISION NOT NULL DEFAULT 0,
+    first_transaction_at TIMESTAMP,
+    last_transaction_at TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+-- Backfill from existing decisions
+INSERT INTO user_profile (
+    user_id, total_count, allow_count, review_count, block_count, score_sum,
+    total_volume, first_transaction_at, last_transaction_at, updated_at)
+SELECT d.user_id,
+       COUNT(*),
+       COUNT(*) FILTER (WHERE d.decision = 'ALLOW'),
+       COUNT(*) FILTER (WHERE d.decision = 'REVIEW'),
+       COUNT(*) FILTER (WHERE d.decision = 'BLOCK'),
+       SUM(d.score),
+       COALESCE(SUM(t.amount), 0),
+       MIN(COALESCE(t.occurred_at, d.evaluated_at)),
+       MAX(COALESCE(t.occurred_at, d.evaluated_at)),
+       NOW()
+FROM fraud_decisions d
+LEFT JOIN transactions t ON t.transaction_id = d.transaction_id
+GROUP BY d.user_id
+ON CONFLICT (user_id) DO NOTHING;
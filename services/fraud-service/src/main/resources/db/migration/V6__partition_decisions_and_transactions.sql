@@ -0,0 +1,103 @@
+-- Convert fraud_decisions and transactions to monthly range partitions on their time column.
+-- Old months are then dropped as whole partitions (see PartitionManager) instead of large DELETEs.
+-- A partitioned table's primary key must contain the partition key, so the keys become
+-- (transaction_id, <time column>); lookups by transaction_id still use the key's leading column.
+
+-- ─── fraud_decisions ─────────────────────────────────────────────────────
+ALTER TABLE fraud_decisions RENAME TO fraud_decisions_unpartitioned;
+ALTER TABLE fraud_decisions_unpartitioned RENAME CONSTRAINT fraud_decisions_pkey TO fraud_decisions_unpartitioned_pkey;
+DROP INDEX IF EXISTS idx_fraud_decisions_user_id;
+DROP INDEX IF EXISTS idx_fraud_decisions_decision;
+DROP INDEX IF EXISTS idx_fraud_decisions_evaluated_at;
+DROP INDEX IF EXISTS idx_fraud_decisions_user_date;
+
+CREATE TABLE fraud_decisions (
+    transaction_id VARCHAR(255) NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    decision VARCHAR(50) NOT NULL,
+    score DOUBLE PRECISION NOT NULL,
+    reasons_json TEXT,
+    latency_ms BIGINT NOT NULL,
+    evaluated_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (transaction_id, evaluated_at)
+) PARTITION BY RANGE (evaluated_at);
+
+-- Safety net for rows outside every pre-created month
+CREATE TABLE fraud_decisions_default PARTITION OF fraud_decisions DEFAULT;
+
+-- ─── transactions ────────────────────────────────────────────────────────
+ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+ALTER TABLE transactions_unpartitioned RENAME CONSTRAINT transactions_pkey TO transactions_unpartitioned_pkey;
+DROP INDEX IF EXISTS idx_transactions_user_id;
+DROP INDEX IF EXISTS idx_transactions_occurred_at;
+DROP INDEX IF EXISTS idx_transactions_user_date;
+
+CREATE TABLE transactions (
+    transaction_id VARCHAR(255) NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    amount DOUBLE PRECISION NOT NULL,
+    currency VARCHAR(3),
+    merchant_id VARCHAR(255),
+    occurred_at TIMESTAMP NOT NULL,
+    device_id VARCHAR(255),
+    device_ip VARCHAR(45),
+    device_user_agent TEXT,
+    latitude DOUBLE PRECISION,
+    longitude DOUBLE PRECISION,
+    city VARCHAR(255),
+    country VARCHAR(255),
+    raw_payload TEXT,
+    PRIMARY KEY (transaction_id, occurred_at)
+) PARTITION BY RANGE (occurred_at);
+
+CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+
+-- ─── Monthly partitions covering existing data plus three months ahead ───
+DO $$
+DECLARE
+    month_start DATE;
+    last_month DATE := (date_trunc('month', NOW()) + INTERVAL '3 months')::DATE;
+BEGIN
+    month_start := date_trunc('month', COALESCE(
+        (SELECT LEAST(
+            (SELECT MIN(evaluated_at) FROM fraud_decisions_unpartitioned),
+            (SELECT MIN(occurred_at) FROM transactions_unpartitioned))),
+        NOW()))::DATE;
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF fraud_decisions FOR VALUES FROM (%L) TO (%L)',
+            'fraud_decisions_p' || to_char(month_start, 'YYYYMM'), month_start, (month_start + INTERVAL '1 month')::DATE);
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+            'transactions_p' || to_char(month_start, 'YYYYMM'), month_start, (month_start + INTERVAL '1 month')::DATE);
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+END $$;
+
+-- ─── Copy rows, then drop the old heaps ──────────────────────────────────
+INSERT INTO fraud_decisions (transaction_id, user_id, decision, score, reasons_json, latency_ms, evaluated_at)
+SELECT transaction_id, user_id, decision, score, reasons_json, latency_ms, evaluated_at
+FROM fraud_decisions_unpartitioned;
+
+-- occurred_at is now the partition key and cannot be NULL; fall back to the decision time
+INSERT INTO transactions (transaction_id, user_id, amount, currency, merchant_id, occurred_at, device_id,
+                          device_ip, device_user_agent, latitude, longitude, city, country, raw_payload)
+SELECT t.transaction_id, t.user_id, t.amount, t.currency, t.merchant_id,
+       COALESCE(t.occurred_at, d.evaluated_at, NOW()), t.device_id, t.device_ip, t.device_user_agent,
+       t.latitude, t.longitude, t.city, t.country, t.raw_payload
+FROM transactions_unpartitioned t
+LEFT JOIN fraud_decisions d ON d.transaction_id = t.transaction_id;
+
+DROP TABLE fraud_decisions_unpartitioned;
+DROP TABLE transactions_unpartitioned;
+
+-- ─── Indexes (created on the parent, inherited by every partition) ───────
+-- B-trees stay where endpoints read in time order with LIMIT (keyset pages, recent lists);
+-- the user_id-only index is dropped because user_date covers it as a prefix.
+CREATE INDEX idx_fraud_decisions_decision ON fraud_decisions(decision);
+CREATE INDEX idx_fraud_decisions_evaluated_at ON fraud_decisions(evaluated_at DESC);
+CREATE INDEX idx_fraud_decisions_user_date ON fraud_decisions(user_id, evaluated_at DESC);
+
+-- transactions are only range-filtered on occurred_at (since-window, exports, retention), and
+-- rows arrive roughly in time order, so a BRIN index is a fraction of the B-tree's size and
+-- insert cost
+CREATE INDEX idx_transactions_occurred_at_brin ON transactions USING BRIN (occurred_at);
+CREATE INDEX idx_transactions_user_date ON transactions(user_id, occurred_at DESC);
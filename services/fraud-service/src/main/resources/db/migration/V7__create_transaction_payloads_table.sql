@@ -0,0 +1,35 @@
+-- Raw transaction payloads move out of the transactions row into their own table, compressed
+-- by the application (codec 'json+zstd'). Rows migrated from transactions.raw_payload keep
+-- plain JSON (codec 'json'). Partitioned like transactions so retention drops both together.
+CREATE TABLE transaction_payloads (
+    transaction_id VARCHAR(255) NOT NULL,
+    occurred_at TIMESTAMP NOT NULL,
+    codec VARCHAR(16) NOT NULL,
+    payload BYTEA NOT NULL,
+    PRIMARY KEY (transaction_id, occurred_at)
+) PARTITION BY RANGE (occurred_at);
+
+CREATE TABLE transaction_payloads_default PARTITION OF transaction_payloads DEFAULT;
+
+DO $$
+DECLARE
+    month_start DATE;
+    last_month DATE := (date_trunc('month', NOW()) + INTERVAL '3 months')::DATE;
+BEGIN
+    month_start := date_trunc('month', COALESCE((SELECT MIN(occurred_at) FROM transactions), NOW()))::DATE;
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF transaction_payloads FOR VALUES FROM (%L) TO (%L)',
+            'transaction_payloads_p' || to_char(month_start, 'YYYYMM'), month_start, (month_start + INTERVAL '1 month')::DATE);
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+END $$;
+
+-- Payloads are already compressed; skip TOAST's second compression attempt
+ALTER TABLE transaction_payloads ALTER COLUMN payload SET STORAGE EXTERNAL;
+
+INSERT INTO transaction_payloads (transaction_id, occurred_at, codec, payload)
+SELECT transaction_id, occurred_at, 'json', convert_to(raw_payload, 'UTF8')
+FROM transactions
+WHERE raw_payload IS NOT NULL;
+
+ALTER TABLE transactions DROP COLUMN raw_payload;
@@ -0,0 +1,45 @@
+-- Reason-code registry: decisions store small integer codes instead of a JSON string, so
+-- "decisions with reason X" is an indexed array-containment lookup.
+CREATE TABLE IF NOT EXISTS reason_codes (
+    code SMALLINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(64) NOT NULL UNIQUE
+);
+
+-- Reasons the rules emit today; anything else is registered on first use
+INSERT INTO reason_codes (code, name) VALUES
+    (1, 'high_amount'),
+    (2, 'invalid_amount'),
+    (3, 'bad_currency'),
+    (4, 'test_merchant'),
+    (5, 'night_time'),
+    (6, 'burst_60s'),
+    (7, 'spend_spike'),
+    (8, 'new_device'),
+    (9, 'new_ip'),
+    (10, 'geo_impossible'),
+    (11, 'ml_flagged_as_fraud'),
+    (12, 'ml_approved')
+ON CONFLICT DO NOTHING;
+
+-- Any other names already present in stored decisions
+INSERT INTO reason_codes (name)
+SELECT DISTINCT e.name
+FROM fraud_decisions d,
+     jsonb_array_elements_text(d.reasons_json::jsonb) AS e(name)
+WHERE d.reasons_json LIKE '[%'
+ON CONFLICT (name) DO NOTHING;
+
+SELECT setval(pg_get_serial_sequence('reason_codes', 'code'), (SELECT MAX(code) FROM reason_codes));
+
+ALTER TABLE fraud_decisions ADD COLUMN reason_codes SMALLINT[] NOT NULL DEFAULT '{}';
+
+UPDATE fraud_decisions d
+SET reason_codes = COALESCE((
+    SELECT array_agg(r.code ORDER BY e.ord)
+    FROM jsonb_array_elements_text(d.reasons_json::jsonb) WITH ORDINALITY AS e(name, ord)
+    JOIN reason_codes r ON r.name = e.name), '{}')
+WHERE d.reasons_json LIKE '[%';
+
+ALTER TABLE fraud_decisions DROP COLUMN reasons_json;
+
+CREATE INDEX idx_fraud_decisions_reason_codes ON fraud_decisions USING GIN (reason_codes);
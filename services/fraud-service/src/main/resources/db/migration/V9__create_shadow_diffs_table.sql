@@ -0,0 +1,15 @@
+-- Sampled disagreements between production decisions and a shadow candidate (rule thresholds
+-- and/or model) evaluated off the hot path.
+CREATE TABLE IF NOT EXISTS shadow_diffs (
+    id BIGSERIAL PRIMARY KEY,
+    transaction_id VARCHAR(255) NOT NULL,
+    candidate VARCHAR(64) NOT NULL,
+    production_decision VARCHAR(16) NOT NULL,
+    production_score DOUBLE PRECISION NOT NULL,
+    shadow_decision VARCHAR(16) NOT NULL,
+    shadow_score DOUBLE PRECISION NOT NULL,
+    shadow_reasons TEXT,
+    recorded_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_shadow_diffs_candidate_recorded ON shadow_diffs (candidate, recorded_at);
@@ -0,0 +1,58 @@
+package com.fraud.engine.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.DestinationTopic;
+import org.springframework.kafka.retrytopic.RetryTopicNamesProviderFactory;
+
+class KafkaErrorConfigTest {
+
+    private final RetryTiers tiers = new RetryTiers("payments.events", "fraud.dlq", 1000, 10, 60_000, 3, 3);
+    private final KafkaErrorConfig config = new KafkaErrorConfig(tiers);
+
+    // The destinations Spring Kafka derives from the configured backoff, main topic first
+    private List<DestinationTopic.Properties> destinations() {
+        // The template is only handed to the recoverer; nothing connects to a broker here
+        KafkaTemplate<Object, Object> template = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.of()));
+        return config.paymentsRetryTopics(template).getDestinationTopicProperties();
+    }
+
+    @Test
+    void backoffMatchesTheTierDelays() {
+        List<DestinationTopic.Properties> destinations = destinations();
+
+        assertThat(destinations).hasSize(tiers.maxAttempts() + 1);
+        assertThat(destinations.stream().filter(DestinationTopic.Properties::isRetryTopic)
+            .map(DestinationTopic.Properties::delay).toList())
+            .containsExactlyElementsOf(tiers.getDelaysMs());
+    }
+
+    @Test
+    void tiersAndDlqUseTheConfiguredNames() {
+        RetryTopicNamesProviderFactory names = config.createComponentFactory().retryTopicNamesProviderFactory();
+
+        List<String> topics = destinations().stream()
+            .map(properties -> names.createRetryTopicNamesProvider(properties).getTopicName("payments.events"))
+            .toList();
+        assertThat(topics).containsExactly("payments.events", "payments.events.retry-1s",
+            "payments.events.retry-10s", "payments.events.retry-60s", "fraud.dlq");
+    }
+
+    @Test
+    void tierListenersGetTheirOwnGroups() {
+        RetryTopicNamesProviderFactory names = config.createComponentFactory().retryTopicNamesProviderFactory();
+
+        List<String> groups = destinations().stream()
+            .filter(DestinationTopic.Properties::isRetryTopic)
+            .map(names::createRetryTopicNamesProvider)
+            .map(provider -> provider.getGroupId(null))
+            .toList();
+        assertThat(groups).containsExactly("fraud-service.retry-1s", "fraud-service.retry-10s",
+            "fraud-service.retry-60s");
+    }
+}
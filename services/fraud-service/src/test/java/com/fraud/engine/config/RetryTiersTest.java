@@ -0,0 +1,42 @@
+package com.fraud.engine.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class RetryTiersTest {
+
+    private static RetryTiers tiers(long initialMs, double multiplier, long maxMs, int tiers) {
+        return new RetryTiers("payments.events", "payments.dlq", initialMs, multiplier, maxMs, tiers, 3);
+    }
+
+    @Test
+    void delaysGrowByTheMultiplierUpToTheMax() {
+        assertThat(tiers(1000, 10, 60_000, 3).getDelaysMs()).containsExactly(1000L, 10_000L, 60_000L);
+        assertThat(tiers(1000, 10, 60_000, 4).getDelaysMs()).containsExactly(1000L, 10_000L, 60_000L, 60_000L);
+        assertThat(tiers(500, 2, 60_000, 3).getDelaysMs()).containsExactly(500L, 1000L, 2000L);
+    }
+
+    @Test
+    void maxAttemptsCountsTheMainTopic() {
+        assertThat(tiers(1000, 10, 60_000, 3).maxAttempts()).isEqualTo(4);
+        assertThat(tiers(1000, 10, 60_000, 0).maxAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void labelsUseSecondsOnlyForWholeSeconds() {
+        assertThat(RetryTiers.label(1000)).isEqualTo("1s");
+        assertThat(RetryTiers.label(60_000)).isEqualTo("60s");
+        assertThat(RetryTiers.label(500)).isEqualTo("500ms");
+        assertThat(RetryTiers.label(1500)).isEqualTo("1500ms");
+    }
+
+    @Test
+    void topicAndGroupNamesCarryTheLabel() {
+        RetryTiers tiers = tiers(1000, 10, 60_000, 3);
+
+        assertThat(tiers.topic(10_000)).isEqualTo("payments.events.retry-10s");
+        assertThat(tiers.group(10_000)).isEqualTo("fraud-service.retry-10s");
+        assertThat(tiers.topic(250)).isEqualTo("payments.events.retry-250ms");
+    }
+}
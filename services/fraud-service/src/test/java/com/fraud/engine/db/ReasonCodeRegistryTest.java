@@ -0,0 +1,90 @@
+package com.fraud.engine.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ReasonCodeRegistryTest {
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private ReasonCodeRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:reasons-" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE reason_codes (code SMALLINT GENERATED BY DEFAULT AS IDENTITY (START WITH 13) PRIMARY KEY, name VARCHAR(64) NOT NULL UNIQUE)");
+        jdbc.update("INSERT INTO reason_codes (code, name) VALUES (1, 'high_amount'), (10, 'geo_impossible')");
+        registry = registry();
+    }
+
+    private ReasonCodeRegistry registry() {
+        return new ReasonCodeRegistry(dataSource, 30_000, now::get);
+    }
+
+    @Test
+    void encodesSeededReasonsAsTheirCodes() {
+        assertThat(registry.encode(List.of("geo_impossible", "high_amount"))).containsExactly((short) 10, (short) 1);
+    }
+
+    @Test
+    void registersNewReasonsAndDecodesThemInOrder() {
+        short[] codes = registry.encode(List.of("high_amount", "burst_30s"));
+
+        assertThat(codes[1]).isEqualTo((short) 13);
+        assertThat(registry.decode(codes)).containsExactly("high_amount", "burst_30s");
+    }
+
+    @Test
+    void codesRegisteredByAnotherInstanceAreResolvedFromTheTable() {
+        short code = registry().register("merchant_velocity");
+
+        assertThat(registry.decode(new short[] {code})).containsExactly("merchant_velocity");
+        assertThat(registry.find("merchant_velocity")).contains(code);
+        assertThat(registry.find("never_seen")).isEmpty();
+    }
+
+    @Test
+    void emptyAndNullMapToEmpty() {
+        assertThat(registry.encode(null)).isEmpty();
+        assertThat(registry.decode(null)).isEmpty();
+    }
+
+    @Test
+    void missingNamesAreNotLookedUpAgainUntilTheTtlPasses() {
+        assertThat(registry.find("card_testing")).isEmpty();
+        jdbc.update("INSERT INTO reason_codes (name) VALUES ('card_testing')");
+
+        assertThat(registry.find("card_testing")).isEmpty();
+        now.addAndGet(30_000);
+        assertThat(registry.find("card_testing")).isPresent();
+    }
+
+    @Test
+    void codesRegisteredInARolledBackTransactionAreForgotten() {
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        short inside = tx.execute(status -> {
+            short code = registry.register("shared_ip");
+            status.setRollbackOnly();
+            return code;
+        });
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM reason_codes WHERE name = 'shared_ip'", Integer.class)).isZero();
+        assertThat(registry.find("shared_ip")).isEmpty();
+        // Registered again for real; whatever code it gets is the one in the table
+        short code = registry.register("shared_ip");
+        assertThat(jdbc.queryForObject("SELECT code FROM reason_codes WHERE name = 'shared_ip'", Short.class)).isEqualTo(code);
+        assertThat(code).isNotEqualTo(inside);
+    }
+}
@@ -0,0 +1,67 @@
+package com.fraud.engine.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class RecentDecisionIndexTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private RecentDecisionIndex index(int capacity, long windowMillis) {
+        return new RecentDecisionIndex(new SimpleMeterRegistry(), capacity, windowMillis, now::get);
+    }
+
+    private static DecisionEntity decision(String transactionId, String decision) {
+        return DecisionEntity.builder()
+            .transactionId(transactionId)
+            .userId("u-1")
+            .decision(decision)
+            .reasons(List.of("high_amount"))
+            .build();
+    }
+
+    @Test
+    void oldestEntriesAreEvictedWhenFull() {
+        RecentDecisionIndex index = index(64, 60_000);
+        for (int i = 0; i < 200; i++) {
+            index.put(decision("tx-" + i, "ALLOW"));
+        }
+
+        for (int i = 0; i < 136; i++) {
+            assertThat(index.find("tx-" + i)).isEmpty();
+        }
+        for (int i = 136; i < 200; i++) {
+            assertThat(index.find("tx-" + i)).get().extracting(DecisionEntity::getTransactionId).isEqualTo("tx-" + i);
+        }
+    }
+
+    @Test
+    void entriesOutsideTheWindowAreMisses() {
+        RecentDecisionIndex index = index(64, 1_000);
+        index.put(decision("tx-old", "BLOCK"));
+        now.addAndGet(1_500);
+        index.put(decision("tx-new", "ALLOW"));
+
+        assertThat(index.find("tx-old")).isEmpty();
+        assertThat(index.find("tx-new")).isPresent();
+    }
+
+    @Test
+    void laterDecisionForTheSameTransactionReplacesTheEarlierOne() {
+        RecentDecisionIndex index = index(4, 60_000);
+        index.put(decision("tx-1", "REVIEW"));
+        index.put(decision("tx-1", "BLOCK"));
+        for (int i = 2; i <= 4; i++) {
+            index.put(decision("tx-" + i, "ALLOW"));
+        }
+
+        assertThat(index.find("tx-1")).get().extracting(DecisionEntity::getDecision).isEqualTo("BLOCK");
+        for (int i = 2; i <= 4; i++) {
+            assertThat(index.find("tx-" + i)).isPresent();
+        }
+    }
+}
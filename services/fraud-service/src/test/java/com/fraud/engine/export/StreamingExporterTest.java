@@ -0,0 +1,61 @@
+package com.fraud.engine.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fraud.engine.db.ReasonCodeRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+class StreamingExporterTest {
+
+    private static final StreamingExporter.Filter ALL = new StreamingExporter.Filter(null, null, null, null);
+
+    private JdbcTemplate jdbc;
+    private StreamingExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:export-" + System.nanoTime() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE reason_codes (code SMALLINT PRIMARY KEY, name VARCHAR(64) NOT NULL UNIQUE)");
+        jdbc.update("INSERT INTO reason_codes (code, name) VALUES (1, 'high_amount'), (10, 'geo_impossible')");
+        jdbc.execute("""
+            CREATE TABLE fraud_decisions (transaction_id VARCHAR(64), user_id VARCHAR(64), decision VARCHAR(16),
+                score DOUBLE PRECISION, reason_codes SMALLINT ARRAY, latency_ms BIGINT, evaluated_at TIMESTAMP)""");
+        exporter = new StreamingExporter(dataSource, new DataSourceTransactionManager(dataSource), new ObjectMapper(),
+            new ReasonCodeRegistry(dataSource, 30_000), new SimpleMeterRegistry(), 100);
+    }
+
+    private String export(StreamingExporter.Filter filter, ExportFormat format) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.exportDecisions(filter, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void csvThatMatchesNothingIsStillAHeaderLine() {
+        assertThat(export(ALL, ExportFormat.CSV))
+            .isEqualTo("transaction_id,user_id,decision,score,reasons,latency_ms,evaluated_at\n");
+        assertThat(export(ALL, ExportFormat.NDJSON)).isEmpty();
+    }
+
+    @Test
+    void rowsFollowTheHeaderWithReasonNames() {
+        jdbc.update("INSERT INTO fraud_decisions VALUES ('tx-1', 'u,1', 'BLOCK', 70.5, ARRAY[10, 1], 12, TIMESTAMP '2026-10-19 12:00:00')");
+
+        assertThat(export(ALL, ExportFormat.CSV)).isEqualTo("""
+            transaction_id,user_id,decision,score,reasons,latency_ms,evaluated_at
+            tx-1,"u,1",BLOCK,70.5,"[""geo_impossible"",""high_amount""]",12,2026-10-19T12:00:00Z
+            """);
+        assertThat(export(new StreamingExporter.Filter(null, null, "ALLOW", null), ExportFormat.CSV))
+            .isEqualTo("transaction_id,user_id,decision,score,reasons,latency_ms,evaluated_at\n");
+    }
+}
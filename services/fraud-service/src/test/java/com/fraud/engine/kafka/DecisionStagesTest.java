@@ -0,0 +1,74 @@
+package com.fraud.engine.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fraud.engine.kafka.DecisionStages.Stage;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.Test;
+
+class DecisionStagesTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Timer timer(String stage) {
+        return meterRegistry.get("fraud_decision_stage_latency").tag("stage", stage).timer();
+    }
+
+    private static void spend(long millis) {
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while (System.nanoTime() < until) {
+            LockSupport.parkNanos(until - System.nanoTime());
+        }
+    }
+
+    @Test
+    void eachLapBooksTheTimeSinceThePreviousOne() {
+        DecisionStages.Clock clock = new DecisionStages(meterRegistry, 1.0).start();
+        spend(5);
+        clock.lap(Stage.DEDUPE);
+        clock.lap(Stage.PERSIST_TX);
+        spend(20);
+        clock.lap(Stage.STATIC_RULES);
+
+        Map<String, Double> micros = clock.breakdown();
+        // Stage order, zero-length laps included
+        assertThat(micros.keySet()).containsExactly("dedupe", "persist-tx", "static-rules");
+        assertThat(micros.get("dedupe")).isGreaterThanOrEqualTo(5_000.0);
+        assertThat(micros.get("persist-tx")).isLessThan(5_000.0);
+        assertThat(micros.get("static-rules")).isGreaterThanOrEqualTo(20_000.0);
+
+        assertThat(timer("dedupe").count()).isEqualTo(1);
+        assertThat(timer("static-rules").totalTime(TimeUnit.MICROSECONDS)).isGreaterThanOrEqualTo(20_000.0);
+        assertThat(timer("ml").count()).isZero();
+    }
+
+    @Test
+    void resetLeavesTheGapUntimedAndRepeatedLapsAddUp() {
+        DecisionStages.Clock clock = new DecisionStages(meterRegistry, 1.0).start();
+        spend(20);
+        clock.reset();
+        clock.lap(Stage.ML);
+        spend(2);
+        clock.lap(Stage.ML);
+
+        assertThat(clock.breakdown()).containsOnlyKeys("ml");
+        assertThat(clock.breakdown().get("ml")).isBetween(2_000.0, 20_000.0);
+        assertThat(timer("ml").count()).isEqualTo(2);
+    }
+
+    @Test
+    void unsampledEventsAreTimedWithoutABreakdown() {
+        DecisionStages stages = new DecisionStages(meterRegistry, 0.0);
+        DecisionStages.Clock clock = stages.start();
+        clock.lap(Stage.DEDUPE);
+        stages.record(Stage.PUBLISH_ACK, TimeUnit.MILLISECONDS.toNanos(3));
+
+        assertThat(clock.breakdown()).isNull();
+        assertThat(timer("dedupe").count()).isEqualTo(1);
+        assertThat(timer("publish-ack").totalTime(TimeUnit.MILLISECONDS)).isEqualTo(3.0);
+    }
+}
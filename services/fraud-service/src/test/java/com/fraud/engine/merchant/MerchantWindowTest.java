@@ -0,0 +1,59 @@
+package com.fraud.engine.merchant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.fraud.engine.merchant.MerchantWindow.Counts;
+import org.junit.jupiter.api.Test;
+
+class MerchantWindowTest {
+
+    @Test
+    void countsOnlyBucketsInsideTheWindow() {
+        MerchantWindow window = new MerchantWindow(10_000, 6);
+        window.record("u-1", true, false, 1_000);
+        window.record("u-2", false, true, 31_000);
+        window.record("u-2", false, false, 59_000);
+
+        Counts counts = window.counts(59_000);
+        assertThat(counts.transactions()).isEqualTo(3);
+        assertThat(counts.flagged()).isEqualTo(1);
+        assertThat(counts.smallAmount()).isEqualTo(1);
+        assertThat(counts.distinctUsers()).isEqualTo(2);
+
+        // The first bucket (0-10s) has left the 60s window
+        assertThat(window.counts(61_000).transactions()).isEqualTo(2);
+        assertThat(window.counts(200_000).transactions()).isZero();
+    }
+
+    @Test
+    void distinctUsersAreEstimatedWithinAFewPercent() {
+        MerchantWindow window = new MerchantWindow(10_000, 6);
+        for (int i = 0; i < 500; i++) {
+            window.record("user-" + i, true, false, 5_000);
+            window.record("user-" + i, true, false, 15_000);
+        }
+
+        Counts counts = window.counts(15_000);
+        assertThat(counts.transactions()).isEqualTo(1_000);
+        assertThat((double) counts.distinctUsers()).isCloseTo(500, within(25.0));
+    }
+
+    @Test
+    void publishedCountsRoundTripAndMergeWithoutDoubleCountingUsers() {
+        MerchantWindow local = new MerchantWindow(10_000, 6);
+        MerchantWindow other = new MerchantWindow(10_000, 6);
+        local.record("shared", true, false, 1_000);
+        other.record("shared", true, true, 1_000);
+        other.record("only-other", false, false, 1_000);
+
+        Counts remote = Counts.decode(other.counts(2_000).encode(2_000), 0);
+        Counts merged = local.counts(2_000).plus(remote);
+        assertThat(merged.transactions()).isEqualTo(3);
+        assertThat(merged.flagged()).isEqualTo(1);
+        assertThat(merged.distinctUsers()).isEqualTo(2);
+
+        assertThat(Counts.decode(other.counts(2_000).encode(2_000), 3_000)).isNull();
+        assertThat(Counts.decode("garbage", 0)).isNull();
+    }
+}
@@ -0,0 +1,98 @@
+package com.fraud.engine.ml;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class MLFraudDetectorTest {
+
+    @TempDir
+    Path dir;
+
+    private HttpServer stub;
+    private final AtomicReference<byte[]> body = new AtomicReference<>();
+    private final AtomicReference<String> contentType = new AtomicReference<>();
+    private final AtomicReference<String> version = new AtomicReference<>();
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.createContext("/predict", exchange -> {
+            body.set(exchange.getRequestBody().readAllBytes());
+            contentType.set(exchange.getRequestHeaders().getFirst("Content-Type"));
+            version.set(exchange.getRequestHeaders().getFirst("X-Model-Version"));
+            byte[] probability = ByteBuffer.allocate(Float.BYTES).order(ByteOrder.LITTLE_ENDIAN).putFloat(0.75f).array();
+            exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+            exchange.sendResponseHeaders(200, probability.length);
+            exchange.getResponseBody().write(probability);
+            exchange.close();
+        });
+        stub.start();
+    }
+
+    @AfterEach
+    void stop() {
+        stub.stop(0);
+    }
+
+    private MLFraudDetector detector(List<String> currencies) throws IOException {
+        List<String> features = new ArrayList<>(TransactionFeatures.POSITIONAL_FEATURES);
+        features.add("device_users_24h");
+        new ObjectMapper().writeValue(dir.resolve("model_meta.json").toFile(), Map.of(
+            "model_version", "v7", "features", features, "categories", Map.of("currency", currencies)));
+        ModelRegistry registry = new ModelRegistry(new ObjectMapper(), new SimpleMeterRegistry(),
+            dir.toString(), "", "", 0.0);
+
+        MLFraudDetector detector = new MLFraudDetector(registry, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(detector, "mlServiceUrl", "http://127.0.0.1:" + stub.getAddress().getPort());
+        ReflectionTestUtils.setField(detector, "protocol", "binary");
+        return detector;
+    }
+
+    @Test
+    void binaryRequestIsOneLittleEndianRowInTheModelsLayout() throws IOException {
+        MLFraudDetector detector = detector(List.of("USD", "EUR"));
+        TransactionFeatures features = TransactionFeaturesTest.features("EUR");
+
+        MLFraudDetector.Prediction prediction = detector.predict("u-1", features);
+
+        assertThat(prediction.modelVersion()).isEqualTo("v7");
+        assertThat(prediction.probability()).isEqualTo(0.75);
+        assertThat(contentType.get()).isEqualTo("application/octet-stream");
+        assertThat(version.get()).isEqualTo("v7");
+
+        FloatBuffer sent = ByteBuffer.wrap(body.get()).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        float[] row = new float[sent.remaining()];
+        sent.get(row);
+        assertThat(row).hasSize(TransactionFeatures.POSITIONAL_FEATURES.size() + 1);
+        assertThat(row[0]).isEqualTo(125.5f);
+        assertThat(row[TransactionFeatures.POSITIONAL_FEATURES.indexOf("currency")]).isEqualTo(1f);
+        assertThat(row[row.length - 1]).isEqualTo(6f);
+    }
+
+    @Test
+    void firstFloatIsLowByteFirstOnTheWire() throws IOException {
+        detector(List.of("USD")).predict("u-1", TransactionFeaturesTest.features("USD"));
+
+        // amount 125.5f is 0x42FB0000
+        assertThat(body.get()).startsWith((byte) 0x00, (byte) 0x00, (byte) 0xFB, (byte) 0x42);
+    }
+}
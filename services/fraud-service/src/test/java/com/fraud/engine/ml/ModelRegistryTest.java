@@ -0,0 +1,105 @@
+package com.fraud.engine.ml;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ModelRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private void meta(Path file, String version, List<String> extras) throws IOException {
+        List<String> features = new ArrayList<>(TransactionFeatures.POSITIONAL_FEATURES);
+        features.addAll(extras);
+        Files.createDirectories(file.getParent());
+        objectMapper.writeValue(file.toFile(), Map.of("model_version", version, "features", features));
+    }
+
+    private void routing(String json, long modifiedAt) throws IOException {
+        Path file = dir.resolve("registry.json");
+        Files.writeString(file, json);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modifiedAt));
+    }
+
+    private ModelRegistry registry() {
+        return new ModelRegistry(objectMapper, new SimpleMeterRegistry(), dir.toString(), "", "", 0.0);
+    }
+
+    @Test
+    void rootModelIsTheChampionUntilRoutingSaysOtherwise() throws IOException {
+        meta(dir.resolve("model_meta.json"), "v1", List.of());
+        ModelRegistry registry = registry();
+
+        assertThat(registry.route("u-1").model().version()).isEqualTo("v1");
+        assertThat(registry.route("u-1").role()).isEqualTo(ModelRegistry.Role.CHAMPION);
+    }
+
+    @Test
+    void challengerGetsItsShareOfUsersAndEachUserStaysPut() throws IOException {
+        meta(dir.resolve("model_meta.json"), "v1", List.of());
+        meta(dir.resolve("v2").resolve("model_meta.json"), "v2", List.of("device_users_24h"));
+        routing("{\"champion\": \"v1\", \"challenger\": \"v2\", \"challengerShare\": 0.2}", 1_000);
+        ModelRegistry registry = registry();
+
+        int challenger = 0;
+        for (int i = 0; i < 10_000; i++) {
+            ModelRegistry.Route route = registry.route("user-" + i);
+            assertThat(registry.route("user-" + i)).isEqualTo(route);
+            if (route.role() == ModelRegistry.Role.CHALLENGER) {
+                assertThat(route.model().version()).isEqualTo("v2");
+                challenger++;
+            }
+        }
+        assertThat(challenger).isBetween(1_800, 2_200);
+    }
+
+    @Test
+    void changesAreSwappedInAndInvalidOnesRejected() throws IOException {
+        meta(dir.resolve("model_meta.json"), "v1", List.of());
+        ModelRegistry registry = registry();
+
+        meta(dir.resolve("v2").resolve("model_meta.json"), "v2", List.of());
+        routing("{\"champion\": \"v2\"}", 2_000);
+        registry.reload();
+        assertThat(registry.route("u-1").model().version()).isEqualTo("v2");
+
+        // Unknown champion: the current routing stays
+        routing("{\"champion\": \"v9\"}", 3_000);
+        registry.reload();
+        assertThat(registry.route("u-1").model().version()).isEqualTo("v2");
+
+        // A model needing features this service cannot supply is never registered
+        meta(dir.resolve("v3").resolve("model_meta.json"), "v3", List.of("merchant_age_days"));
+        routing("{\"champion\": \"v3\"}", 4_000);
+        registry.reload();
+        assertThat(registry.routing().versions()).containsOnlyKeys("v1", "v2");
+        assertThat(registry.route("u-1").model().version()).isEqualTo("v2");
+    }
+
+    @Test
+    void currencyCategoriesBecomeIndexesByFirstPosition() throws IOException {
+        List<String> features = new ArrayList<>(TransactionFeatures.POSITIONAL_FEATURES);
+        objectMapper.writeValue(dir.resolve("model_meta.json").toFile(), Map.of("model_version", "v1",
+            "features", features, "categories", Map.of("currency", List.of("USD", "EUR", "USD", "GBP"))));
+        meta(dir.resolve("v2").resolve("model_meta.json"), "v2", List.of());
+        ModelRegistry registry = registry();
+
+        assertThat(registry.route("u-1").model().currencyCodes())
+            .containsExactlyInAnyOrderEntriesOf(Map.of("USD", 0, "EUR", 1, "GBP", 3));
+        // Without categories the model is only reachable over JSON
+        assertThat(registry.routing().versions().get("v2").currencyCodes()).isNull();
+    }
+}
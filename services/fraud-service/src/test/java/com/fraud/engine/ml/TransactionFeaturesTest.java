@@ -0,0 +1,75 @@
+package com.fraud.engine.ml;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class TransactionFeaturesTest {
+
+    private static final Map<String, Integer> CURRENCIES = Map.of("USD", 0, "EUR", 1, "GBP", 2);
+
+    static TransactionFeatures features(String currency) {
+        return TransactionFeatures.builder()
+            .amount(125.5).hourOfDay(3).txCount60s(4).spendDeviationRatio(2.5).requiredSpeedKmph(1200)
+            .isNewDevice(1).isNewIp(0).ruleBurst60s(1).ruleSpendSpike(0).ruleNewDevice(1)
+            .ruleNewIp(0).ruleGeoImpossible(1).ruleOddHour(1).ruleScore(75)
+            .currency(currency).deviceUsers24h(6).ipUsers24h(21)
+            .build();
+    }
+
+    private static List<String> layout(String... extras) {
+        List<String> layout = new ArrayList<>(TransactionFeatures.POSITIONAL_FEATURES);
+        layout.addAll(List.of(extras));
+        return layout;
+    }
+
+    @Test
+    void positionalSlotsFollowTheArrayOrder() {
+        float[] vector = features("EUR").toVector(TransactionFeatures.POSITIONAL_FEATURES, CURRENCIES);
+
+        assertThat(vector).containsExactly(
+            125.5f, 3f, 4f, 2.5f, 1200f, 1f, 0f, 1f, 0f, 1f, 0f, 1f, 1f, 75f, 1f);
+        // Same values, same order as the JSON protocol's positional array (currency aside)
+        Object[] array = features("EUR").toArray();
+        for (int i = 0; i < array.length - 1; i++) {
+            assertThat(vector[i]).isEqualTo(((Number) array[i]).floatValue());
+        }
+    }
+
+    @Test
+    void currencyIsTheModelsCategoryIndexOrMinusOne() {
+        int currency = TransactionFeatures.POSITIONAL_FEATURES.indexOf("currency");
+
+        assertThat(features("GBP").toVector(layout(), CURRENCIES)[currency]).isEqualTo(2f);
+        assertThat(features("JPY").toVector(layout(), CURRENCIES)[currency]).isEqualTo(-1f);
+        assertThat(features(null).toVector(layout(), CURRENCIES)[currency]).isEqualTo(-1f);
+    }
+
+    @Test
+    void extrasFollowTheModelsOrder() {
+        int positional = TransactionFeatures.POSITIONAL_FEATURES.size();
+
+        float[] vector = features("USD").toVector(layout("ip_users_24h", "device_users_24h"), CURRENCIES);
+        assertThat(vector).hasSize(positional + 2);
+        assertThat(vector[positional]).isEqualTo(21f);
+        assertThat(vector[positional + 1]).isEqualTo(6f);
+
+        vector = features("USD").toVector(layout("device_users_24h"), CURRENCIES);
+        assertThat(vector).hasSize(positional + 1);
+        assertThat(vector[positional]).isEqualTo(6f);
+    }
+
+    @Test
+    void everyAdvertisedFeatureCanBeSupplied() {
+        List<String> all = layout(TransactionFeatures.EXTRA_FEATURES.toArray(String[]::new));
+
+        assertThat(features("USD").toVector(all, CURRENCIES)).hasSize(all.size());
+        assertThatThrownBy(() -> features("USD").toVector(layout("merchant_age_days"), CURRENCIES))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("merchant_age_days");
+    }
+}
@@ -0,0 +1,31 @@
+package com.fraud.engine.payload;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class PayloadCodecTest {
+
+    private static final String JSON =
+        "{\"transactionId\":\"tx-1\",\"userId\":\"u-1\",\"amount\":42.5,\"currency\":\"USD\",\"city\":\"Zürich\"}";
+
+    @Test
+    void zstdRoundTripsJson() {
+        byte[] encoded = PayloadCodec.encode(JSON.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(PayloadCodec.decode(PayloadCodec.JSON_ZSTD, encoded)).isEqualTo(JSON);
+    }
+
+    @Test
+    void plainJsonFromMigratedRowsDecodesAsIs() {
+        assertThat(PayloadCodec.decode(PayloadCodec.JSON, JSON.getBytes(StandardCharsets.UTF_8))).isEqualTo(JSON);
+    }
+
+    @Test
+    void unknownCodecIsRejected() {
+        assertThatThrownBy(() -> PayloadCodec.decode("snappy", new byte[0]))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,116 @@
+package com.fraud.engine.payload;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fraud.common.model.Transaction;
+import com.fraud.engine.service.DegradationController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+
+class TransactionPayloadStoreTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> written = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private TransactionPayloadStore store;
+
+    // Rejects the first failuresLeft batches, then records the ids it was asked to insert
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new DataAccessResourceFailureException("database unavailable");
+            }
+            batchArgs.forEach(row -> written.add((String) row[0]));
+            return new int[batchArgs.size()];
+        }
+    };
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (store != null) {
+            store.stop();
+        }
+    }
+
+    private TransactionPayloadStore store(int maxAttempts) {
+        DegradationController degradation = new DegradationController(new KafkaListenerEndpointRegistry(),
+            meterRegistry, false, 0, "fraud.transactions", 5000, 500, 250, 100, 3, 10);
+        store = new TransactionPayloadStore(null, jdbcTemplate, new ObjectMapper(), meterRegistry, degradation,
+            10, 10, 10, maxAttempts, 0);
+        store.start();
+        return store;
+    }
+
+    private static Transaction tx(String id) {
+        Transaction tx = new Transaction();
+        tx.setTransactionId(id);
+        tx.setUserId("u-1");
+        return tx;
+    }
+
+    private double writes(String outcome) {
+        return meterRegistry.get("fraud_payload_writes_total").tag("outcome", outcome).counter().count();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void rejectedBatchIsRetriedUntilItIsWritten() throws InterruptedException {
+        failuresLeft.set(2);
+        store(5).submit(tx("tx-1"), Instant.now());
+
+        await(() -> !written.isEmpty());
+        assertThat(written).containsExactly("tx-1");
+        assertThat(writes("failed")).isEqualTo(2);
+        assertThat(writes("retried")).isEqualTo(2);
+        assertThat(writes("dropped")).isZero();
+        assertThat(meterRegistry.get("fraud_payload_deferred_size").gauge().value()).isZero();
+    }
+
+    @Test
+    void deferredPayloadsAreWrittenWhileTrafficKeepsArriving() throws InterruptedException {
+        failuresLeft.set(1);
+        TransactionPayloadStore store = store(5);
+        store.submit(tx("tx-deferred"), Instant.now());
+        await(() -> writes("retried") > 0);
+
+        // Never leave the writer idle for its 500 ms poll
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (int i = 0; !written.contains("tx-deferred") && System.nanoTime() < deadline; i++) {
+            store.submit(tx("tx-" + i), Instant.now());
+            Thread.sleep(50);
+        }
+
+        assertThat(written).contains("tx-deferred");
+        assertThat(meterRegistry.get("fraud_payload_deferred_size").gauge().value()).isZero();
+    }
+
+    @Test
+    void payloadOutOfAttemptsIsCountedAsDropped() throws InterruptedException {
+        failuresLeft.set(Integer.MAX_VALUE);
+        store(2).submit(tx("tx-1"), Instant.now());
+
+        await(() -> writes("dropped") > 0);
+        assertThat(written).isEmpty();
+        assertThat(writes("failed")).isEqualTo(2);
+        assertThat(writes("retried")).isEqualTo(1);
+        assertThat(writes("dropped")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,67 @@
+package com.fraud.engine.redis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.lettuce.core.cluster.SlotHash;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RedisStateTest {
+
+    private static final long NOW = 1_760_000_000L;
+
+    @Test
+    void eachSideIsOneSampleAndItsBucketsNewestFirst() {
+        long bucket = NOW / RedisState.LINK_BUCKET_SEC;
+
+        List<String> keys = RedisState.linkKeys("device", "d-1", NOW);
+
+        assertThat(keys).hasSize(RedisState.LINK_BUCKETS + 1);
+        assertThat(keys.get(0)).isEqualTo("device:{d-1}:users");
+        assertThat(keys.get(1)).isEqualTo("device:{d-1}:users:" + bucket);
+        assertThat(keys.get(RedisState.LINK_BUCKETS)).isEqualTo("device:{d-1}:users:" + (bucket - RedisState.LINK_BUCKETS + 1));
+    }
+
+    @Test
+    void aSidesKeysShareOneClusterSlot() {
+        for (List<String> keys : List.of(
+                RedisState.linkKeys("device", "d-1", NOW),
+                RedisState.linkKeys("ip", "10.0.0.7", NOW),
+                RedisState.linkKeys("ip", "2001:db8::1", NOW))) {
+            int slot = SlotHash.getSlot(keys.get(0));
+            assertThat(keys).allSatisfy(key -> assertThat(SlotHash.getSlot(key)).isEqualTo(slot));
+        }
+    }
+
+    @Test
+    void mergedBucketsCoverTheWholeWindow() {
+        for (long now = NOW; now < NOW + 2 * RedisState.LINK_BUCKET_SEC; now += 600) {
+            List<String> keys = RedisState.linkKeys("ip", "10.0.0.7", now);
+            long oldest = Long.parseLong(keys.get(keys.size() - 1).substring(keys.get(keys.size() - 1).lastIndexOf(':') + 1));
+
+            assertThat(oldest * RedisState.LINK_BUCKET_SEC).isLessThanOrEqualTo(now - RedisState.LINK_WINDOW_SEC);
+            assertThat(now - oldest * RedisState.LINK_BUCKET_SEC)
+                .isLessThan(RedisState.LINK_BUCKETS * RedisState.LINK_BUCKET_SEC);
+        }
+    }
+
+    @Test
+    void aBucketOutlivesEveryLookupThatMergesIt() {
+        long bucket = NOW / RedisState.LINK_BUCKET_SEC;
+        // Written at the earliest at the bucket's start, read last just before it drops off the window
+        long firstWrite = bucket * RedisState.LINK_BUCKET_SEC;
+        long lastRead = (bucket + RedisState.LINK_BUCKETS) * RedisState.LINK_BUCKET_SEC - 1;
+
+        assertThat(RedisState.linkKeys("device", "d-1", lastRead)).contains("device:{d-1}:users:" + bucket);
+        assertThat(RedisState.linkKeys("device", "d-1", lastRead + 1)).doesNotContain("device:{d-1}:users:" + bucket);
+        assertThat(firstWrite + RedisState.LINK_BUCKET_TTL_SEC).isGreaterThan(lastRead);
+    }
+
+    @Test
+    void nothingToLinkWithoutADeviceOrIp() {
+        RedisState state = new RedisState(null);
+
+        assertThat(state.linkUsers("u-1", null, " ", NOW, 16)).isEqualTo(RedisState.LinkedUsers.NONE);
+        assertThat(state.linkUsers(null, "d-1", "10.0.0.7", NOW, 16)).isEqualTo(RedisState.LinkedUsers.NONE);
+    }
+}
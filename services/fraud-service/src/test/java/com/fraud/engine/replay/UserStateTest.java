@@ -0,0 +1,65 @@
+package com.fraud.engine.replay;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fraud.common.model.Transaction;
+import com.fraud.engine.service.SignalRules;
+import org.junit.jupiter.api.Test;
+
+class UserStateTest {
+
+    private static final SignalRules.Thresholds RULES =
+        new SignalRules.Thresholds(60, 3, 40, 900, 50, 20, 15, 5.0, 30, 3, 5, 25, 20, 15, 30, 60);
+
+    private static Transaction tx(double amount, String device, double lat, double lon) {
+        return Transaction.builder()
+            .userId("u-1")
+            .transactionId("tx")
+            .amount(amount)
+            .currency("USD")
+            .merchantId("m-1")
+            .timestamp("2025-10-01T12:00:00Z")
+            .device(Transaction.Device.builder().id(device).ip("10.0.0.1").build())
+            .location(Transaction.Location.builder().lat(lat).lon(lon).build())
+            .build();
+    }
+
+    @Test
+    void burstCountsDistinctSecondsInsideTheWindow() {
+        UserState state = new UserState();
+        state.observe(tx(10, "d-1", 0, 0), 1_000, RULES);
+        state.observe(tx(10, "d-1", 0, 0), 1_000, RULES);
+        state.observe(tx(10, "d-1", 0, 0), 1_030, RULES);
+
+        assertThat(state.observe(tx(10, "d-1", 0, 0), 1_060, RULES).burstCount()).isEqualTo(2);
+        assertThat(state.observe(tx(10, "d-1", 0, 0), 1_100, RULES).burstCount()).isEqualTo(1);
+        assertThat(state.observe(tx(10, "d-1", 0, 0), 10_000, RULES).burstCount()).isZero();
+    }
+
+    @Test
+    void medianCoversTheLastAmountsOnly() {
+        UserState state = new UserState();
+        assertThat(state.observe(tx(100, "d-1", 0, 0), 1, RULES).medianAmount()).isZero();
+        state.observe(tx(1, "d-1", 0, 0), 2, RULES);
+        state.observe(tx(2, "d-1", 0, 0), 3, RULES);
+
+        // History size 3: 100 has been pushed out by 1, 2 and 3
+        state.observe(tx(3, "d-1", 0, 0), 4, RULES);
+        assertThat(state.observe(tx(4, "d-1", 0, 0), 5, RULES).medianAmount()).isEqualTo(2.0);
+    }
+
+    @Test
+    void devicesAreNewOnceAndTravelSpeedUsesThePreviousLocation() {
+        UserState state = new UserState();
+        SignalRules.Signals first = state.observe(tx(10, "d-1", 52.52, 13.40), 0, RULES);
+        assertThat(first.newDevice()).isTrue();
+        assertThat(first.newIp()).isTrue();
+        assertThat(first.speedKmph()).isNaN();
+
+        // Berlin to New York in an hour
+        SignalRules.Signals second = state.observe(tx(10, "d-1", 40.71, -74.00), 3_600, RULES);
+        assertThat(second.newDevice()).isFalse();
+        assertThat(second.newIp()).isFalse();
+        assertThat(second.speedKmph()).isBetween(6_000.0, 6_600.0);
+    }
+}
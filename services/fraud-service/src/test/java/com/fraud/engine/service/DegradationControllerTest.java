@@ -0,0 +1,86 @@
+package com.fraud.engine.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fraud.engine.service.DegradationController.Level;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class DegradationControllerTest {
+
+    // Lag high 1000 / low 100, p99 high 200 ms / low 50 ms, 2 checks to escalate, 3 to recover
+    private static final DegradationController.Limits LIMITS =
+        new DegradationController.Limits(1_000, 100, 200, 50, 2, 3);
+
+    private final AtomicLong lag = new AtomicLong();
+    private final DegradationController controller =
+        new DegradationController(lag::get, new SimpleMeterRegistry(), true, 0, LIMITS);
+
+    private void checks(int times, long lagValue) {
+        lag.set(lagValue);
+        for (int i = 0; i < times; i++) {
+            controller.check();
+        }
+    }
+
+    @Test
+    void sustainedPressureRaisesOneLevelPerEscalation() {
+        checks(1, 5_000);
+        assertThat(controller.level()).isEqualTo(Level.NORMAL);
+
+        checks(1, 5_000);
+        assertThat(controller.level()).isEqualTo(Level.SKIP_ML);
+
+        checks(4, 5_000);
+        assertThat(controller.level()).isEqualTo(Level.SKIP_OPTIONAL_RULES);
+        assertThat(controller.skipOptionalRules(System.nanoTime())).isTrue();
+
+        // Already at the top
+        checks(2, 5_000);
+        assertThat(controller.level()).isEqualTo(Level.SKIP_OPTIONAL_RULES);
+    }
+
+    @Test
+    void recoveryNeedsConsecutiveCalmChecks() {
+        checks(2, 5_000);
+        assertThat(controller.level()).isEqualTo(Level.SKIP_ML);
+
+        // Between the marks is neither pressure nor calm, and resets the calm streak
+        checks(2, 0);
+        checks(1, 500);
+        checks(2, 0);
+        assertThat(controller.level()).isEqualTo(Level.SKIP_ML);
+
+        checks(1, 0);
+        assertThat(controller.level()).isEqualTo(Level.NORMAL);
+        assertThat(controller.skipMl(System.nanoTime())).isFalse();
+    }
+
+    @Test
+    void p99OfTheIntervalCountsAsPressure() {
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 100; i++) {
+                controller.recordLatency(TimeUnit.MILLISECONDS.toNanos(i < 98 ? 10 : 500));
+            }
+            controller.check();
+        }
+        assertThat(controller.level()).isEqualTo(Level.SKIP_ML);
+
+        // The samples were drained: an empty interval is calm
+        checks(3, 0);
+        assertThat(controller.level()).isEqualTo(Level.NORMAL);
+    }
+
+    @Test
+    void anEventOverItsBudgetSkipsOnItsOwn() {
+        DegradationController budgeted =
+            new DegradationController(lag::get, new SimpleMeterRegistry(), true, 100, LIMITS);
+
+        assertThat(budgeted.skipMl(System.nanoTime())).isFalse();
+        assertThat(budgeted.skipMl(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(150))).isTrue();
+        assertThat(budgeted.skipOptionalRules(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(150))).isTrue();
+        assertThat(budgeted.level()).isEqualTo(Level.NORMAL);
+    }
+}
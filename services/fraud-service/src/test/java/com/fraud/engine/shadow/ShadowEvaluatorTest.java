@@ -0,0 +1,230 @@
+package com.fraud.engine.shadow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import com.fraud.common.model.Transaction;
+import com.fraud.engine.config.RulesProperties;
+import com.fraud.engine.ml.FeatureExtractor;
+import com.fraud.engine.ml.MLFraudDetector;
+import com.fraud.engine.ml.ModelRegistry;
+import com.fraud.engine.ml.TransactionFeatures;
+import com.fraud.engine.service.RuleEngine;
+import com.fraud.engine.service.SignalRules;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ShadowEvaluatorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MockEnvironment environment = new MockEnvironment();
+    private final List<Object[]> diffs = new CopyOnWriteArrayList<>();
+    private final List<String> modelUrls = new CopyOnWriteArrayList<>();
+    private volatile double probability = 0.9;
+    private volatile CountDownLatch release = new CountDownLatch(0);
+    private final AtomicInteger modelCalls = new AtomicInteger();
+    private ShadowEvaluator evaluator;
+
+    // Answers with the configured probability once released; nothing leaves the process
+    private final MLFraudDetector detector = new MLFraudDetector(null, meterRegistry) {
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public Prediction predict(String userId, TransactionFeatures features) {
+            return new Prediction("production", ModelRegistry.Role.CHAMPION,
+                predictFraudProbability("http://production-model", features));
+        }
+
+        @Override
+        public double predictFraudProbability(String serviceUrl, TransactionFeatures features) {
+            modelCalls.incrementAndGet();
+            modelUrls.add(serviceUrl);
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return probability;
+        }
+    };
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+        @Override
+        public int update(String sql, Object... args) {
+            diffs.add(args);
+            return 1;
+        }
+    };
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        release.countDown();
+        if (evaluator != null) {
+            evaluator.stop();
+        }
+    }
+
+    private ShadowEvaluator evaluator(double sampleRate, int queueCapacity, boolean modelEnabled) {
+        evaluator = new ShadowEvaluator(new FeatureExtractor(null), detector, jdbcTemplate, meterRegistry,
+            new RulesProperties(), environment);
+        ReflectionTestUtils.setField(evaluator, "enabled", true);
+        ReflectionTestUtils.setField(evaluator, "candidate", "strict");
+        ReflectionTestUtils.setField(evaluator, "sampleRate", sampleRate);
+        ReflectionTestUtils.setField(evaluator, "diffSampleRate", 1.0);
+        ReflectionTestUtils.setField(evaluator, "threads", 1);
+        ReflectionTestUtils.setField(evaluator, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(evaluator, "modelEnabled", modelEnabled);
+        ReflectionTestUtils.setField(evaluator, "modelUrl", "http://candidate-model");
+        ReflectionTestUtils.setField(evaluator, "blockProbability", 0.5);
+        evaluator.init();
+        return evaluator;
+    }
+
+    // Production saw burstCount transactions in the window and decided as given
+    private static ShadowInput input(String id, long burstCount, String decision, double score) {
+        return input(id, burstCount, null, decision, score);
+    }
+
+    private static ShadowInput input(String id, long burstCount, MLFraudDetector.Prediction prediction,
+                                     String decision, double score) {
+        Transaction tx = new Transaction();
+        tx.setTransactionId(id);
+        tx.setUserId("u-1");
+        tx.setAmount(20.0);
+        tx.setCurrency("USD");
+        tx.setTimestamp("2026-10-19T12:00:00Z");
+        SignalRules.Signals signals = new SignalRules.Signals(burstCount, 0, false, false, 1, 1, Double.NaN);
+        return new ShadowInput(tx, new RuleEngine.Result(0, List.of()), signals, null, prediction, decision, score);
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("fraud_shadow_evaluations_total")
+            .tag("candidate", "strict").tag("outcome", outcome).counter().count();
+    }
+
+    private double dropped() {
+        return meterRegistry.get("fraud_shadow_dropped_total").counter().count();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    @Test
+    void onlyTheSampledShareIsEvaluated() throws InterruptedException {
+        ShadowEvaluator none = evaluator(0.0, 10, false);
+        for (int i = 0; i < 50; i++) {
+            none.submit(input("tx-" + i, 0, "ALLOW", 0));
+        }
+        none.stop();
+        assertThat(count("agree") + count("disagree") + count("error")).isZero();
+
+        ShadowEvaluator all = evaluator(1.0, 100, false);
+        for (int i = 0; i < 50; i++) {
+            all.submit(input("tx-" + i, 0, "ALLOW", 0));
+        }
+        await(() -> count("agree") == 50);
+        assertThat(dropped()).isZero();
+    }
+
+    @Test
+    void candidateOverridesDecideDifferentlyAndTheDiffIsRecorded() throws InterruptedException {
+        environment.setProperty("app.shadow.rules.burst.score", "70");
+        ShadowEvaluator evaluator = evaluator(1.0, 10, false);
+
+        // Production: burst +40 is REVIEW; the candidate's +70 is BLOCK
+        evaluator.submit(input("tx-1", 3, "REVIEW", 40));
+        evaluator.submit(input("tx-2", 0, "ALLOW", 0));
+
+        await(() -> count("agree") == 1 && diffs.size() == 1);
+        assertThat(count("disagree")).isEqualTo(1);
+        assertThat(meterRegistry.get("fraud_shadow_disagreements_total")
+            .tag("production", "REVIEW").tag("shadow", "BLOCK").counter().count()).isEqualTo(1);
+        assertThat(diffs).singleElement().satisfies(row ->
+            assertThat(row).containsExactly("tx-1", "strict", "REVIEW", 40.0, "BLOCK", 70.0, "burst_60s"));
+        assertThat(modelCalls).hasValue(0);
+    }
+
+    @Test
+    void identicalKnobsAgreeWhereProductionsModelSettledTheBand() throws InterruptedException {
+        ShadowEvaluator evaluator = evaluator(1.0, 10, false);
+        var prediction = new MLFraudDetector.Prediction("v1", ModelRegistry.Role.CHAMPION, 0.2);
+
+        // Burst +40 is REVIEW under both; production's model made it ALLOW
+        evaluator.submit(input("tx-1", 3, prediction, "ALLOW", 6));
+
+        await(() -> count("agree") == 1);
+        assertThat(count("disagree")).isZero();
+        assertThat(diffs).isEmpty();
+        assertThat(modelCalls).hasValue(0);
+    }
+
+    @Test
+    void productionModelSettlesWhatTheCandidateMovesIntoTheBand() throws InterruptedException {
+        environment.setProperty("app.shadow.rules.burst.count", "2");
+        ShadowEvaluator evaluator = evaluator(1.0, 10, false);
+        probability = 0.8;
+
+        // Production: 2 is under its burst count, ALLOW by rules; the candidate's burst +40 is REVIEW
+        evaluator.submit(input("tx-1", 2, "ALLOW", 0));
+
+        await(() -> diffs.size() == 1);
+        assertThat(modelUrls).containsExactly("http://production-model");
+        assertThat(diffs).singleElement().satisfies(row -> {
+            assertThat(row[4]).isEqualTo("BLOCK");
+            assertThat((String) row[6]).isEqualTo("burst_60s,ml_flagged_as_fraud");
+        });
+    }
+
+    @Test
+    void candidateModelSettlesTheReviewBand() throws InterruptedException {
+        ShadowEvaluator evaluator = evaluator(1.0, 10, true);
+        probability = 0.9;
+
+        evaluator.submit(input("tx-1", 3, "ALLOW", 12));
+
+        // The diff row is written after the counters move
+        await(() -> diffs.size() == 1);
+        assertThat(count("disagree")).isEqualTo(1);
+        assertThat(modelUrls).containsExactly("http://candidate-model");
+        assertThat(diffs).singleElement().satisfies(row -> {
+            assertThat(row[4]).isEqualTo("BLOCK");
+            assertThat((double) row[5]).isEqualTo(96.0, offset(1e-9));
+            assertThat((String) row[6]).isEqualTo("burst_60s,ml_flagged_as_fraud");
+        });
+    }
+
+    @Test
+    void samplesAreDroppedWhenTheExecutorIsFull() throws InterruptedException {
+        release = new CountDownLatch(1);
+        ShadowEvaluator evaluator = evaluator(1.0, 1, true);
+
+        // The first holds the only thread in the model call, the second fills the queue
+        evaluator.submit(input("tx-1", 3, "REVIEW", 40));
+        await(() -> modelCalls.get() == 1);
+        evaluator.submit(input("tx-2", 3, "REVIEW", 40));
+        evaluator.submit(input("tx-3", 3, "REVIEW", 40));
+        evaluator.submit(input("tx-4", 3, "REVIEW", 40));
+
+        assertThat(dropped()).isEqualTo(2);
+        release.countDown();
+        await(() -> count("agree") + count("disagree") == 2);
+    }
+}
@@ -0,0 +1,73 @@
+package com.fraud.engine.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fraud.common.model.Transaction;
+import com.fraud.engine.stats.HeavyHitters.Dimension;
+import com.fraud.engine.stats.HeavyHitters.Hitter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class HeavyHittersTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private HeavyHitters heavyHitters(int capacity) {
+        return new HeavyHitters(new SimpleMeterRegistry(), 5_000, 5, capacity, now::get);
+    }
+
+    private static Transaction tx(String userId, String merchantId) {
+        Transaction tx = new Transaction();
+        tx.setUserId(userId);
+        tx.setMerchantId(merchantId);
+        return tx;
+    }
+
+    @Test
+    void frequentKeysSurviveASummaryFullOfOneOffs() {
+        HeavyHitters heavyHitters = heavyHitters(8);
+        for (int i = 0; i < 1_000; i++) {
+            heavyHitters.record(tx(i % 4 == 0 ? "hot-user" : "user-" + i, "m-" + (i % 2)));
+        }
+
+        List<Hitter> users = heavyHitters.top(3).get(Dimension.USER).hitters();
+        assertThat(users.get(0).key()).isEqualTo("hot-user");
+        // Space-Saving never under-counts, and over-counts by at most the reported error
+        assertThat(users.get(0).count()).isGreaterThanOrEqualTo(250);
+        assertThat(users.get(0).count() - users.get(0).error()).isLessThanOrEqualTo(250);
+
+        List<Hitter> merchants = heavyHitters.top(5).get(Dimension.MERCHANT).hitters();
+        assertThat(merchants).extracting(Hitter::count).containsExactly(500L, 500L);
+        assertThat(merchants.get(0).share()).isEqualTo(0.5);
+    }
+
+    @Test
+    void bucketsOlderThanTheWindowAreDropped() {
+        HeavyHitters heavyHitters = heavyHitters(8);
+        heavyHitters.record(tx("old", "m"));
+        now.addAndGet(3_000);
+        heavyHitters.record(tx("new", "m"));
+
+        assertThat(heavyHitters.top(5).get(Dimension.USER).events()).isEqualTo(2);
+
+        now.addAndGet(2_500);
+        HeavyHitters.Top top = heavyHitters.top(5).get(Dimension.USER);
+        assertThat(top.events()).isEqualTo(1);
+        assertThat(top.hitters()).extracting(Hitter::key).containsExactly("new");
+    }
+
+    @Test
+    void refreshMarksKeysOverTheGuardThresholdsAsHot() {
+        HeavyHitters heavyHitters = heavyHitters(8);
+        for (int i = 0; i < 2_400; i++) {
+            heavyHitters.record(tx(i % 2 == 0 ? "flood" : "user-" + i, "m-" + i));
+        }
+        heavyHitters.refresh();
+
+        assertThat(heavyHitters.isHot(Dimension.USER, "flood")).isTrue();
+        assertThat(heavyHitters.isHot(Dimension.USER, "user-1")).isFalse();
+        assertThat(heavyHitters.isHot(Dimension.MERCHANT, "m-0")).isFalse();
+    }
+}
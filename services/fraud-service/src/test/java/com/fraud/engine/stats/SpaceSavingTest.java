@@ -0,0 +1,56 @@
+package com.fraud.engine.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class SpaceSavingTest {
+
+    private record Entry(long count, long error) {
+    }
+
+    private static Map<String, Entry> entries(SpaceSaving summary) {
+        Map<String, Entry> entries = new HashMap<>();
+        summary.forEach((key, count, error) -> entries.put(key, new Entry(count, error)));
+        return entries;
+    }
+
+    @Test
+    void heavyKeySeenFirstSurvivesOneOffsOverflowingTheSummary() {
+        SpaceSaving summary = new SpaceSaving(2);
+        for (int i = 0; i < 100; i++) {
+            summary.offer("heavy");
+        }
+        summary.offer("b");
+        summary.offer("c");
+
+        Map<String, Entry> entries = entries(summary);
+        assertThat(entries).containsEntry("heavy", new Entry(100, 0));
+        assertThat(entries).containsEntry("c", new Entry(2, 1));
+    }
+
+    @Test
+    void evictionAlwaysTakesTheLeastCountedSlot() {
+        SpaceSaving summary = new SpaceSaving(4);
+        for (int i = 0; i < 50; i++) {
+            summary.offer("a");
+        }
+        for (int i = 0; i < 20; i++) {
+            summary.offer("b");
+        }
+        for (int i = 0; i < 10; i++) {
+            summary.offer("c");
+        }
+        for (int i = 0; i < 5; i++) {
+            summary.offer("one-off-" + i);
+        }
+
+        Map<String, Entry> entries = entries(summary);
+        assertThat(entries).containsEntry("a", new Entry(50, 0))
+            .containsEntry("b", new Entry(20, 0))
+            .containsEntry("c", new Entry(10, 0))
+            .containsEntry("one-off-4", new Entry(5, 4));
+    }
+}
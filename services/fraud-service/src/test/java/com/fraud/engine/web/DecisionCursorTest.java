@@ -0,0 +1,31 @@
+package com.fraud.engine.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+class DecisionCursorTest {
+
+    @Test
+    void encodesRoundTrip() {
+        DecisionCursor cursor = new DecisionCursor(Instant.parse("2025-11-11T14:30:05.123456Z"), "tx|with-pipe");
+        String encoded = cursor.encode();
+        assertThat(encoded).doesNotContain("tx");
+
+        assertThat(DecisionCursor.decode(encoded)).isEqualTo(cursor);
+    }
+
+    @Test
+    void missingCursorStartsFromNewest() {
+        assertThat(DecisionCursor.decode(null)).isEqualTo(DecisionCursor.START);
+        assertThat(DecisionCursor.decode("")).isEqualTo(DecisionCursor.START);
+    }
+
+    @Test
+    void rejectsGarbage() {
+        assertThatThrownBy(() -> DecisionCursor.decode("not-a-cursor"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -6,9 +6,12 @@ import os
 import pickle
 import json
 import joblib
-from flask import Flask, request, jsonify
+import numpy as np
+import pandas as pd
+from flask import Flask, Response, request, jsonify
 from flask_cors import CORS
 import logging
+import threading
 
 app = Flask(__name__)
 CORS(app)
@@ -18,32 +21,69 @@ logger = logging.getLogger(__name__)
 # Load model and metadata
 MODEL_PATH = os.getenv('MODEL_PATH', '/app/models/fraud_model_xgb.pkl')
 META_PATH = os.getenv('META_PATH', '/app/models/model_meta.json')
+# Further versions live in MODELS_DIR/<version>/ (model file + model_meta.json) and are loaded
+# on first request, so a new version needs no restart. Versions are immutable once served.
+MODELS_DIR = os.getenv('MODELS_DIR', os.path.dirname(os.path.abspath(META_PATH)))
 
 model = None
 model_meta = None
+# model_version -> (model, meta); replaced whole on insert, so readers never see it half-built
+models = {}
+models_lock = threading.Lock()
+
+def read_model(model_path):
+    """Load a pickled model, trying joblib first (preferred for scikit-learn models)"""
+    try:
+        return joblib.load(model_path)
+    except Exception as joblib_error:
+        logger.warning(f"joblib load failed: {joblib_error}, trying pickle...")
+        try:
+            with open(model_path, 'rb') as f:
+                return pickle.load(f)
+        except Exception as pickle_error:
+            logger.error(f"Both joblib and pickle failed. Joblib: {joblib_error}, Pickle: {pickle_error}")
+            raise
+
+def resolve_model(version):
+    """(model, meta) for a version, the startup model when version is None; None if unknown"""
+    global models
+    if version is None or version == model_meta['model_version']:
+        return model, model_meta
+    entry = models.get(version)
+    if entry is not None:
+        return entry
+    version_dir = os.path.join(MODELS_DIR, version)
+    # Only plain version names: the request must not reach outside MODELS_DIR
+    if version in ('.', '..') or os.path.basename(version) != version or not os.path.isdir(version_dir):
+        return None
+    with models_lock:
+        entry = models.get(version)
+        if entry is not None:
+            return entry
+        with open(os.path.join(version_dir, 'model_meta.json'), 'r') as f:
+            meta = json.load(f)
+        if meta.get('model_version') != version:
+            logger.error(f"{version_dir}: model_version {meta.get('model_version')} does not match")
+            return None
+        model_files = [name for name in sorted(os.listdir(version_dir)) if name.endswith('.pkl')]
+        if not model_files:
+            logger.error(f"{version_dir}: no .pkl model file")
+            return None
+        logger.info(f"Loading model version {version} from {version_dir}")
+        entry = (read_model(os.path.join(version_dir, model_files[0])), meta)
+        models = {**models, version: entry}
+        return entry
 
 def load_model():
     global model, model_meta
     try:
         # Handle relative paths
-        import os
         model_path = os.path.abspath(MODEL_PATH) if not os.path.isabs(MODEL_PATH) else MODEL_PATH
         meta_path = os.path.abspath(META_PATH) if not os.path.isabs(META_PATH) else META_PATH
         
         logger.info(f"Loading model from {model_path}")
-        # Try joblib first (preferred for scikit-learn models), then pickle
-        try:
-            model = joblib.load(model_path)
-            logger.info("Model loaded successfully using joblib")
-        except Exception as joblib_error:
-            logger.warning(f"joblib load failed: {joblib_error}, trying pickle...")
-            try:
-                with open(model_path, 'rb') as f:
-                    model = pickle.load(f)
-                logger.info("Model loaded successfully using pickle")
-            except Exception as pickle_error:
-                logger.error(f"Both joblib and pickle failed. Joblib: {joblib_error}, Pickle: {pickle_error}")
-                raise
+        model = read_model(model_path)
+        logger.info("Model loaded successfully")
         
         logger.info(f"Loading metadata from {meta_path}")
         with open(meta_path, 'r') as f:
@@ -59,56 +99,119 @@ def health():
     return jsonify({
         'status': 'UP' if model is not None else 'DOWN',
         'model_loaded': model is not None,
-        'model_version': model_meta.get('model_version') if model_meta else None
+        'model_version': model_meta.get('model_version') if model_meta else None,
+        'loaded_versions': sorted(models.keys())
     })
 
+BINARY = 'application/octet-stream'
+
+def frame_builder(meta):
+    """Turn a float32 matrix in the meta's feature order into the frame the pipeline was fitted on:
+    columns named as in meta, categorical columns mapped from their index back to the category
+    (unknown indices to '', which the pipeline's encoder ignores)"""
+    columns = meta['features']
+    categorical = [(columns.index(name), name, np.array(list(values) + [''], dtype=object))
+                   for name, values in meta.get('categories', {}).items() if name in columns]
+
+    def build(rows):
+        frame = pd.DataFrame(rows, columns=columns, copy=False)
+        for index, name, lookup in categorical:
+            codes = rows[:, index].astype(np.int64)
+            codes[(codes < 0) | (codes >= len(lookup) - 1)] = -1
+            frame[name] = lookup[codes]
+        return frame
+    return build
+
+# model_version -> frame builder, built once per version
+frame_builders = {}
+
+def fraud_probabilities(probabilities):
+    # Binary: [not_fraud, fraud]; multi-class: [ALLOW, REVIEW, BLOCK], fraud = REVIEW + BLOCK
+    if probabilities.shape[1] == 2:
+        return probabilities[:, 1]
+    return probabilities[:, 1] + probabilities[:, 2]
+
+def predict_binary():
+    """Body: little-endian float32 rows in the model's feature order (categories as indices).
+    Response: one little-endian float32 fraud probability per row."""
+    version = request.headers.get('X-Model-Version')
+    resolved = resolve_model(version)
+    if resolved is None:
+        return jsonify({'error': f'Unknown model version {version}'}), 404
+    version_model, version_meta = resolved
+    if 'categories' not in version_meta:
+        return jsonify({'error': f'Model {version_meta["model_version"]} has no categories; use JSON'}), 415
+    width = len(version_meta['features'])
+    values = np.frombuffer(request.get_data(cache=False), dtype='<f4')
+    if values.size == 0 or values.size % width:
+        return jsonify({'error': f'Expected rows of {width} float32 values, got {values.size}'}), 400
+    builder = frame_builders.get(version_meta['model_version'])
+    if builder is None:
+        builder = frame_builders[version_meta['model_version']] = frame_builder(version_meta)
+    rows = values.reshape(-1, width)
+    probabilities = fraud_probabilities(version_model.predict_proba(builder(rows)))
+    return Response(np.asarray(probabilities, dtype='<f4').tobytes(), mimetype=BINARY,
+                    headers={'X-Model-Version': version_meta['model_version']})
+
 @app.route('/predict', methods=['POST'])
 def predict():
     if model is None:
         return jsonify({'error': 'Model not loaded'}), 503
     
     try:
+        if request.mimetype == BINARY:
+            return predict_binary()
         data = request.get_json()
         features = data.get('features', [])
+        version = data.get('model_version')
+        try:
+            resolved = resolve_model(version)
+        except Exception as e:
+            logger.error(f"Failed to load model version {version}: {e}", exc_info=True)
+            return jsonify({'error': f'Model version {version} failed to load'}), 503
+        if resolved is None:
+            return jsonify({'error': f'Unknown model version {version}'}), 404
+        version_model, version_meta = resolved
+        # Features added after the positional list arrive by name; append the ones this model
+        # was trained with (listed after the positional ones in model_meta) and ignore the rest
+        extra_features = data.get('extra_features') or {}
+        expected = version_meta['features']
+        if len(features) < len(expected):
+            missing = expected[len(features):]
+            if all(name in extra_features for name in missing):
+                features = features + [extra_features[name] for name in missing]
 
-        logger.info(f"Received features: {features}")
-        logger.info(f"Feature types: {[type(f) for f in features]}")
+        logger.debug(f"Received features: {features}")
 
-        if len(features) != len(model_meta['features']):
+        if len(features) != len(version_meta['features']):
             return jsonify({
-                'error': f'Expected {len(model_meta["features"])} features, got {len(features)}',
-                'expected_features': model_meta['features']
+                'error': f'Expected {len(version_meta["features"])} features, got {len(features)}',
+                'expected_features': version_meta['features']
             }), 400
 
         # Convert to numpy array and predict
-        import numpy as np
-        import pandas as pd
-
         # Convert features to proper format
         # Try pandas DataFrame first (many scikit-learn pipelines expect this)
         try:
-            logger.info(f"Creating DataFrame with columns: {model_meta['features']}")
-            feature_df = pd.DataFrame([features], columns=model_meta['features'])
-            logger.info(f"DataFrame created: {feature_df}")
-            logger.info(f"DataFrame dtypes: {feature_df.dtypes}")
+            feature_df = pd.DataFrame([features], columns=version_meta['features'])
             # Get prediction probabilities
-            probabilities = model.predict_proba(feature_df)
+            probabilities = version_model.predict_proba(feature_df)
             # Handle both 2D array (single row) and 1D array
             if len(probabilities.shape) > 1:
                 probabilities = probabilities[0]
             
             # Get prediction class
-            prediction = model.predict(feature_df)
+            prediction = version_model.predict(feature_df)
             if hasattr(prediction, '__len__') and len(prediction) > 0:
                 prediction = prediction[0]
         except Exception as e:
             # Fallback to numpy array
             logger.debug(f"DataFrame prediction failed: {e}, trying NumPy array...")
             feature_array = np.array([features], dtype=float)
-            probabilities = model.predict_proba(feature_array)
+            probabilities = version_model.predict_proba(feature_array)
             if len(probabilities.shape) > 1:
                 probabilities = probabilities[0]
-            prediction = model.predict(feature_array)
+            prediction = version_model.predict(feature_array)
             if hasattr(prediction, '__len__') and len(prediction) > 0:
                 prediction = prediction[0]
         
@@ -124,7 +227,7 @@ def predict():
             'fraud_probability': float(fraud_probability),
             'prediction': int(prediction),
             'probabilities': [float(p) for p in probabilities],
-            'model_version': model_meta['model_version']
+            'model_version': version_meta['model_version']
         })
     except Exception as e:
         logger.error(f"Prediction error: {e}", exc_info=True)